@@ -0,0 +1,121 @@
+package com.tcg.tcgweatherapi.cache;
+
+import com.tcg.tcgweatherapi.model.WeatherReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Measures the in-memory structures every weather request passes through when its ZIP code and user are
+ * cached: the weather cache hit, the user status cache hit, ZIP code popularity counting and a single-flight
+ * call that has nothing to coalesce with. The contended variants run on four threads sharing the structures.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheBenchmark {
+
+    private static final int KEYS = 1_024;
+
+    private final String[] zipCodes = new String[KEYS];
+    private final String[] emails = new String[KEYS];
+    private final Function<String, WeatherReport> failingLoader = zipCode -> {
+        throw new IllegalStateException("Every ZIP code is cached");
+    };
+    private final Function<String, UserStatus> failingUserLoader = email -> {
+        throw new IllegalStateException("Every user is cached");
+    };
+
+    private ExecutorService refreshExecutor;
+    private WeatherCache weatherCache;
+    private UserStatusCache userStatusCache;
+    private ZipCodePopularity zipCodePopularity;
+    private SingleFlight<String, WeatherReport> singleFlight;
+    private WeatherReport report;
+
+    @Setup
+    public void setUp() {
+        refreshExecutor = Executors.newSingleThreadExecutor();
+        weatherCache = new WeatherCache(10_000, Duration.ofMinutes(10), Duration.ofMinutes(5), refreshExecutor,
+                Clock.systemUTC());
+        userStatusCache = new UserStatusCache(100_000, Duration.ofMinutes(5));
+        zipCodePopularity = new ZipCodePopularity(4096, 100, 3);
+        singleFlight = new SingleFlight<>();
+        report = WeatherReport.parse("{\"main\":{\"temp\":71.6,\"humidity\":40}}");
+        for (int i = 0; i < KEYS; i++) {
+            zipCodes[i] = String.format("%05d", 10_000 + i * 7);
+            emails[i] = "user" + i + "@example.com";
+            weatherCache.put(zipCodes[i], report);
+            userStatusCache.put(emails[i], new UserStatus((long) i, true));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * The position of one benchmark thread in the keys, so threads do not contend on a shared counter.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        int next() {
+            return next++ & (KEYS - 1);
+        }
+    }
+
+    @Benchmark
+    public WeatherReport weatherCacheHit(Cursor cursor) {
+        return weatherCache.get(zipCodes[cursor.next()], failingLoader);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public WeatherReport weatherCacheHitContended(Cursor cursor) {
+        return weatherCache.get(zipCodes[cursor.next()], failingLoader);
+    }
+
+    @Benchmark
+    public UserStatus userStatusCacheHit(Cursor cursor) {
+        return userStatusCache.get(emails[cursor.next()], failingUserLoader);
+    }
+
+    @Benchmark
+    public void recordPopularity(Cursor cursor) {
+        zipCodePopularity.record(zipCodes[cursor.next()]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordPopularityContended(Cursor cursor) {
+        zipCodePopularity.record(zipCodes[cursor.next()]);
+    }
+
+    @Benchmark
+    public WeatherReport singleFlightUncontended(Cursor cursor) {
+        return singleFlight.execute(zipCodes[cursor.next()], () -> report, Duration.ofSeconds(1));
+    }
+}
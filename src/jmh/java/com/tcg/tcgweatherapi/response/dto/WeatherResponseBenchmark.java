@@ -0,0 +1,97 @@
+package com.tcg.tcgweatherapi.response.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import com.tcg.tcgweatherapi.entity.WeatherSnapshot;
+import com.tcg.tcgweatherapi.model.WeatherReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures turning a weather request into its response body: mapping the entity to a {@link WeatherResponseDTO}
+ * and serializing it with an object mapper configured like the application's, with payloads of
+ * {@code payloadKilobytes}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WeatherResponseBenchmark {
+
+    private static final String CURRENT_WEATHER = "{\"coord\":{\"lon\":-73.99,\"lat\":40.75},"
+            + "\"weather\":[{\"id\":800,\"main\":\"Clear\",\"description\":\"clear sky\",\"icon\":\"01d\"}],"
+            + "\"base\":\"stations\",\"main\":{\"temp\":71.6,\"feels_like\":70.9,\"temp_min\":68.2,\"temp_max\":74.1,"
+            + "\"pressure\":1016,\"humidity\":40},\"visibility\":10000,\"wind\":{\"speed\":8.05,\"deg\":230},"
+            + "\"clouds\":{\"all\":0},\"dt\":1735689600,\"sys\":{\"type\":2,\"id\":2039034,\"country\":\"US\","
+            + "\"sunrise\":1735647960,\"sunset\":1735681800},\"timezone\":-18000,\"id\":0,\"name\":\"New York\","
+            + "\"cod\":200";
+
+    @Param({"1", "64"})
+    public int payloadKilobytes;
+
+    private WeatherRequest weatherRequest;
+    private WeatherResponseDTO response;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setUp() {
+        String payload = payload(payloadKilobytes * 1024);
+        weatherRequest = new WeatherRequest();
+        weatherRequest.setEmail("jane.doe@example.com");
+        weatherRequest.setZipCode("10001");
+        weatherRequest.setSnapshot(WeatherSnapshot.of("10001", WeatherReport.parse(payload)));
+        weatherRequest.setTimestamp(LocalDateTime.of(2025, 1, 1, 12, 0));
+        response = WeatherResponseDTO.of(weatherRequest, true);
+        writer = Jackson2ObjectMapperBuilder.json().build().writerFor(WeatherResponseDTO.class);
+    }
+
+    @Benchmark
+    public WeatherResponseDTO mapRequest() {
+        return WeatherResponseDTO.of(weatherRequest, false);
+    }
+
+    @Benchmark
+    public WeatherResponseDTO mapRequestWithPayload() {
+        return WeatherResponseDTO.of(weatherRequest, true);
+    }
+
+    @Benchmark
+    public byte[] serializeWithPayload() throws JsonProcessingException {
+        return writer.writeValueAsBytes(response);
+    }
+
+    /**
+     * Builds a current weather payload padded with hourly forecast entries up to about the given size.
+     */
+    private static String payload(int size) {
+        StringBuilder payload = new StringBuilder(size + 256).append(CURRENT_WEATHER);
+        payload.append(",\"hourly\":[");
+        for (int hour = 0; payload.length() < size; hour++) {
+            if (hour > 0) {
+                payload.append(',');
+            }
+            payload.append("{\"dt\":").append(1735689600 + hour * 3600)
+                    .append(",\"temp\":").append(60 + hour % 20).append('.').append(hour % 10)
+                    .append(",\"humidity\":").append(30 + hour % 50)
+                    .append(",\"wind_speed\":").append(hour % 15).append(".4")
+                    .append(",\"weather\":[{\"id\":800,\"main\":\"Clear\",\"description\":\"clear sky\"}]}");
+        }
+        return payload.append("]}").toString();
+    }
+}
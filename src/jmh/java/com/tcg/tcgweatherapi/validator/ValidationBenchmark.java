@@ -0,0 +1,54 @@
+package com.tcg.tcgweatherapi.validator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the input validation every weather request and registration goes through.
+ *
+ * <p>Each invocation validates the next input of a fixed mix of valid and invalid values, so branch prediction
+ * cannot learn a single answer.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidationBenchmark {
+
+    private static final String[] ZIP_CODES = {
+            "10001", "94105-1804", "60601 2345", "1000", "abcde", "00000", "021390", " 10001", "30301", "98101-"
+    };
+
+    private static final String[] EMAILS = {
+            "jane.doe@example.com", "bob@mail.example.org", "not-an-email", "@", "first.last+tag@sub.example.co",
+            "missing-at.example.com"
+    };
+
+    private int next;
+
+    @Benchmark
+    public boolean isValidUSZipCode() {
+        return ZipCodeValidator.isValidUSZipCode(ZIP_CODES[next++ % ZIP_CODES.length]);
+    }
+
+    @Benchmark
+    public String canonicalize() {
+        return ZipCodeValidator.canonicalize(ZIP_CODES[next++ % 3]);
+    }
+
+    @Benchmark
+    public boolean isValidEmail() {
+        return EmailValidator.isValid(EMAILS[next++ % EMAILS.length]);
+    }
+}
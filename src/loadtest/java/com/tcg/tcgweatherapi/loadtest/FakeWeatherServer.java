@@ -0,0 +1,188 @@
+package com.tcg.tcgweatherapi.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A local stand-in for the OpenWeatherMap current weather API, implementing the contract the application uses
+ * through {@code weather.api.url}: {@code GET <url>?zip=<zip>&appid=<key>&units=imperial}.
+ *
+ * <p>Every response is delayed by a draw from the configured {@link LatencyDistribution}. A fraction of the
+ * requests fail with HTTP 500, and during a recurring burst window every request is throttled with HTTP 429, as
+ * the real API does when the appid's quota is spent. ZIP codes starting with {@code 000} do not exist and get
+ * HTTP 404. Everything runs in-process on the loopback interface, so no network access is needed.</p>
+ */
+public class FakeWeatherServer implements AutoCloseable {
+
+    /**
+     * The path the weather is served on, like the real API's.
+     */
+    public static final String PATH = "/data/2.5/weather";
+
+    private final Options options;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long startedAt = System.nanoTime();
+    private final Map<Integer, LongAdder> responses = new HashMap<>();
+
+    /**
+     * The behaviour of the server.
+     *
+     * @param port        the port to listen on, or 0 for any free port.
+     * @param latency     the distribution of response times.
+     * @param errorRate   the fraction of requests, between 0 and 1, answered with HTTP 500.
+     * @param burstEvery  how often a burst of HTTP 429 answers starts, or {@link Duration#ZERO} for none.
+     * @param burstLength how long each burst lasts.
+     */
+    public record Options(int port, LatencyDistribution latency, double errorRate, Duration burstEvery,
+                          Duration burstLength) {
+    }
+
+    /**
+     * Starts the server.
+     *
+     * @param options the behaviour of the server.
+     * @throws IOException if the port cannot be bound.
+     */
+    public FakeWeatherServer(Options options) throws IOException {
+        this.options = options;
+        for (int status : new int[]{200, 401, 404, 429, 500}) {
+            responses.put(status, new LongAdder());
+        }
+        // Responses sleep for their latency, so every request in flight needs its own thread
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-weather");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", options.port()), 1024);
+        server.createContext(PATH, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Returns the URL to configure as {@code weather.api.url}.
+     *
+     * @return the weather URL of this server.
+     */
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + PATH;
+    }
+
+    /**
+     * Returns the number of responses sent with each status.
+     *
+     * @return the response counts by HTTP status.
+     */
+    public Map<Integer, Long> responseCounts() {
+        Map<Integer, Long> counts = new HashMap<>();
+        responses.forEach((status, count) -> counts.put(status, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            sleep(options.latency().sampleNanos(random));
+            Map<String, String> query = query(exchange.getRequestURI());
+            String zipCode = query.get("zip");
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+            } else if (query.get("appid") == null) {
+                send(exchange, 401, "{\"cod\":401,\"message\":\"Invalid API key.\"}");
+            } else if (inBurst()) {
+                send(exchange, 429, "{\"cod\":429,\"message\":\"Your account is temporary blocked due to exceeding of "
+                        + "requests limitation of your subscription type.\"}");
+            } else if (random.nextDouble() < options.errorRate()) {
+                send(exchange, 500, "{\"cod\":500,\"message\":\"Internal error\"}");
+            } else if (zipCode == null || zipCode.startsWith("000")) {
+                send(exchange, 404, "{\"cod\":\"404\",\"message\":\"city not found\"}");
+            } else {
+                send(exchange, 200, weather(zipCode));
+            }
+        } catch (RuntimeException e) {
+            // The server would drop the connection silently; make a broken stand-in obvious instead
+            e.printStackTrace();
+            throw e;
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private boolean inBurst() {
+        long every = options.burstEvery().toNanos();
+        return every > 0 && (System.nanoTime() - startedAt) % every >= every - options.burstLength().toNanos();
+    }
+
+    private void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+        responses.get(status).increment();
+    }
+
+    /**
+     * Builds a current weather payload that changes slowly over time and differs between ZIP codes.
+     */
+    private static String weather(String zipCode) {
+        int seed = zipCode.hashCode();
+        long now = System.currentTimeMillis() / 1000;
+        double temperature = 40 + Math.floorMod(seed, 50) + 5 * Math.sin(now / 3600.0);
+        return String.format(Locale.ROOT, "{\"coord\":{\"lon\":%.2f,\"lat\":%.2f},"
+                        + "\"weather\":[{\"id\":800,\"main\":\"Clear\",\"description\":\"clear sky\",\"icon\":\"01d\"}],"
+                        + "\"base\":\"stations\",\"main\":{\"temp\":%.2f,\"feels_like\":%.2f,\"temp_min\":%.2f,"
+                        + "\"temp_max\":%.2f,\"pressure\":1016,\"humidity\":%d},\"visibility\":10000,"
+                        + "\"wind\":{\"speed\":%.2f,\"deg\":%d},\"clouds\":{\"all\":0},\"dt\":%d,"
+                        + "\"sys\":{\"country\":\"US\"},\"timezone\":-18000,\"id\":0,\"name\":\"Zip %s\",\"cod\":200}",
+                -70 - Math.floorMod(seed, 50) / 2.0, 30.0 + Math.floorMod(seed, 18), temperature, temperature - 1,
+                temperature - 3, temperature + 3, 30 + Math.floorMod(seed, 60), Math.floorMod(seed, 20) / 2.0,
+                Math.floorMod(seed, 360), now, zipCode);
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = uri.getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                int equals = parameter.indexOf('=');
+                if (equals > 0) {
+                    parameters.put(parameter.substring(0, equals), parameter.substring(equals + 1));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    private static void sleep(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.tcg.tcgweatherapi.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * A distribution of simulated upstream response times.
+ *
+ * <p>Parsed from specs like {@code fixed:50ms}, {@code uniform:20ms-80ms} or {@code lognormal:40ms,400ms}, the
+ * latter giving the median and the 99th percentile. Log-normal latencies have the long right tail real network
+ * calls have, so they are the default.</p>
+ */
+public interface LatencyDistribution {
+
+    /**
+     * Draws one latency.
+     *
+     * @param random the source of randomness, owned by the calling thread.
+     * @return the latency in nanoseconds, never negative.
+     */
+    long sampleNanos(Random random);
+
+    /**
+     * Parses a latency distribution spec.
+     *
+     * @param spec the spec, e.g. {@code lognormal:40ms,400ms}.
+     * @return the distribution.
+     * @throws IllegalArgumentException if the spec is not recognized.
+     */
+    static LatencyDistribution parse(String spec) {
+        int colon = spec.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Latency spec must look like fixed:50ms, uniform:20ms-80ms or "
+                    + "lognormal:40ms,400ms, not " + spec);
+        }
+        String kind = spec.substring(0, colon);
+        String arguments = spec.substring(colon + 1);
+        return switch (kind) {
+            case "fixed" -> {
+                long nanos = nanos(arguments);
+                yield random -> nanos;
+            }
+            case "uniform" -> {
+                String[] bounds = arguments.split("-", 2);
+                long min = nanos(bounds[0]);
+                long max = nanos(bounds[1]);
+                yield random -> min + (long) (random.nextDouble() * (max - min));
+            }
+            case "lognormal" -> {
+                String[] percentiles = arguments.split(",", 2);
+                double median = nanos(percentiles[0]);
+                double p99 = nanos(percentiles[1]);
+                // The 99th percentile of a log-normal distribution is exp(mu + 2.326 sigma)
+                double mu = Math.log(median);
+                double sigma = Math.max(0, Math.log(p99 / median) / 2.326);
+                yield random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+            }
+            default -> throw new IllegalArgumentException("Unknown latency distribution " + kind);
+        };
+    }
+
+    private static long nanos(String duration) {
+        return DurationStyle.detectAndParse(duration.trim()).toNanos();
+    }
+
+    /**
+     * Returns a distribution that always takes the given time.
+     *
+     * @param latency the latency.
+     * @return the distribution.
+     */
+    static LatencyDistribution fixed(Duration latency) {
+        long nanos = latency.toNanos();
+        return random -> nanos;
+    }
+}
@@ -0,0 +1,139 @@
+package com.tcg.tcgweatherapi.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives load against the application, in a closed or an open loop.
+ *
+ * <p>A closed loop keeps a fixed number of users each sending their next request once the previous one is
+ * answered; throughput follows latency, as with a fixed pool of clients. An open loop sends requests at a fixed
+ * rate whatever the latency, as independent clients on the internet do. Open-loop latencies are measured from
+ * when a request was due rather than when it was sent, so a stalled server shows up in the percentiles instead
+ * of hiding behind fewer requests (coordinated omission).</p>
+ */
+public class LoadDriver {
+
+    private final HttpClient client;
+    private final RequestMix mix;
+
+    /**
+     * Creates a driver.
+     *
+     * @param client the client requests are sent with.
+     * @param mix    the requests to send.
+     */
+    public LoadDriver(HttpClient client, RequestMix mix) {
+        this.client = client;
+        this.mix = mix;
+    }
+
+    /**
+     * Runs a closed loop.
+     *
+     * @param concurrency the number of simulated users, each with at most one request in flight.
+     * @param duration    how long to send requests.
+     * @param thinkTime   how long each user waits between a response and its next request.
+     * @return the result of the run.
+     * @throws InterruptedException if interrupted while waiting for the users.
+     */
+    public LoadResult runClosed(int concurrency, Duration duration, Duration thinkTime) throws InterruptedException {
+        LoadResult result = new LoadResult();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        List<Thread> users = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Thread user = new Thread(() -> {
+                Random random = new Random(ThreadLocalRandom.current().nextLong());
+                while (System.nanoTime() < end) {
+                    RequestMix.Kind kind = mix.nextKind(random);
+                    HttpRequest request = mix.next(kind, random);
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        result.record(kind, response.statusCode(), System.nanoTime() - sent);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (Exception e) {
+                        result.recordFailure(kind, e, System.nanoTime() - sent);
+                    }
+                    if (!thinkTime.isZero()) {
+                        LockSupport.parkNanos(thinkTime.toNanos());
+                    }
+                }
+            }, "load-user-" + i);
+            users.add(user);
+            user.start();
+        }
+        for (Thread user : users) {
+            user.join();
+        }
+        return result.finish(Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Runs an open loop.
+     *
+     * @param rate        the number of requests to send per second.
+     * @param duration    how long to send requests.
+     * @param maxInFlight the number of unanswered requests beyond which due requests are skipped and counted
+     *                    instead of sent, so an overloaded server cannot exhaust the driver.
+     * @param drainTimeout how long to wait for requests still in flight when the run ends.
+     * @return the result of the run.
+     * @throws InterruptedException if interrupted while pacing or draining.
+     */
+    public LoadResult runOpen(double rate, Duration duration, int maxInFlight, Duration drainTimeout)
+            throws InterruptedException {
+        LoadResult result = new LoadResult();
+        AtomicInteger inFlight = new AtomicInteger();
+        Random random = new Random();
+        double interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long due = start + (long) (i * interval);
+            if (due >= end) {
+                break;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            RequestMix.Kind kind = mix.nextKind(random);
+            if (inFlight.get() >= maxInFlight) {
+                result.recordSkipped();
+                continue;
+            }
+            inFlight.incrementAndGet();
+            client.sendAsync(mix.next(kind, random), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        long latency = System.nanoTime() - due;
+                        if (failure != null) {
+                            result.recordFailure(kind, failure.getCause() != null ? failure.getCause() : failure,
+                                    latency);
+                        } else {
+                            result.record(kind, response.statusCode(), latency);
+                        }
+                        inFlight.decrementAndGet();
+                    });
+        }
+        long drainEnd = System.nanoTime() + drainTimeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainEnd) {
+            Thread.sleep(10);
+        }
+        return result.finish(Duration.ofNanos(System.nanoTime() - start));
+    }
+}
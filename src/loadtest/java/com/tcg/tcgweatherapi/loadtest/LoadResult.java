@@ -0,0 +1,146 @@
+package com.tcg.tcgweatherapi.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latencies and outcomes of a load test run.
+ *
+ * <p>Latencies are recorded in microseconds into one HdrHistogram per kind of request, so percentiles up to the
+ * maximum stay exact to three significant digits however long the run is. Recording is safe from any number of
+ * threads.</p>
+ */
+public class LoadResult {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private final Map<RequestMix.Kind, Recorder> recorders = new EnumMap<>(RequestMix.Kind.class);
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    private final LongAdder skipped = new LongAdder();
+    private Map<RequestMix.Kind, Histogram> histograms;
+    private Duration elapsed;
+
+    /**
+     * Creates an empty result.
+     */
+    public LoadResult() {
+        for (RequestMix.Kind kind : RequestMix.Kind.values()) {
+            recorders.put(kind, new Recorder(MAX_LATENCY_MICROS, 3));
+        }
+    }
+
+    /**
+     * Records a completed request.
+     *
+     * @param kind         the kind of request.
+     * @param status       the HTTP status of the response.
+     * @param latencyNanos the time from when the request was due to when its response was read.
+     */
+    public void record(RequestMix.Kind kind, int status, long latencyNanos) {
+        recorders.get(kind).recordValue(Math.min(MAX_LATENCY_MICROS, Math.max(1, latencyNanos / 1_000)));
+        outcomes.computeIfAbsent(Integer.toString(status), key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Records a request that failed without a response.
+     *
+     * @param kind         the kind of request.
+     * @param failure      why no response was received.
+     * @param latencyNanos the time from when the request was due to when it failed.
+     */
+    public void recordFailure(RequestMix.Kind kind, Throwable failure, long latencyNanos) {
+        recorders.get(kind).recordValue(Math.min(MAX_LATENCY_MICROS, Math.max(1, latencyNanos / 1_000)));
+        String outcome = failure instanceof HttpTimeoutException ? "timeout" : failure.getClass().getSimpleName();
+        outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Records a request an open-loop run did not send because too many requests were already in flight.
+     */
+    public void recordSkipped() {
+        skipped.increment();
+    }
+
+    /**
+     * Ends recording.
+     *
+     * @param elapsed how long the run took.
+     * @return this result.
+     */
+    public LoadResult finish(Duration elapsed) {
+        Map<RequestMix.Kind, Histogram> finished = new EnumMap<>(RequestMix.Kind.class);
+        recorders.forEach((kind, recorder) -> finished.put(kind, recorder.getIntervalHistogram()));
+        this.histograms = finished;
+        this.elapsed = elapsed;
+        return this;
+    }
+
+    /**
+     * Returns the latencies of all requests.
+     *
+     * @return the combined latency histogram, in microseconds.
+     */
+    public Histogram total() {
+        Histogram total = new Histogram(MAX_LATENCY_MICROS, 3);
+        histograms.values().forEach(total::add);
+        return total;
+    }
+
+    /**
+     * Prints throughput, outcomes and latency percentiles.
+     *
+     * @param out the stream to print to.
+     */
+    public void print(PrintStream out) {
+        Histogram total = total();
+        double seconds = elapsed.toNanos() / 1e9;
+        out.printf(Locale.ROOT, "%nRequests: %d in %.1f s, %.1f req/s%n", total.getTotalCount(), seconds,
+                total.getTotalCount() / seconds);
+        Map<String, Long> counts = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> counts.put(outcome, count.sum()));
+        out.println("Outcomes: " + counts + (skipped.sum() > 0 ? ", skipped: " + skipped.sum() : ""));
+        out.printf(Locale.ROOT, "%n%-8s %9s", "latency", "count");
+        for (double percentile : PERCENTILES) {
+            out.printf(Locale.ROOT, " %9s", "p" + format(percentile));
+        }
+        out.printf(Locale.ROOT, " %9s   (ms)%n", "max");
+        histograms.forEach((kind, histogram) -> printRow(out, kind.name().toLowerCase(Locale.ROOT), histogram));
+        printRow(out, "all", total);
+    }
+
+    /**
+     * Prints the full percentile distribution of all requests, in milliseconds, as HdrHistogram plots it.
+     *
+     * @param out the stream to print to.
+     */
+    public void printDistribution(PrintStream out) {
+        total().outputPercentileDistribution(out, 1_000.0);
+    }
+
+    private static void printRow(PrintStream out, String label, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return;
+        }
+        out.printf(Locale.ROOT, "%-8s %9d", label, histogram.getTotalCount());
+        for (double percentile : PERCENTILES) {
+            out.printf(Locale.ROOT, " %9.2f", histogram.getValueAtPercentile(percentile) / 1_000.0);
+        }
+        out.printf(Locale.ROOT, " %9.2f%n", histogram.getMaxValue() / 1_000.0);
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? Long.toString((long) percentile) : Double.toString(percentile);
+    }
+}
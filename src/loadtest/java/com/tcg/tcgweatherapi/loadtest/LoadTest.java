@@ -0,0 +1,187 @@
+package com.tcg.tcgweatherapi.loadtest;
+
+import com.tcg.tcgweatherapi.TcgweatherapiApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runs a load test against the application with the upstream weather API replaced by a
+ * {@link FakeWeatherServer}, entirely on the local machine.
+ *
+ * <p>By default the fake server and the application are started in this JVM, the users are registered, a warmup
+ * run is discarded and the measured run's results are printed. Options are passed as {@code --name=value}:</p>
+ *
+ * <ul>
+ *     <li>{@code mode}: {@code closed} (default) or {@code open}.</li>
+ *     <li>{@code concurrency} and {@code think-time}: the users of a closed loop; 32 and 0ms by default.</li>
+ *     <li>{@code rate} and {@code max-in-flight}: the requests per second of an open loop and the number of
+ *         unanswered requests beyond which due requests are skipped; 200 and 10000 by default.</li>
+ *     <li>{@code duration} and {@code warmup}: how long to measure and to warm up; 60s and 10s by default.</li>
+ *     <li>{@code mix}: the weights of the requests; {@code weather=90,batch=5,history=5} by default.</li>
+ *     <li>{@code zip-codes}, {@code users} and {@code skew}: the number of distinct ZIP codes and users, and the
+ *         Zipf exponent of their popularity; 2000, 200 and 1.0 by default.</li>
+ *     <li>{@code timeout}: the timeout of each request; 10s by default.</li>
+ *     <li>{@code upstream-latency}, {@code upstream-error-rate}, {@code upstream-burst-every},
+ *         {@code upstream-burst-length} and {@code upstream-port}: the behaviour of the fake server, see
+ *         {@link LatencyDistribution} and {@link FakeWeatherServer.Options}; {@code lognormal:40ms,400ms}, 0.01,
+ *         0s (no bursts), 5s and 0 (any free port) by default.</li>
+ *     <li>{@code app.<property>}: application properties for the embedded application, e.g.
+ *         {@code --app.weather.api.non-blocking=true}.</li>
+ *     <li>{@code target}: the URL of an application started separately, instead of the embedded one.</li>
+ *     <li>{@code upstream-only}: only start the fake server, for an application started separately with its
+ *         {@code weather.api.url}, and keep it running until the process is stopped.</li>
+ *     <li>{@code distribution}: a file to write the full latency percentile distribution to.</li>
+ * </ul>
+ *
+ * <p>The driver shares the machine with the application, so pin them to separate cores (for example with
+ * {@code taskset}) or use {@code target} when the driver's own CPU use matters.</p>
+ */
+public final class LoadTest {
+
+    private static final String APP_PREFIX = "app.";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        PrintStream out = System.out;
+        FakeWeatherServer.Options upstreamOptions = new FakeWeatherServer.Options(
+                Integer.parseInt(options.getOrDefault("upstream-port", "0")),
+                LatencyDistribution.parse(options.getOrDefault("upstream-latency", "lognormal:40ms,400ms")),
+                Double.parseDouble(options.getOrDefault("upstream-error-rate", "0.01")),
+                duration(options, "upstream-burst-every", "0s"),
+                duration(options, "upstream-burst-length", "5s"));
+
+        try (FakeWeatherServer upstream = new FakeWeatherServer(upstreamOptions)) {
+            out.println("Fake weather API listening on " + upstream.url());
+            if (options.containsKey("upstream-only")) {
+                Thread.currentThread().join();
+                return;
+            }
+            ConfigurableApplicationContext application = null;
+            try {
+                URI target;
+                if (options.containsKey("target")) {
+                    target = URI.create(options.get("target"));
+                } else {
+                    application = startApplication(upstream.url(), options);
+                    int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+                    target = URI.create("http://127.0.0.1:" + port);
+                }
+                run(target, options, out);
+                out.println("Fake weather API responses by status: " + upstream.responseCounts());
+            } finally {
+                if (application != null) {
+                    application.close();
+                }
+            }
+        }
+    }
+
+    private static void run(URI target, Map<String, String> options, PrintStream out) throws Exception {
+        Duration timeout = duration(options, "timeout", "10s");
+        int users = Integer.parseInt(options.getOrDefault("users", "200"));
+        RequestMix mix = new RequestMix(target, timeout,
+                RequestMix.parseWeights(options.getOrDefault("mix", "weather=90,batch=5,history=5")),
+                Integer.parseInt(options.getOrDefault("zip-codes", "2000")), users,
+                Double.parseDouble(options.getOrDefault("skew", "1.0")));
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+
+        out.println("Registering " + users + " users at " + target);
+        for (int i = 0; i < users; i++) {
+            // Users left over from an earlier run against the same application answer 409, which is fine
+            client.send(mix.registration(RequestMix.email(i)), HttpResponse.BodyHandlers.discarding());
+        }
+
+        LoadDriver driver = new LoadDriver(client, mix);
+        Duration warmup = duration(options, "warmup", "10s");
+        if (!warmup.isZero()) {
+            out.println("Warming up for " + warmup.toSeconds() + "s");
+            drive(driver, options, warmup);
+        }
+        Duration duration = duration(options, "duration", "60s");
+        out.println("Measuring for " + duration.toSeconds() + "s");
+        LoadResult result = drive(driver, options, duration);
+        result.print(out);
+
+        String distribution = options.get("distribution");
+        if (distribution != null) {
+            Path file = Path.of(distribution);
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (PrintStream distributionOut = new PrintStream(Files.newOutputStream(file))) {
+                result.printDistribution(distributionOut);
+            }
+            out.println("Latency distribution written to " + file.toAbsolutePath());
+        }
+    }
+
+    private static LoadResult drive(LoadDriver driver, Map<String, String> options, Duration duration)
+            throws InterruptedException {
+        String mode = options.getOrDefault("mode", "closed");
+        return switch (mode) {
+            case "closed" -> driver.runClosed(Integer.parseInt(options.getOrDefault("concurrency", "32")), duration,
+                    duration(options, "think-time", "0ms"));
+            case "open" -> driver.runOpen(Double.parseDouble(options.getOrDefault("rate", "200")), duration,
+                    Integer.parseInt(options.getOrDefault("max-in-flight", "10000")),
+                    duration(options, "timeout", "10s"));
+            default -> throw new IllegalArgumentException("Unknown mode " + mode + "; use closed or open");
+        };
+    }
+
+    private static ConfigurableApplicationContext startApplication(String upstreamUrl, Map<String, String> options) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("weather.api.url", upstreamUrl);
+        // Start cold and leave nothing behind, so runs are comparable
+        properties.put("cache.snapshot.enabled", "false");
+        properties.put("logging.level.root", "WARN");
+        options.forEach((name, value) -> {
+            if (name.startsWith(APP_PREFIX)) {
+                properties.put(name.substring(APP_PREFIX.length()), value);
+            }
+        });
+        // Passed as command line arguments, which take precedence over application.properties
+        return new SpringApplicationBuilder(TcgweatherapiApplication.class)
+                .run(properties.entrySet().stream()
+                        .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                        .toArray(String[]::new));
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Options look like --name=value, not " + arg);
+            }
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                options.put(arg.substring(2), "true");
+            } else {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+        return options;
+    }
+
+    private static Duration duration(Map<String, String> options, String name, String defaultValue) {
+        return DurationStyle.detectAndParse(options.getOrDefault(name, defaultValue));
+    }
+}
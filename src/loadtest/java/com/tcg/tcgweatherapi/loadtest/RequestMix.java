@@ -0,0 +1,176 @@
+package com.tcg.tcgweatherapi.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates the requests of a load test against the {@code /api/v1/users} endpoints.
+ *
+ * <p>Each request is a single weather lookup, a batch lookup or a history page, picked by weight. ZIP codes and
+ * users are drawn from Zipf distributions, so a few hot ZIP codes and users account for most of the traffic, as
+ * in production, and caches see a realistic hit ratio.</p>
+ */
+public class RequestMix {
+
+    /**
+     * The kinds of request issued.
+     */
+    public enum Kind {
+        WEATHER,
+        BATCH,
+        HISTORY
+    }
+
+    private static final int BATCH_SIZE = 5;
+
+    private final URI baseUri;
+    private final Duration timeout;
+    private final Kind[] kinds;
+    private final double[] kindWeights;
+    private final String[] zipCodes;
+    private final double[] zipCodeCdf;
+    private final String[] emails;
+    private final double[] emailCdf;
+
+    /**
+     * Creates a mix.
+     *
+     * @param baseUri  the URI the application serves on, e.g. {@code http://127.0.0.1:8080}.
+     * @param timeout  the timeout of each request.
+     * @param weights  the relative weight of each kind of request.
+     * @param zipCodes the number of distinct ZIP codes requested.
+     * @param users    the number of distinct users.
+     * @param skew     the Zipf exponent of ZIP code and user popularity; 0 draws them uniformly.
+     */
+    public RequestMix(URI baseUri, Duration timeout, Map<Kind, Integer> weights, int zipCodes, int users,
+                      double skew) {
+        this.baseUri = baseUri;
+        this.timeout = timeout;
+        this.kinds = weights.keySet().toArray(new Kind[0]);
+        this.kindWeights = cdf(weights.values().stream().mapToDouble(Integer::doubleValue).toArray());
+        this.zipCodes = new String[zipCodes];
+        for (int i = 0; i < zipCodes; i++) {
+            // Spread over the valid range; 000xx codes do not exist upstream
+            this.zipCodes[i] = String.format(Locale.ROOT, "%05d", 1_000 + (int) ((long) i * 98_000 / zipCodes));
+        }
+        this.zipCodeCdf = zipfCdf(zipCodes, skew);
+        this.emails = new String[users];
+        for (int i = 0; i < users; i++) {
+            this.emails[i] = email(i);
+        }
+        this.emailCdf = zipfCdf(users, skew);
+    }
+
+    /**
+     * Parses request weights like {@code weather=90,batch=5,history=5}.
+     *
+     * @param spec the weights.
+     * @return the weight of each kind of request named.
+     */
+    public static Map<Kind, Integer> parseWeights(String spec) {
+        Map<Kind, Integer> weights = new LinkedHashMap<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.split("=", 2);
+            weights.put(Kind.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    /**
+     * Returns the email address of the i-th user.
+     *
+     * @param i the index of the user.
+     * @return the email address.
+     */
+    public static String email(int i) {
+        return "load-user-" + i + "@example.com";
+    }
+
+    /**
+     * Builds the registration request of a user.
+     *
+     * @param email the email address of the user.
+     * @return the request.
+     */
+    public HttpRequest registration(String email) {
+        return HttpRequest.newBuilder(baseUri.resolve("/api/v1/users/register"))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"" + email + "\"}"))
+                .build();
+    }
+
+    /**
+     * Draws the kind of the next request.
+     *
+     * @param random the source of randomness, owned by the calling thread.
+     * @return the kind.
+     */
+    public Kind nextKind(Random random) {
+        return kinds[draw(kindWeights, random)];
+    }
+
+    /**
+     * Builds the next request of the given kind.
+     *
+     * @param kind   the kind of request.
+     * @param random the source of randomness, owned by the calling thread.
+     * @return the request.
+     */
+    public HttpRequest next(Kind kind, Random random) {
+        String email = emails[draw(emailCdf, random)];
+        return switch (kind) {
+            case WEATHER -> get("/api/v1/users/weather?email=" + email + "&zipCode=" + zipCode(random));
+            case HISTORY -> get("/api/v1/users/history?email=" + email + "&limit=20");
+            case BATCH -> {
+                StringBuilder body = new StringBuilder("{\"email\":\"").append(email).append("\",\"zipCodes\":[");
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    body.append(i > 0 ? ",\"" : "\"").append(zipCode(random)).append('"');
+                }
+                yield HttpRequest.newBuilder(baseUri.resolve("/api/v1/users/weather/batch"))
+                        .timeout(timeout)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body.append("]}").toString()))
+                        .build();
+            }
+        };
+    }
+
+    private String zipCode(Random random) {
+        return zipCodes[draw(zipCodeCdf, random)];
+    }
+
+    private HttpRequest get(String pathAndQuery) {
+        return HttpRequest.newBuilder(baseUri.resolve(pathAndQuery)).timeout(timeout).GET().build();
+    }
+
+    private static int draw(double[] cdf, Random random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cdf.length - 1);
+    }
+
+    private static double[] zipfCdf(int size, double skew) {
+        double[] weights = new double[size];
+        for (int i = 0; i < size; i++) {
+            weights[i] = 1 / Math.pow(i + 1, skew);
+        }
+        return cdf(weights);
+    }
+
+    private static double[] cdf(double[] weights) {
+        double total = Arrays.stream(weights).sum();
+        double[] cdf = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cdf[i] = sum / total;
+        }
+        return cdf;
+    }
+}
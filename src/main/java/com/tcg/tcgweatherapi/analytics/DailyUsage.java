@@ -0,0 +1,12 @@
+package com.tcg.tcgweatherapi.analytics;
+
+import java.time.LocalDate;
+
+/**
+ * The number of weather requests a user made on one day.
+ *
+ * @param date     the day.
+ * @param requests the number of requests.
+ */
+public record DailyUsage(LocalDate date, long requests) {
+}
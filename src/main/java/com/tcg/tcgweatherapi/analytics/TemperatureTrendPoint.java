@@ -0,0 +1,19 @@
+package com.tcg.tcgweatherapi.analytics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+
+/**
+ * The temperatures served for a ZIP code during one hour.
+ *
+ * @param hour               the start of the hour.
+ * @param requests           the number of requests during the hour.
+ * @param averageTemperature the average temperature served, or {@code null} if none was known.
+ * @param minTemperature     the lowest temperature served, or {@code null} if none was known.
+ * @param maxTemperature     the highest temperature served, or {@code null} if none was known.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TemperatureTrendPoint(LocalDateTime hour, long requests, Double averageTemperature,
+                                    Double minTemperature, Double maxTemperature) {
+}
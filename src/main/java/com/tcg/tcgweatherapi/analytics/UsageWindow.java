@@ -0,0 +1,305 @@
+package com.tcg.tcgweatherapi.analytics;
+
+import com.tcg.tcgweatherapi.entity.RequestStatistics;
+import com.tcg.tcgweatherapi.entity.WeatherRequestRollup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hourly request statistics of the most recent hours, kept in memory.
+ *
+ * <p>The window is a ring with one bucket per hour. A bucket is replaced once its slot is needed for an hour one
+ * window later, so memory is bounded by the window size and the traffic within it, and old hours never have to
+ * be swept. Every bucket keeps its statistics per (ZIP code, user) cell, from which it is checkpointed, and
+ * per ZIP code and per user, from which queries are answered. Queries therefore read one entry per hour in
+ * their range; top ZIP codes additionally read every ZIP code requested within the range.</p>
+ */
+public class UsageWindow {
+
+    private static final int HOURS_PER_DAY = 24;
+
+    private final int hours;
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    /**
+     * Creates an empty window.
+     *
+     * @param hours the number of hours kept.
+     */
+    public UsageWindow(int hours) {
+        this.hours = Math.max(1, hours);
+        this.buckets = new AtomicReferenceArray<>(this.hours);
+    }
+
+    /**
+     * Returns the number of hours kept.
+     *
+     * @return the window size in hours.
+     */
+    public int hours() {
+        return hours;
+    }
+
+    /**
+     * Counts one request.
+     *
+     * @param timestamp   when the request was made.
+     * @param zipCode     the canonical ZIP code.
+     * @param email       the email address of the user.
+     * @param temperature the temperature served, or {@code null} if it is unknown.
+     */
+    public void record(LocalDateTime timestamp, String zipCode, String email, Double temperature) {
+        Bucket bucket = bucket(WeatherRequestRollup.bucketOf(timestamp), true);
+        if (bucket != null) {
+            bucket.add(zipCode, email, temperature);
+        }
+    }
+
+    /**
+     * Adds checkpointed statistics back to the window. Restored statistics are not checkpointed again until more
+     * requests are counted in their hour.
+     *
+     * @param bucketStart the start of the hour.
+     * @param zipCode     the canonical ZIP code.
+     * @param email       the email address of the user.
+     * @param statistics  the checkpointed statistics.
+     */
+    public void restore(LocalDateTime bucketStart, String zipCode, String email, RequestStatistics statistics) {
+        Bucket bucket = bucket(WeatherRequestRollup.bucketOf(bucketStart), true);
+        if (bucket != null) {
+            bucket.restore(zipCode, email, statistics);
+        }
+    }
+
+    /**
+     * Returns the ZIP codes requested most often during the last hours.
+     *
+     * @param now   the current time.
+     * @param hours the number of hours to include, up to the window size.
+     * @param limit the maximum number of ZIP codes returned.
+     * @return the ZIP codes, most requested first.
+     */
+    public List<ZipCodeUsage> topZipCodes(LocalDateTime now, int hours, int limit) {
+        Map<String, Long> requests = new HashMap<>();
+        LocalDateTime hour = WeatherRequestRollup.bucketOf(now);
+        for (int i = 0; i < clamp(hours); i++, hour = hour.minusHours(1)) {
+            Bucket bucket = bucket(hour, false);
+            if (bucket != null) {
+                bucket.byZipCode.forEach((zipCode, statistics) ->
+                        requests.merge(zipCode, requestCount(statistics), Long::sum));
+            }
+        }
+        return requests.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(entry -> new ZipCodeUsage(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    /**
+     * Returns the number of requests a user made on each of the last days.
+     *
+     * @param email the email address of the user.
+     * @param now   the current time.
+     * @param days  the number of days to include, today being the last; limited to the days the window covers.
+     * @return one entry per day, oldest first.
+     */
+    public List<DailyUsage> dailyRequests(String email, LocalDateTime now, int days) {
+        int included = Math.max(1, Math.min(days, (hours + HOURS_PER_DAY - 1) / HOURS_PER_DAY));
+        List<DailyUsage> usage = new ArrayList<>(included);
+        LocalDate today = now.toLocalDate();
+        for (LocalDate date = today.minusDays(included - 1); !date.isAfter(today); date = date.plusDays(1)) {
+            long requests = 0;
+            LocalDateTime hour = date.atStartOfDay();
+            for (int i = 0; i < HOURS_PER_DAY; i++, hour = hour.plusHours(1)) {
+                Bucket bucket = bucket(hour, false);
+                LongAdder count = bucket != null ? bucket.byEmail.get(email) : null;
+                if (count != null) {
+                    requests += count.sum();
+                }
+            }
+            usage.add(new DailyUsage(date, requests));
+        }
+        return usage;
+    }
+
+    /**
+     * Returns the temperatures served for a ZIP code during each of the last hours it was requested.
+     *
+     * @param zipCode the canonical ZIP code.
+     * @param now     the current time.
+     * @param hours   the number of hours to include, up to the window size.
+     * @return one point per hour with requests, oldest first.
+     */
+    public List<TemperatureTrendPoint> temperatureTrend(String zipCode, LocalDateTime now, int hours) {
+        List<TemperatureTrendPoint> trend = new ArrayList<>();
+        LocalDateTime current = WeatherRequestRollup.bucketOf(now);
+        for (LocalDateTime hour = current.minusHours(clamp(hours) - 1); !hour.isAfter(current);
+             hour = hour.plusHours(1)) {
+            Bucket bucket = bucket(hour, false);
+            RequestStatistics statistics = bucket != null ? bucket.byZipCode.get(zipCode) : null;
+            if (statistics != null) {
+                synchronized (statistics) {
+                    trend.add(new TemperatureTrendPoint(hour, statistics.getRequestCount(),
+                            statistics.getAverageTemperature(), statistics.getMinTemperature(),
+                            statistics.getMaxTemperature()));
+                }
+            }
+        }
+        return trend;
+    }
+
+    /**
+     * Returns the buckets that counted requests since they were last returned, and marks them as clean.
+     *
+     * @return the changed buckets.
+     */
+    public List<Bucket> takeChanged() {
+        List<Bucket> changed = new ArrayList<>();
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null && bucket.dirty) {
+                bucket.dirty = false;
+                changed.add(bucket);
+            }
+        }
+        return changed;
+    }
+
+    private Bucket bucket(LocalDateTime start, boolean create) {
+        long ordinal = start.toEpochSecond(ZoneOffset.UTC) / 3600;
+        int index = (int) Math.floorMod(ordinal, (long) hours);
+        while (true) {
+            Bucket current = buckets.get(index);
+            if (current != null && current.ordinal == ordinal) {
+                return current;
+            }
+            if (!create || current != null && current.ordinal > ordinal) {
+                // Not counted yet, or so old that its slot already holds a later hour
+                return null;
+            }
+            Bucket created = new Bucket(start, ordinal);
+            if (buckets.compareAndSet(index, current, created)) {
+                return created;
+            }
+        }
+    }
+
+    private int clamp(int hours) {
+        return Math.max(1, Math.min(hours, this.hours));
+    }
+
+    private static long requestCount(RequestStatistics statistics) {
+        synchronized (statistics) {
+            return statistics.getRequestCount();
+        }
+    }
+
+    /**
+     * The statistics of one hour.
+     */
+    public static final class Bucket {
+
+        private final LocalDateTime start;
+        private final long ordinal;
+        private final Map<Cell, RequestStatistics> cells = new ConcurrentHashMap<>();
+        private final Map<String, RequestStatistics> byZipCode = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> byEmail = new ConcurrentHashMap<>();
+        private volatile boolean dirty;
+
+        private Bucket(LocalDateTime start, long ordinal) {
+            this.start = start;
+            this.ordinal = ordinal;
+        }
+
+        /**
+         * Returns the start of the hour.
+         *
+         * @return the start of the hour.
+         */
+        public LocalDateTime start() {
+            return start;
+        }
+
+        /**
+         * Marks the bucket as changed again, so it is returned by the next {@link UsageWindow#takeChanged()}.
+         */
+        public void markChanged() {
+            dirty = true;
+        }
+
+        /**
+         * Passes a copy of the statistics of every (ZIP code, user) cell to the consumer.
+         *
+         * @param consumer the consumer of the cells.
+         */
+        public void forEachCell(CellConsumer consumer) {
+            cells.forEach((cell, statistics) -> {
+                RequestStatistics copy = new RequestStatistics();
+                synchronized (statistics) {
+                    copy.add(statistics);
+                }
+                consumer.accept(cell.zipCode(), cell.email(), copy);
+            });
+        }
+
+        private void add(String zipCode, String email, Double temperature) {
+            RequestStatistics cell = cells.computeIfAbsent(new Cell(zipCode, email), key -> new RequestStatistics());
+            synchronized (cell) {
+                cell.add(temperature);
+            }
+            RequestStatistics zipCodeStatistics = byZipCode.computeIfAbsent(zipCode, key -> new RequestStatistics());
+            synchronized (zipCodeStatistics) {
+                zipCodeStatistics.add(temperature);
+            }
+            if (email != null) {
+                byEmail.computeIfAbsent(email, key -> new LongAdder()).increment();
+            }
+            dirty = true;
+        }
+
+        private void restore(String zipCode, String email, RequestStatistics statistics) {
+            RequestStatistics cell = cells.computeIfAbsent(new Cell(zipCode, email), key -> new RequestStatistics());
+            synchronized (cell) {
+                cell.add(statistics);
+            }
+            RequestStatistics zipCodeStatistics = byZipCode.computeIfAbsent(zipCode, key -> new RequestStatistics());
+            synchronized (zipCodeStatistics) {
+                zipCodeStatistics.add(statistics);
+            }
+            if (email != null) {
+                byEmail.computeIfAbsent(email, key -> new LongAdder()).add(statistics.getRequestCount());
+            }
+        }
+    }
+
+    /**
+     * Receives the statistics of one (ZIP code, user) cell of a bucket.
+     */
+    @FunctionalInterface
+    public interface CellConsumer {
+
+        /**
+         * Receives one cell.
+         *
+         * @param zipCode    the canonical ZIP code.
+         * @param email      the email address of the user.
+         * @param statistics a copy of the cell's statistics.
+         */
+        void accept(String zipCode, String email, RequestStatistics statistics);
+    }
+
+    private record Cell(String zipCode, String email) {
+    }
+}
@@ -0,0 +1,222 @@
+package com.tcg.tcgweatherapi.analytics;
+
+import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import com.tcg.tcgweatherapi.entity.WeatherUsageCheckpoint;
+import com.tcg.tcgweatherapi.model.WeatherObservation;
+import com.tcg.tcgweatherapi.repository.WeatherUsageCheckpointRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Usage and weather analytics over the recent weather requests, answered from memory.
+ *
+ * <p>Every saved weather request is counted in a {@link UsageWindow} covering the last
+ * {@code weather.analytics.window}, so queries never read {@link WeatherRequest} rows. Every
+ * {@code weather.analytics.checkpoint-interval} and on shutdown, the hours that changed are written to
+ * {@link WeatherUsageCheckpoint} rows, which are read back on startup. Checkpoints hold this instance's counts,
+ * so every instance should checkpoint to its own database.</p>
+ */
+@Component
+public class WeatherAnalytics implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WeatherAnalytics.class);
+
+    private final WeatherUsageCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final UsageWindow window;
+    private final Clock clock;
+
+    /**
+     * Creates the analytics from application properties.
+     *
+     * @param checkpointRepository the repository the analytics are checkpointed to.
+     * @param transactionTemplate  the template running each checkpoint in its own transaction.
+     * @param enabled              whether requests are counted at all.
+     * @param window               how far back the analytics reach; rounded down to whole hours.
+     */
+    @Autowired
+    public WeatherAnalytics(WeatherUsageCheckpointRepository checkpointRepository,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${weather.analytics.enabled:true}") boolean enabled,
+                            @Value("${weather.analytics.window:7d}") Duration window) {
+        this(checkpointRepository, transactionTemplate, enabled, window, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates the analytics.
+     *
+     * @param checkpointRepository the repository the analytics are checkpointed to.
+     * @param transactionTemplate  the template running each checkpoint in its own transaction.
+     * @param enabled              whether requests are counted at all.
+     * @param window               how far back the analytics reach; rounded down to whole hours.
+     * @param clock                the clock queries are relative to.
+     */
+    public WeatherAnalytics(WeatherUsageCheckpointRepository checkpointRepository,
+                            TransactionTemplate transactionTemplate, boolean enabled, Duration window, Clock clock) {
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.window = new UsageWindow((int) window.toHours());
+        this.clock = clock;
+    }
+
+    /**
+     * Counts a saved weather request. Its snapshot is not read, as the audit writer may be persisting the request
+     * on another thread.
+     *
+     * @param weatherRequest the weather request.
+     * @param observation    the conditions the request was served, or {@code null} if they are unknown.
+     */
+    public void record(WeatherRequest weatherRequest, WeatherObservation observation) {
+        if (!enabled) {
+            return;
+        }
+        window.record(weatherRequest.getTimestamp(), weatherRequest.getZipCode(), weatherRequest.getEmail(),
+                observation != null ? observation.temperature() : null);
+    }
+
+    /**
+     * Returns the ZIP codes requested most often during the last hours.
+     *
+     * @param hours the number of hours to include, up to the window size.
+     * @param limit the maximum number of ZIP codes returned.
+     * @return the ZIP codes, most requested first.
+     */
+    public List<ZipCodeUsage> topZipCodes(int hours, int limit) {
+        return window.topZipCodes(LocalDateTime.now(clock), hours, limit);
+    }
+
+    /**
+     * Returns the number of requests a user made on each of the last days.
+     *
+     * @param email the email address of the user.
+     * @param days  the number of days to include, today being the last; limited to the days the window covers.
+     * @return one entry per day, oldest first.
+     */
+    public List<DailyUsage> dailyRequests(String email, int days) {
+        return window.dailyRequests(email, LocalDateTime.now(clock), days);
+    }
+
+    /**
+     * Returns the temperatures served for a ZIP code during each of the last hours it was requested.
+     *
+     * @param zipCode the canonical ZIP code.
+     * @param hours   the number of hours to include, up to the window size.
+     * @return one point per hour with requests, oldest first.
+     */
+    public List<TemperatureTrendPoint> temperatureTrend(String zipCode, int hours) {
+        return window.temperatureTrend(zipCode, LocalDateTime.now(clock), hours);
+    }
+
+    /**
+     * Restores the checkpointed hours that are still within the window.
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            restore();
+        }
+    }
+
+    /**
+     * Adds the checkpointed hours that are still within the window to the in-memory analytics.
+     *
+     * @return the number of checkpoint rows restored.
+     */
+    public int restore() {
+        List<WeatherUsageCheckpoint> checkpoints =
+                checkpointRepository.findByBucketStartGreaterThanEqual(windowStart());
+        for (WeatherUsageCheckpoint checkpoint : checkpoints) {
+            window.restore(checkpoint.getBucketStart(), checkpoint.getZipCode(), checkpoint.getEmail(),
+                    checkpoint.getStatistics());
+        }
+        if (!checkpoints.isEmpty()) {
+            log.info("Restored {} weather usage checkpoints", checkpoints.size());
+        }
+        return checkpoints.size();
+    }
+
+    @Scheduled(fixedDelayString = "${weather.analytics.checkpoint-interval:1m}",
+            initialDelayString = "${weather.analytics.checkpoint-interval:1m}")
+    void scheduledCheckpoint() {
+        if (enabled) {
+            checkpoint();
+        }
+    }
+
+    @PreDestroy
+    void checkpointOnShutdown() {
+        if (enabled) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Writes the hours that changed since the last checkpoint, and deletes checkpoints older than the window.
+     * If writing fails, the hours are written with the next checkpoint instead.
+     *
+     * @return the number of hours written.
+     */
+    public int checkpoint() {
+        List<UsageWindow.Bucket> changed = window.takeChanged();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!changed.isEmpty()) {
+                    write(changed);
+                }
+                checkpointRepository.deleteOlderThan(windowStart());
+            });
+        } catch (RuntimeException e) {
+            changed.forEach(UsageWindow.Bucket::markChanged);
+            log.warn("Failed to checkpoint weather usage analytics", e);
+            return 0;
+        }
+        return changed.size();
+    }
+
+    private void write(List<UsageWindow.Bucket> changed) {
+        Map<CheckpointKey, WeatherUsageCheckpoint> checkpoints = new HashMap<>();
+        for (WeatherUsageCheckpoint checkpoint : checkpointRepository.findByBucketStartIn(
+                changed.stream().map(UsageWindow.Bucket::start).toList())) {
+            checkpoints.put(new CheckpointKey(checkpoint.getBucketStart(), checkpoint.getZipCode(),
+                    checkpoint.getEmail()), checkpoint);
+        }
+        for (UsageWindow.Bucket bucket : changed) {
+            bucket.forEachCell((zipCode, email, statistics) -> {
+                WeatherUsageCheckpoint checkpoint = checkpoints.computeIfAbsent(
+                        new CheckpointKey(bucket.start(), zipCode, email), key -> {
+                            WeatherUsageCheckpoint created = new WeatherUsageCheckpoint();
+                            created.setBucketStart(key.bucketStart());
+                            created.setZipCode(key.zipCode());
+                            created.setEmail(key.email());
+                            return created;
+                        });
+                checkpoint.setStatistics(statistics);
+            });
+        }
+        checkpointRepository.saveAll(checkpoints.values());
+    }
+
+    private LocalDateTime windowStart() {
+        return LocalDateTime.now(clock).minusHours(window.hours());
+    }
+
+    private record CheckpointKey(LocalDateTime bucketStart, String zipCode, String email) {
+    }
+}
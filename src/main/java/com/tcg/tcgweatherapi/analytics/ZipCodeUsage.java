@@ -0,0 +1,10 @@
+package com.tcg.tcgweatherapi.analytics;
+
+/**
+ * The number of weather requests for a ZIP code within a time range.
+ *
+ * @param zipCode  the canonical ZIP code.
+ * @param requests the number of requests.
+ */
+public record ZipCodeUsage(String zipCode, long requests) {
+}
@@ -0,0 +1,22 @@
+package com.tcg.tcgweatherapi.audit;
+
+/**
+ * What {@link WeatherRequestWriter} does with an audit row when its queue is full.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Persist the row synchronously in the submitting thread, slowing producers down to the writer's pace.
+     */
+    CALLER_RUNS,
+
+    /**
+     * Wait up to the configured offer timeout for queue space, then drop the row.
+     */
+    BLOCK,
+
+    /**
+     * Drop the row immediately.
+     */
+    DROP
+}
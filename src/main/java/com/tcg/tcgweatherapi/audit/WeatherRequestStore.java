@@ -0,0 +1,123 @@
+package com.tcg.tcgweatherapi.audit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import com.tcg.tcgweatherapi.entity.WeatherSnapshot;
+import com.tcg.tcgweatherapi.repository.WeatherRequestRepository;
+import com.tcg.tcgweatherapi.repository.WeatherSnapshotRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Persists {@link WeatherRequest} rows together with their de-duplicated {@link WeatherSnapshot} payloads.
+ *
+ * <p>Each distinct snapshot in a batch is inserted only if no row with the same content hash exists yet.
+ * Ids of recently written snapshots are remembered, so the usual case of many requests for the same ZIP code
+ * within one upstream refresh window needs no lookup at all. Requests whose snapshot already exists are
+ * pointed at it by reference, without loading the payload.</p>
+ *
+ * <p>The submitted entities are never persisted themselves: request threads may still read them while a batch
+ * is written. Each attempt persists fresh copies instead, so a retried batch starts without ids or proxies left
+ * over from the attempt that failed.</p>
+ */
+@Component
+public class WeatherRequestStore {
+
+    private static final int KNOWN_SNAPSHOT_IDS = 10_000;
+
+    private final WeatherRequestRepository weatherRequestRepository;
+    private final WeatherSnapshotRepository weatherSnapshotRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<String, Boolean> knownSnapshotIds =
+            Caffeine.newBuilder().maximumSize(KNOWN_SNAPSHOT_IDS).build();
+
+    public WeatherRequestStore(WeatherRequestRepository weatherRequestRepository,
+                               WeatherSnapshotRepository weatherSnapshotRepository,
+                               TransactionTemplate transactionTemplate) {
+        this.weatherRequestRepository = weatherRequestRepository;
+        this.weatherSnapshotRepository = weatherSnapshotRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Persists a single request.
+     *
+     * @param weatherRequest the request to persist; it must reference a snapshot. It is left unchanged.
+     */
+    public void save(WeatherRequest weatherRequest) {
+        saveAll(List.of(weatherRequest));
+    }
+
+    /**
+     * Persists a batch of requests and any of their snapshots not stored yet, in one transaction.
+     *
+     * <p>If a concurrent writer inserts one of the same snapshots first, the batch is retried once with
+     * the existing snapshot ids looked up again.</p>
+     *
+     * @param weatherRequests the requests to persist; each must reference a snapshot. They are left unchanged, so
+     *                        their ids stay unassigned.
+     */
+    public void saveAll(List<WeatherRequest> weatherRequests) {
+        Map<String, WeatherSnapshot> snapshots = new LinkedHashMap<>();
+        for (WeatherRequest weatherRequest : weatherRequests) {
+            snapshots.putIfAbsent(weatherRequest.getSnapshot().getId(), weatherRequest.getSnapshot());
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(weatherRequests, snapshots));
+        } catch (DataIntegrityViolationException e) {
+            knownSnapshotIds.invalidateAll(snapshots.keySet());
+            transactionTemplate.executeWithoutResult(status -> write(weatherRequests, snapshots));
+        }
+        snapshots.keySet().forEach(id -> knownSnapshotIds.put(id, Boolean.TRUE));
+    }
+
+    private void write(List<WeatherRequest> weatherRequests, Map<String, WeatherSnapshot> snapshots) {
+        Set<String> unknownIds = snapshots.keySet().stream()
+                .filter(id -> knownSnapshotIds.getIfPresent(id) == null)
+                .collect(Collectors.toSet());
+        if (!unknownIds.isEmpty()) {
+            unknownIds.removeAll(weatherSnapshotRepository.findExistingIds(unknownIds));
+        }
+
+        Map<String, WeatherSnapshot> attached = new HashMap<>();
+        List<WeatherSnapshot> newSnapshots = new ArrayList<>(unknownIds.size());
+        for (String id : unknownIds) {
+            WeatherSnapshot snapshot = copyOf(snapshots.get(id));
+            attached.put(id, snapshot);
+            newSnapshots.add(snapshot);
+        }
+        weatherSnapshotRepository.saveAll(newSnapshots);
+
+        List<WeatherRequest> rows = new ArrayList<>(weatherRequests.size());
+        for (WeatherRequest weatherRequest : weatherRequests) {
+            WeatherRequest row = new WeatherRequest();
+            row.setEmail(weatherRequest.getEmail());
+            row.setZipCode(weatherRequest.getZipCode());
+            row.setTimestamp(weatherRequest.getTimestamp());
+            row.setSnapshot(attached.computeIfAbsent(weatherRequest.getSnapshot().getId(),
+                    weatherSnapshotRepository::getReferenceById));
+            rows.add(row);
+        }
+        weatherRequestRepository.saveAll(rows);
+    }
+
+    private static WeatherSnapshot copyOf(WeatherSnapshot snapshot) {
+        WeatherSnapshot copy = new WeatherSnapshot();
+        copy.setId(snapshot.getId());
+        copy.setZipCode(snapshot.getZipCode());
+        copy.setPayload(snapshot.getPayload());
+        copy.setObservation(snapshot.getObservation());
+        copy.setCreatedAt(snapshot.getCreatedAt());
+        return copy;
+    }
+}
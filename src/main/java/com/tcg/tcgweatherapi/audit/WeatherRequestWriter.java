@@ -0,0 +1,312 @@
+package com.tcg.tcgweatherapi.audit;
+
+import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind pipeline for {@link WeatherRequest} audit rows.
+ *
+ * <p>Request threads hand rows to a bounded queue and return immediately. A single background writer
+ * drains the queue and persists rows in batches of up to {@code weather.audit.batch-size}, flushing a partial
+ * batch once {@code weather.audit.flush-interval} has passed. Together with pooled sequence ids on
+ * {@link WeatherRequest}, each batch becomes a handful of batched JDBC inserts, written through
+ * {@link WeatherRequestStore} so shared payloads are stored once.</p>
+ *
+ * <p>When the queue is full the configured {@link OverflowPolicy} applies. On shutdown the writer stops after
+ * the web server has stopped accepting requests and drains every queued row before the application context
+ * closes. Rows submitted while the writer is not running are persisted synchronously.</p>
+ *
+ * <p>The queue depth, the rows written and dropped, and the time each batch insert takes are published as
+ * {@code weather.audit.*} metrics.</p>
+ */
+@Component
+public class WeatherRequestWriter implements SmartLifecycle, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(WeatherRequestWriter.class);
+
+    /**
+     * Stops after the embedded web server, so no request can enqueue rows once the final drain started.
+     */
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final WeatherRequestStore weatherRequestStore;
+    private final boolean enabled;
+    private final BlockingQueue<WeatherRequest> queue;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final OverflowPolicy overflowPolicy;
+    private final Duration offerTimeout;
+    private final Duration shutdownTimeout;
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile Timer batchWriteTimer;
+
+    private final ReentrantLock lifecycleLock = new ReentrantLock();
+    private volatile boolean running;
+    private Thread writerThread;
+
+    /**
+     * Creates the writer from application properties.
+     *
+     * @param weatherRequestStore      the store rows are persisted through.
+     * @param enabled                  whether rows are written behind; if false every row is saved synchronously.
+     * @param queueCapacity            the maximum number of queued rows.
+     * @param batchSize                the maximum number of rows persisted per batch.
+     * @param flushInterval            how long a partial batch may wait for more rows.
+     * @param overflowPolicy           what to do with a row when the queue is full.
+     * @param offerTimeout             how long {@link OverflowPolicy#BLOCK} waits for queue space.
+     * @param shutdownTimeout          how long shutdown waits for the queue to drain.
+     */
+    public WeatherRequestWriter(WeatherRequestStore weatherRequestStore,
+                                @Value("${weather.audit.write-behind.enabled:true}") boolean enabled,
+                                @Value("${weather.audit.queue-capacity:10000}") int queueCapacity,
+                                @Value("${weather.audit.batch-size:50}") int batchSize,
+                                @Value("${weather.audit.flush-interval:200ms}") Duration flushInterval,
+                                @Value("${weather.audit.overflow-policy:caller-runs}") OverflowPolicy overflowPolicy,
+                                @Value("${weather.audit.offer-timeout:50ms}") Duration offerTimeout,
+                                @Value("${weather.audit.shutdown-timeout:10s}") Duration shutdownTimeout) {
+        this.weatherRequestStore = weatherRequestStore;
+        this.enabled = enabled;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.overflowPolicy = overflowPolicy;
+        this.offerTimeout = offerTimeout;
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    /**
+     * Queues a row for persistence.
+     *
+     * @param weatherRequest the row to persist.
+     */
+    public void submit(WeatherRequest weatherRequest) {
+        if (!running) {
+            weatherRequestStore.save(weatherRequest);
+            return;
+        }
+        if (queue.offer(weatherRequest)) {
+            if (!running && queue.remove(weatherRequest)) {
+                // The writer stopped while this row was being queued and may already have finished draining.
+                weatherRequestStore.save(weatherRequest);
+            }
+            return;
+        }
+        switch (overflowPolicy) {
+            case CALLER_RUNS -> weatherRequestStore.save(weatherRequest);
+            case BLOCK -> {
+                if (!offerWithTimeout(weatherRequest)) {
+                    drop();
+                }
+            }
+            case DROP -> drop();
+        }
+    }
+
+    /**
+     * Queues several rows for persistence. Rows submitted while the writer is not running are persisted
+     * synchronously in a single batch.
+     *
+     * @param weatherRequests the rows to persist.
+     */
+    public void submitAll(List<WeatherRequest> weatherRequests) {
+        if (weatherRequests.isEmpty()) {
+            return;
+        }
+        if (!running) {
+            weatherRequestStore.saveAll(weatherRequests);
+            return;
+        }
+        weatherRequests.forEach(this::submit);
+    }
+
+    /**
+     * Returns the number of rows waiting to be written.
+     *
+     * @return the current queue depth.
+     */
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the number of rows written by the background writer.
+     *
+     * @return the cumulative number of rows written in batches.
+     */
+    public long writtenCount() {
+        return written.sum();
+    }
+
+    /**
+     * Returns the number of rows dropped because the queue was full.
+     *
+     * @return the cumulative number of dropped rows.
+     */
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("weather.audit.queue.depth", queue, BlockingQueue::size)
+                .description("Weather audit rows waiting to be written")
+                .register(registry);
+        Gauge.builder("weather.audit.queue.remaining", queue, BlockingQueue::remainingCapacity)
+                .description("Weather audit rows that can be queued before the overflow policy applies")
+                .register(registry);
+        FunctionCounter.builder("weather.audit.rows", written, LongAdder::sum)
+                .description("Weather audit rows written in background batches")
+                .tag("result", "written")
+                .register(registry);
+        FunctionCounter.builder("weather.audit.rows", dropped, LongAdder::sum)
+                .description("Weather audit rows dropped")
+                .tag("result", "dropped")
+                .register(registry);
+        batchWriteTimer = Timer.builder("weather.audit.batch.write")
+                .description("Time to insert one batch of weather audit rows")
+                .register(registry);
+    }
+
+    @Override
+    public void start() {
+        lifecycleLock.lock();
+        try {
+            if (!enabled || running) {
+                return;
+            }
+            running = true;
+            writerThread = new Thread(this::drainLoop, "weather-audit-writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    @Override
+    public void stop() {
+        // A lock rather than a monitor, so waiting for the drain does not pin a virtual thread.
+        lifecycleLock.lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+            try {
+                writerThread.join(shutdownTimeout.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (writerThread.isAlive()) {
+                log.warn("Weather audit writer did not drain within {}; {} rows left unwritten",
+                        shutdownTimeout, queue.size());
+            }
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void drainLoop() {
+        List<WeatherRequest> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                collectBatch(batch);
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                    batch.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+            do {
+                writeBatch(batch);
+                batch.clear();
+            } while (queue.drainTo(batch, batchSize) > 0);
+        }
+    }
+
+    private void collectBatch(List<WeatherRequest> batch) throws InterruptedException {
+        WeatherRequest first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushInterval.toNanos();
+        while (batch.size() < batchSize) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !running) {
+                return;
+            }
+            WeatherRequest next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void writeBatch(List<WeatherRequest> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            weatherRequestStore.saveAll(batch);
+            written.add(batch.size());
+        } catch (RuntimeException e) {
+            dropped.add(batch.size());
+            log.error("Failed to write {} weather audit rows", batch.size(), e);
+        }
+        Timer timer = batchWriteTimer;
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private boolean offerWithTimeout(WeatherRequest weatherRequest) {
+        try {
+            return queue.offer(weatherRequest, offerTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void drop() {
+        dropped.increment();
+        log.debug("Weather audit queue is full; dropping a row");
+    }
+}
@@ -0,0 +1,142 @@
+package com.tcg.tcgweatherapi.cache;
+
+import com.tcg.tcgweatherapi.model.WeatherReport;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The contents of {@link WeatherCache} and {@link UserStatusCache} at one point in time, and their compact binary
+ * file format.
+ *
+ * <p>The file holds a magic number, a format version and the time it was written, followed by the weather
+ * entries (ZIP code, fetch time, payload) and the user status entries (email, user id, active flag, expiry time),
+ * each preceded by its count. Strings are length-prefixed UTF-8 and times are epoch milliseconds. Only the raw
+ * payload of a weather entry is written; it is parsed again when the snapshot is read. Files are written to a
+ * temporary sibling and moved into place, so a crash never leaves a partial snapshot behind, and read through a
+ * memory map.</p>
+ *
+ * <p>The user status entries carry email addresses, so a snapshot file holds personal data outside the database
+ * and must be protected like it: on file systems with POSIX permissions it is readable and writable by its owner
+ * only, and it should live on storage no other process or user can reach.</p>
+ *
+ * @param writtenAt    the instant the snapshot was taken.
+ * @param weather      the weather entries by canonical ZIP code.
+ * @param userStatuses the user status entries.
+ */
+public record CacheSnapshot(Instant writtenAt, Map<String, CachedWeather> weather,
+                            List<ExpiringUserStatus> userStatuses) {
+
+    private static final int MAGIC = 0x54434743; // "TCGC"
+    private static final int VERSION = 1;
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rw-------");
+
+    /**
+     * Writes the snapshot to a file, replacing any earlier snapshot atomically. Where the file system supports
+     * POSIX permissions, the file is readable and writable by its owner only.
+     *
+     * @param path the snapshot file.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeTo(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            if (Files.getFileAttributeView(temporary, PosixFileAttributeView.class) != null) {
+                Files.setPosixFilePermissions(temporary, OWNER_ONLY);
+            }
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(writtenAt.toEpochMilli());
+                out.writeInt(weather.size());
+                for (Map.Entry<String, CachedWeather> entry : weather.entrySet()) {
+                    writeString(out, entry.getKey());
+                    out.writeLong(entry.getValue().fetchedAt().toEpochMilli());
+                    writeString(out, entry.getValue().report().payload());
+                }
+                out.writeInt(userStatuses.size());
+                for (ExpiringUserStatus entry : userStatuses) {
+                    writeString(out, entry.email());
+                    out.writeLong(entry.status().id());
+                    out.writeBoolean(entry.status().active());
+                    out.writeLong(entry.expiresAt().toEpochMilli());
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Reads a snapshot from a file.
+     *
+     * @param path the snapshot file.
+     * @return the snapshot.
+     * @throws IOException if the file cannot be read or is not a complete snapshot.
+     */
+    public static CacheSnapshot readFrom(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a cache snapshot of version " + VERSION + ": " + path);
+            }
+            Instant writtenAt = Instant.ofEpochMilli(buffer.getLong());
+            int weatherCount = buffer.getInt();
+            Map<String, CachedWeather> weather = new HashMap<>(Math.max(16, weatherCount * 4 / 3 + 1));
+            for (int i = 0; i < weatherCount; i++) {
+                String zipCode = readString(buffer);
+                Instant fetchedAt = Instant.ofEpochMilli(buffer.getLong());
+                weather.put(zipCode, new CachedWeather(WeatherReport.parse(readString(buffer)), fetchedAt));
+            }
+            int userCount = buffer.getInt();
+            List<ExpiringUserStatus> userStatuses = new ArrayList<>(userCount);
+            for (int i = 0; i < userCount; i++) {
+                String email = readString(buffer);
+                UserStatus status = new UserStatus(buffer.getLong(), buffer.get() != 0);
+                userStatuses.add(new ExpiringUserStatus(email, status, Instant.ofEpochMilli(buffer.getLong())));
+            }
+            return new CacheSnapshot(writtenAt, weather, userStatuses);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Truncated or corrupt cache snapshot: " + path, e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
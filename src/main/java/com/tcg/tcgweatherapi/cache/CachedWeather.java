@@ -0,0 +1,26 @@
+package com.tcg.tcgweatherapi.cache;
+
+import com.tcg.tcgweatherapi.model.WeatherReport;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A weather report held by {@link WeatherCache} together with the instant it was fetched upstream.
+ *
+ * @param report    the parsed upstream weather payload.
+ * @param fetchedAt the instant the payload was received from the upstream API.
+ */
+public record CachedWeather(WeatherReport report, Instant fetchedAt) {
+
+    /**
+     * Returns whether this entry is younger than the given time-to-live at {@code now}.
+     *
+     * @param now the current instant.
+     * @param ttl the freshness window.
+     * @return true if the entry is still fresh; false if it is stale.
+     */
+    public boolean isFresh(Instant now, Duration ttl) {
+        return fetchedAt.plus(ttl).isAfter(now);
+    }
+}
@@ -0,0 +1,13 @@
+package com.tcg.tcgweatherapi.cache;
+
+import java.time.Instant;
+
+/**
+ * A {@link UserStatusCache} entry as written to and read from a cache snapshot.
+ *
+ * @param email     the user's email address.
+ * @param status    the user's status.
+ * @param expiresAt the instant the entry expires from the cache.
+ */
+public record ExpiringUserStatus(String email, UserStatus status, Instant expiresAt) {
+}
@@ -0,0 +1,127 @@
+package com.tcg.tcgweatherapi.cache;
+
+import com.tcg.tcgweatherapi.exceptions.WeatherUnavailableException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key into a single in-flight call.
+ *
+ * <p>The first caller for a key becomes the leader and runs the loader in its own thread. Callers that
+ * arrive while the leader is running wait for the leader's result, or its failure, for at most the given
+ * timeout. Once the leader finishes the key is released and the next caller starts a new load.</p>
+ *
+ * @param <K> the key type.
+ * @param <V> the loaded value type.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Runs {@code loader} for {@code key} unless a load for the same key is already in flight, in which case
+     * the result of that load is awaited instead.
+     *
+     * @param key     the key to load.
+     * @param loader  loads the value; only invoked by the leader.
+     * @param timeout how long a non-leading caller waits for the leader's result.
+     * @return the loaded value.
+     * @throws WeatherUnavailableException if the leader's result is not available within {@code timeout}.
+     */
+    public V execute(K key, Supplier<V> loader, Duration timeout) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing, timeout);
+        }
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #execute(Object, Supplier, Duration)}: starts {@code loader} for {@code key}
+     * unless a load for the same key is already in flight, and returns a future of that load's result.
+     * Blocking and non-blocking callers of the same key share one load.
+     *
+     * @param key    the key to load.
+     * @param loader starts loading the value; only invoked by the leader.
+     * @return a future completed with the loaded value or the load's failure.
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<? extends CompletionStage<V>> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return existing.copy();
+        }
+        try {
+            loader.get().whenComplete((value, failure) -> {
+                inFlight.remove(key, flight);
+                if (failure != null) {
+                    flight.completeExceptionally(failure);
+                } else {
+                    flight.complete(value);
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+        }
+        return flight.copy();
+    }
+
+    /**
+     * Returns the number of loads currently in flight.
+     *
+     * @return the number of distinct keys being loaded.
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Returns how many callers have joined an existing load instead of starting their own.
+     *
+     * @return the cumulative number of coalesced calls.
+     */
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    private V await(CompletableFuture<V> flight, Duration timeout) {
+        try {
+            return flight.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new WeatherUnavailableException("Timed out waiting for an in-flight weather request");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WeatherUnavailableException("Interrupted while waiting for an in-flight weather request");
+        }
+    }
+}
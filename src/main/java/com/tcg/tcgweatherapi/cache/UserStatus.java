@@ -0,0 +1,10 @@
+package com.tcg.tcgweatherapi.cache;
+
+/**
+ * The part of a user that request handling needs, held by {@link UserStatusCache}.
+ *
+ * @param id     the user's id.
+ * @param active whether the user's account is active.
+ */
+public record UserStatus(Long id, boolean active) {
+}
@@ -0,0 +1,176 @@
+package com.tcg.tcgweatherapi.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of user status, keyed by email address.
+ *
+ * <p>Entries are written through by every status change made on this instance. They expire after
+ * {@code user.cache.ttl}, which bounds how long a change made elsewhere can go unnoticed; entries restored from a
+ * cache snapshot keep their original expiry. At most
+ * {@code user.cache.max-size} users are held. Hit, miss and eviction counts are published as
+ * {@code cache.*} metrics tagged {@code cache=user-status}.</p>
+ */
+@Component
+public class UserStatusCache implements MeterBinder {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Cache<String, UserStatus> cache;
+    private final Policy.VarExpiration<String, UserStatus> expiration;
+    // Bumped by every write, per stripe of emails, so a load that raced with a write does not fill the cache
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    /**
+     * Creates the cache from application properties.
+     *
+     * @param maxSize the maximum number of users held.
+     * @param ttl     how long an entry is served before it is read from the database again.
+     */
+    public UserStatusCache(@Value("${user.cache.max-size:100000}") long maxSize,
+                           @Value("${user.cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(expireAfterWrite(ttl))
+                .recordStats()
+                .build();
+        this.expiration = cache.policy().expireVariably().orElseThrow();
+    }
+
+    /**
+     * Returns the status of a user, loading it on a miss. Unknown users are not cached.
+     *
+     * <p>The loader runs outside the cache's internal locks, so a blocking database read does not pin a virtual
+     * thread to its carrier. Concurrent misses for the same email may each load. A loaded status only fills the
+     * cache if no status was cached in the meantime and no {@link #put} or {@link #evict} for the email happened
+     * while it loaded, so a read of the row from before a change never overwrites the change's write-through.</p>
+     *
+     * @param email  the user's email address.
+     * @param loader reads the status from the database, returning {@code null} for an unknown user.
+     * @return the status, or {@code null} if the user does not exist.
+     */
+    public UserStatus get(String email, Function<String, UserStatus> loader) {
+        UserStatus status = cache.getIfPresent(email);
+        if (status != null) {
+            return status;
+        }
+        int stripe = stripe(email);
+        long generation = generations.get(stripe);
+        UserStatus loaded = loader.apply(email);
+        if (loaded != null) {
+            // A write that bumped the generation before the fill is undone here; one after it overwrites the fill
+            if (cache.asMap().putIfAbsent(email, loaded) == null && generations.get(stripe) != generation) {
+                cache.asMap().remove(email, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Stores the current status of a user.
+     *
+     * @param email  the user's email address.
+     * @param status the user's status.
+     */
+    public void put(String email, UserStatus status) {
+        generations.incrementAndGet(stripe(email));
+        cache.put(email, status);
+    }
+
+    /**
+     * Drops the cached status of a user.
+     *
+     * @param email the user's email address.
+     */
+    public void evict(String email) {
+        generations.incrementAndGet(stripe(email));
+        cache.invalidate(email);
+    }
+
+    /**
+     * Returns every cached status together with the instant it expires, for writing a cache snapshot.
+     *
+     * @return the cached entries.
+     */
+    public List<ExpiringUserStatus> entries() {
+        Instant now = Instant.now();
+        List<ExpiringUserStatus> entries = new ArrayList<>((int) cache.estimatedSize());
+        cache.asMap().forEach((email, status) -> expiration.getExpiresAfter(email)
+                .ifPresent(remaining -> entries.add(new ExpiringUserStatus(email, status, now.plus(remaining)))));
+        return entries;
+    }
+
+    /**
+     * Restores a status read from a cache snapshot, expiring when it originally would have. Entries that have
+     * expired already, or for which a status was cached in the meantime, are skipped.
+     *
+     * @param entry the snapshot entry.
+     * @return {@code true} if the entry was restored.
+     */
+    public boolean restore(ExpiringUserStatus entry) {
+        Duration remaining = Duration.between(Instant.now(), entry.expiresAt());
+        if (remaining.isNegative() || remaining.isZero()) {
+            return false;
+        }
+        return expiration.putIfAbsent(entry.email(), entry.status(), remaining) == null;
+    }
+
+    /**
+     * Returns the hit, miss and eviction counts recorded so far.
+     *
+     * @return a snapshot of the cache statistics.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "user-status");
+    }
+
+    private static int stripe(String email) {
+        int hash = email.hashCode();
+        return (hash ^ hash >>> 16) & GENERATION_STRIPES - 1;
+    }
+
+    /**
+     * Expires entries a fixed time after they were written, like {@code expireAfterWrite}, while still allowing
+     * a restored entry to be given its remaining lifetime.
+     */
+    private static Expiry<String, UserStatus> expireAfterWrite(Duration ttl) {
+        long ttlNanos = ttl.toNanos();
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String email, UserStatus status, long currentTime) {
+                return ttlNanos;
+            }
+
+            @Override
+            public long expireAfterUpdate(String email, UserStatus status, long currentTime, long currentDuration) {
+                return ttlNanos;
+            }
+
+            @Override
+            public long expireAfterRead(String email, UserStatus status, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+}
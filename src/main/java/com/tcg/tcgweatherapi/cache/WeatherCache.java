@@ -0,0 +1,358 @@
+package com.tcg.tcgweatherapi.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.tcg.tcgweatherapi.exceptions.WeatherUnavailableException;
+import com.tcg.tcgweatherapi.jfr.WeatherCacheLookupEvent;
+import com.tcg.tcgweatherapi.model.WeatherReport;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of parsed upstream weather payloads, keyed by canonical ZIP code.
+ *
+ * <p>An entry is fresh for {@code weather.cache.ttl}. Once it turns stale it is still served for a further
+ * {@code weather.cache.stale-while-revalidate} window, while a single background refresh replaces it.
+ * Entries older than both windows are expired and the next caller loads synchronously. The number of
+ * entries is bounded by {@code weather.cache.max-size} using Caffeine's W-TinyLFU eviction policy, which
+ * keeps the frequently requested ZIP codes resident.</p>
+ *
+ * <p>Hits, misses and evictions are published as the {@code weather} cache metrics. Stale entries served count
+ * as hits and are counted again in {@code weather.cache.stale}.</p>
+ */
+@Component
+public class WeatherCache implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(WeatherCache.class);
+
+    private final Cache<String, CachedWeather> cache;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final LongAdder staleServed = new LongAdder();
+    private final Duration ttl;
+    private final Duration maxAge;
+    private final Executor refreshExecutor;
+    private final Clock clock;
+
+    /**
+     * Creates the cache from application properties, refreshing stale entries on a small dedicated pool.
+     *
+     * @param maxSize     the maximum number of ZIP codes held.
+     * @param ttl         how long an entry is served as fresh.
+     * @param staleWindow how long past its TTL an entry may still be served while it is refreshed.
+     */
+    @Autowired
+    public WeatherCache(@Value("${weather.cache.max-size:10000}") long maxSize,
+                        @Value("${weather.cache.ttl:10m}") Duration ttl,
+                        @Value("${weather.cache.stale-while-revalidate:5m}") Duration staleWindow) {
+        this(maxSize, ttl, staleWindow, newRefreshExecutor(), Clock.systemUTC());
+    }
+
+    /**
+     * Creates the cache with an explicit refresh executor and clock.
+     *
+     * @param maxSize         the maximum number of ZIP codes held.
+     * @param ttl             how long an entry is served as fresh.
+     * @param staleWindow     how long past its TTL an entry may still be served while it is refreshed.
+     * @param refreshExecutor the executor running background refreshes.
+     * @param clock           the clock used to age entries.
+     */
+    public WeatherCache(long maxSize, Duration ttl, Duration staleWindow, Executor refreshExecutor, Clock clock) {
+        this.ttl = ttl;
+        this.maxAge = ttl.plus(staleWindow);
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(maxAge)
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the weather report for a ZIP code, loading it on a miss.
+     *
+     * <p>Fresh entries are returned directly. Stale entries are returned directly as well, and a background
+     * refresh through {@code loader} is scheduled unless one is already running for the same ZIP code.
+     * On a miss the report is loaded in the calling thread and cached.</p>
+     *
+     * @param zipCode the canonical ZIP code.
+     * @param loader  fetches the payload for a ZIP code from the upstream API.
+     * @return the cached or freshly loaded report.
+     */
+    public WeatherReport get(String zipCode, Function<String, WeatherReport> loader) {
+        return get(zipCode, loader, loader);
+    }
+
+    /**
+     * Returns the weather report for a ZIP code, loading it on a miss, with a separate loader for background refreshes.
+     *
+     * @param zipCode   the canonical ZIP code.
+     * @param loader    fetches the payload for a ZIP code from the upstream API on a miss.
+     * @param refresher fetches the payload for a ZIP code from the upstream API to refresh a stale entry.
+     * @return the cached or freshly loaded report.
+     * @see #get(String, Function)
+     */
+    public WeatherReport get(String zipCode, Function<String, WeatherReport> loader,
+                             Function<String, WeatherReport> refresher) {
+        WeatherReport report = lookup(zipCode, key -> scheduleRefresh(key, refresher));
+        if (report != null) {
+            return report;
+        }
+        report = loader.apply(zipCode);
+        put(zipCode, report);
+        return report;
+    }
+
+    /**
+     * Non-blocking variant of {@link #get(String, Function)}. Cached reports are returned as completed futures;
+     * on a miss the returned future completes once {@code loader}'s future does.
+     *
+     * @param zipCode the canonical ZIP code.
+     * @param loader  starts fetching the payload for a ZIP code from the upstream API.
+     * @return a future of the cached or freshly loaded report.
+     */
+    public CompletableFuture<WeatherReport> getAsync(String zipCode,
+                                                     Function<String, CompletableFuture<WeatherReport>> loader) {
+        return getAsync(zipCode, loader, loader);
+    }
+
+    /**
+     * Non-blocking variant of {@link #get(String, Function, Function)}.
+     *
+     * @param zipCode   the canonical ZIP code.
+     * @param loader    starts fetching the payload for a ZIP code from the upstream API on a miss.
+     * @param refresher starts fetching the payload for a ZIP code from the upstream API to refresh a stale entry.
+     * @return a future of the cached or freshly loaded report.
+     */
+    public CompletableFuture<WeatherReport> getAsync(String zipCode,
+                                                     Function<String, CompletableFuture<WeatherReport>> loader,
+                                                     Function<String, CompletableFuture<WeatherReport>> refresher) {
+        WeatherReport report = lookup(zipCode, key -> scheduleRefreshAsync(key, refresher));
+        if (report != null) {
+            return CompletableFuture.completedFuture(report);
+        }
+        return loader.apply(zipCode).thenApply(loaded -> {
+            put(zipCode, loaded);
+            return loaded;
+        });
+    }
+
+    /**
+     * Stores a freshly fetched report for a ZIP code.
+     *
+     * @param zipCode the canonical ZIP code.
+     * @param report  the report parsed from the payload received from the upstream API.
+     */
+    public void put(String zipCode, WeatherReport report) {
+        if (report != null) {
+            cache.put(zipCode, new CachedWeather(report, clock.instant()));
+        }
+    }
+
+    /**
+     * Returns every entry that may still be served, for writing a cache snapshot.
+     *
+     * @return the servable entries by canonical ZIP code.
+     */
+    public Map<String, CachedWeather> entries() {
+        Instant now = clock.instant();
+        Map<String, CachedWeather> entries = new HashMap<>();
+        cache.asMap().forEach((zipCode, entry) -> {
+            if (entry.fetchedAt().plus(maxAge).isAfter(now)) {
+                entries.put(zipCode, entry);
+            }
+        });
+        return entries;
+    }
+
+    /**
+     * Restores an entry read from a cache snapshot, keeping the instant it was originally fetched. Entries that
+     * can no longer be served, or that are older than the entry already cached, are skipped.
+     *
+     * @param zipCode the canonical ZIP code.
+     * @param entry   the snapshot entry.
+     * @return {@code true} if the entry was restored.
+     */
+    public boolean restore(String zipCode, CachedWeather entry) {
+        if (entry.report() == null || !entry.fetchedAt().plus(maxAge).isAfter(clock.instant())) {
+            return false;
+        }
+        return cache.asMap().merge(zipCode, entry,
+                (cached, restored) -> restored.fetchedAt().isAfter(cached.fetchedAt()) ? restored : cached) == entry;
+    }
+
+    /**
+     * Returns whether a ZIP code's entry will still be fresh after a lead time.
+     *
+     * @param zipCode the canonical ZIP code.
+     * @param lead    how far ahead to look.
+     * @return {@code true} if the entry exists and does not turn stale within {@code lead}.
+     */
+    public boolean isFresh(String zipCode, Duration lead) {
+        CachedWeather entry = cache.getIfPresent(zipCode);
+        return entry != null && entry.isFresh(clock.instant().plus(lead), ttl);
+    }
+
+    /**
+     * Returns how long after it was fetched an entry may still be served, fresh or stale.
+     *
+     * @return the TTL plus the stale-while-revalidate window.
+     */
+    public Duration maxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Returns the number of cached ZIP codes.
+     *
+     * @return the approximate number of entries.
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Returns the hit, miss and eviction counts recorded so far.
+     *
+     * @return a snapshot of the cache statistics.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "weather");
+        FunctionCounter.builder("weather.cache.stale", staleServed, LongAdder::sum)
+                .description("Stale weather entries served while they were refreshed")
+                .register(registry);
+        Gauge.builder("weather.cache.refreshes", refreshing, Set::size)
+                .description("Background refreshes of stale weather entries in flight")
+                .register(registry);
+        if (refreshExecutor instanceof ExecutorService executorService) {
+            new ExecutorServiceMetrics(executorService, "weather-cache-refresh", List.of()).bindTo(registry);
+        }
+    }
+
+    /**
+     * Returns the report of an entry that may still be served, triggering {@code refresh} if it is stale.
+     *
+     * @return the report, or {@code null} if there is no servable entry.
+     */
+    private WeatherReport lookup(String zipCode, Consumer<String> refresh) {
+        WeatherCacheLookupEvent event = WeatherCacheLookupEvent.start(zipCode);
+        Instant now = clock.instant();
+        CachedWeather entry = cache.getIfPresent(zipCode);
+        if (entry == null || !entry.fetchedAt().plus(maxAge).isAfter(now)) {
+            event.complete(WeatherCacheLookupEvent.MISS);
+            return null;
+        }
+        if (!entry.isFresh(now, ttl)) {
+            staleServed.increment();
+            refresh.accept(zipCode);
+            event.complete(WeatherCacheLookupEvent.STALE);
+        } else {
+            event.complete(WeatherCacheLookupEvent.HIT);
+        }
+        return entry.report();
+    }
+
+    private void scheduleRefresh(String zipCode, Function<String, WeatherReport> loader) {
+        if (!refreshing.add(zipCode)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    put(zipCode, loader.apply(zipCode));
+                } catch (RuntimeException e) {
+                    logRefreshFailure(zipCode, e);
+                } finally {
+                    refreshing.remove(zipCode);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Keep serving the stale entry; a later request will try again.
+            refreshing.remove(zipCode);
+        }
+    }
+
+    private void scheduleRefreshAsync(String zipCode, Function<String, CompletableFuture<WeatherReport>> loader) {
+        if (!refreshing.add(zipCode)) {
+            return;
+        }
+        CompletableFuture<WeatherReport> refresh;
+        try {
+            refresh = loader.apply(zipCode);
+        } catch (RuntimeException e) {
+            refresh = CompletableFuture.failedFuture(e);
+        }
+        refresh.whenComplete((report, failure) -> {
+            if (failure != null) {
+                logRefreshFailure(zipCode, failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause() : failure);
+            } else {
+                put(zipCode, report);
+            }
+            refreshing.remove(zipCode);
+        });
+    }
+
+    private static void logRefreshFailure(String zipCode, Throwable failure) {
+        if (failure instanceof WeatherUnavailableException) {
+            // Expected while the upstream API is unavailable or its quota is spent; the stale entry is kept.
+            log.debug("Background refresh of weather for ZIP {} skipped: {}", zipCode, failure.getMessage());
+        } else {
+            log.warn("Background refresh of weather for ZIP {} failed: {}", zipCode, failure.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (refreshExecutor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    private static ExecutorService newRefreshExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(1_000), runnable -> {
+            Thread thread = new Thread(runnable, "weather-cache-refresh-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,131 @@
+package com.tcg.tcgweatherapi.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks which ZIP codes are requested most often right now.
+ *
+ * <p>Request counts are kept in a count-min sketch of fixed size, so tracking costs the same memory however
+ * many distinct ZIP codes are requested; an estimate may overcount but never undercounts. Every
+ * {@code weather.prefetch.decay-interval} all counts are halved, so the hot set follows shifting traffic.
+ * ZIP codes requested at least {@code weather.prefetch.min-requests} times are kept as candidates, of which the
+ * {@code weather.prefetch.hot-set-size} most requested form the hot set.</p>
+ */
+@Component
+public class ZipCodePopularity {
+
+    private static final int DEPTH = 4;
+    private static final long[] SEEDS = {0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L,
+            0xD6E8FEB86659FD93L};
+
+    private final AtomicLongArray counters;
+    private final int widthMask;
+    private final int hotSetSize;
+    private final long minRequests;
+    private final Set<String> candidates = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock pruneLock = new ReentrantLock();
+
+    /**
+     * Creates the tracker from application properties.
+     *
+     * @param width       the number of counters per sketch row; rounded up to a power of two.
+     * @param hotSetSize  the maximum number of ZIP codes in the hot set.
+     * @param minRequests the number of recent requests that makes a ZIP code a hot set candidate.
+     */
+    @Autowired
+    public ZipCodePopularity(@Value("${weather.prefetch.sketch-width:4096}") int width,
+                             @Value("${weather.prefetch.hot-set-size:100}") int hotSetSize,
+                             @Value("${weather.prefetch.min-requests:3}") long minRequests) {
+        int roundedWidth = Integer.highestOneBit(Math.max(2, width) - 1) << 1;
+        this.counters = new AtomicLongArray(DEPTH * roundedWidth);
+        this.widthMask = roundedWidth - 1;
+        this.hotSetSize = hotSetSize;
+        this.minRequests = Math.max(1, minRequests);
+    }
+
+    /**
+     * Counts one request for a ZIP code.
+     *
+     * @param zipCode the canonical ZIP code.
+     */
+    public void record(String zipCode) {
+        int hash = zipCode.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, hash)));
+        }
+        if (estimate >= minRequests && candidates.add(zipCode) && candidates.size() > 2 * hotSetSize) {
+            prune();
+        }
+    }
+
+    /**
+     * Returns the estimated number of recent requests for a ZIP code.
+     *
+     * @param zipCode the canonical ZIP code.
+     * @return the estimate, never lower than the actual decayed count.
+     */
+    public long estimate(String zipCode) {
+        int hash = zipCode.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, hash)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Returns the currently hot ZIP codes, most requested first.
+     *
+     * @return at most {@code weather.prefetch.hot-set-size} ZIP codes.
+     */
+    public List<String> hotSet() {
+        return candidates.stream()
+                .filter(zipCode -> estimate(zipCode) >= minRequests)
+                .sorted(Comparator.comparingLong(this::estimate).reversed())
+                .limit(hotSetSize)
+                .toList();
+    }
+
+    /**
+     * Halves every count and drops candidates that are no longer requested often enough.
+     */
+    @Scheduled(fixedRateString = "${weather.prefetch.decay-interval:5m}",
+            initialDelayString = "${weather.prefetch.decay-interval:5m}")
+    public void decay() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, count -> count >>> 1);
+        }
+        candidates.removeIf(zipCode -> estimate(zipCode) < minRequests);
+    }
+
+    /**
+     * Shrinks the candidates back to the hot set once they have grown to twice its size. Skipped if another
+     * thread is already pruning, so recording never waits.
+     */
+    private void prune() {
+        if (!pruneLock.tryLock()) {
+            return;
+        }
+        try {
+            candidates.retainAll(Set.copyOf(hotSet()));
+        } finally {
+            pruneLock.unlock();
+        }
+    }
+
+    private int index(int row, int hash) {
+        long mixed = (hash ^ (hash >>> 16)) * SEEDS[row];
+        return row * (widthMask + 1) + ((int) (mixed >>> 32) & widthMask);
+    }
+}
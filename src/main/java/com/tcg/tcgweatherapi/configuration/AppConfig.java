@@ -1,14 +1,126 @@
 package com.tcg.tcgweatherapi.configuration;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.netty.channel.ChannelOption;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
+@EnableScheduling
 public class AppConfig {
 
+    /**
+     * Connection pool for the upstream weather API, so requests reuse kept-alive TCP/TLS connections
+     * instead of opening a new one per call.
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager weatherApiConnectionManager(
+            @Value("${weather.api.pool.max-total:200}") int maxTotal,
+            @Value("${weather.api.pool.max-per-route:50}") int maxPerRoute,
+            @Value("${weather.api.pool.time-to-live:5m}") Duration timeToLive,
+            @Value("${weather.api.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${weather.api.read-timeout:5s}") Duration readTimeout) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setTimeToLive(TimeValue.of(timeToLive))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+    }
+
+    /**
+     * HTTP client for the upstream weather API. Content compression is left enabled, so requests carry
+     * {@code Accept-Encoding: gzip, deflate} and compressed responses are decoded transparently.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient weatherApiHttpClient(
+            PoolingHttpClientConnectionManager weatherApiConnectionManager,
+            @Value("${weather.api.response-timeout:5s}") Duration responseTimeout,
+            @Value("${weather.api.pool.connection-request-timeout:1s}") Duration connectionRequestTimeout,
+            @Value("${weather.api.pool.keep-alive:30s}") Duration keepAlive,
+            @Value("${weather.api.pool.idle-eviction:30s}") Duration idleEviction) {
+        return HttpClients.custom()
+                .setConnectionManager(weatherApiConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(connectionRequestTimeout))
+                        .setResponseTimeout(Timeout.of(responseTimeout))
+                        .setConnectionKeepAlive(TimeValue.of(keepAlive))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleEviction))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient weatherApiHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(weatherApiHttpClient));
+    }
+
+    /**
+     * Publishes leased, available and pending connection counts of the weather API pool.
+     */
+    @Bean
+    public MeterBinder weatherApiConnectionPoolMetrics(PoolingHttpClientConnectionManager weatherApiConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(weatherApiConnectionManager, "weather-api");
+    }
+
+    /**
+     * Connection pool for non-blocking calls to the upstream weather API, sized and aged like the blocking one.
+     * Reactor Netty pools connections per remote address, so the per-route limit applies.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider weatherApiReactiveConnectionProvider(
+            @Value("${weather.api.pool.max-per-route:50}") int maxPerRoute,
+            @Value("${weather.api.pool.connection-request-timeout:1s}") Duration connectionRequestTimeout,
+            @Value("${weather.api.pool.keep-alive:30s}") Duration keepAlive,
+            @Value("${weather.api.pool.idle-eviction:30s}") Duration idleEviction,
+            @Value("${weather.api.pool.time-to-live:5m}") Duration timeToLive) {
+        return ConnectionProvider.builder("weather-api")
+                .maxConnections(maxPerRoute)
+                .pendingAcquireTimeout(connectionRequestTimeout)
+                .maxIdleTime(keepAlive)
+                .maxLifeTime(timeToLive)
+                .evictInBackground(idleEviction)
+                .build();
+    }
+
+    /**
+     * Non-blocking HTTP client for the upstream weather API. Requests in flight wait on Netty event loop
+     * threads instead of holding a servlet thread each. Responses may be gzip-compressed.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public WebClient weatherApiWebClient(
+            WebClient.Builder builder,
+            ConnectionProvider weatherApiReactiveConnectionProvider,
+            @Value("${weather.api.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${weather.api.response-timeout:5s}") Duration responseTimeout) {
+        HttpClient httpClient = HttpClient.create(weatherApiReactiveConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(responseTimeout)
+                .compress(true);
+        return builder.clientConnector(new ReactorClientHttpConnector(httpClient)).build();
     }
 }
@@ -0,0 +1,99 @@
+package com.tcg.tcgweatherapi.controller;
+
+import com.tcg.tcgweatherapi.analytics.DailyUsage;
+import com.tcg.tcgweatherapi.analytics.TemperatureTrendPoint;
+import com.tcg.tcgweatherapi.analytics.WeatherAnalytics;
+import com.tcg.tcgweatherapi.analytics.ZipCodeUsage;
+import com.tcg.tcgweatherapi.validator.ZipCodeValidator;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/analytics")
+@Tag(name = "Analytics API", description = "APIs for usage and weather analytics over recent weather requests")
+public class AnalyticsController {
+
+    private static final int MAX_TOP_ZIP_CODES = 100;
+
+    private final WeatherAnalytics weatherAnalytics;
+
+    public AnalyticsController(WeatherAnalytics weatherAnalytics) {
+        this.weatherAnalytics = weatherAnalytics;
+    }
+
+    /**
+     * Retrieves the zip codes requested most often during the last hours.
+     *
+     * @param hours the number of hours to include
+     * @param limit the maximum number of zip codes to return
+     * @return the zip codes and their request counts, most requested first
+     */
+    @Operation(
+            summary = "Get the most requested zip codes",
+            description = "Retrieves the zip codes requested most often during the last hours, up to the analytics window.",
+            responses = @ApiResponse(responseCode = "200", description = "Top zip codes retrieved successfully")
+    )
+    @GetMapping("/top-zip-codes")
+    public ResponseEntity<List<ZipCodeUsage>> getTopZipCodes(
+            @Parameter(description = "The number of hours to include") @RequestParam(defaultValue = "24") int hours,
+            @Parameter(description = "The maximum number of zip codes to return (1-" + MAX_TOP_ZIP_CODES + ")")
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(weatherAnalytics.topZipCodes(hours,
+                Math.max(1, Math.min(limit, MAX_TOP_ZIP_CODES))));
+    }
+
+    /**
+     * Retrieves the number of weather requests a user made on each of the last days.
+     *
+     * @param email the user's email
+     * @param days  the number of days to include, today being the last
+     * @return the request count of each day, oldest first
+     */
+    @Operation(
+            summary = "Get a user's requests per day",
+            description = "Retrieves the number of weather requests a user made on each of the last days, "
+                    + "up to the analytics window.",
+            responses = @ApiResponse(responseCode = "200", description = "Requests per day retrieved successfully")
+    )
+    @GetMapping("/requests-per-day")
+    public ResponseEntity<List<DailyUsage>> getRequestsPerDay(
+            @Parameter(description = "The user's email address") @RequestParam String email,
+            @Parameter(description = "The number of days to include") @RequestParam(defaultValue = "7") int days) {
+        return ResponseEntity.ok(weatherAnalytics.dailyRequests(email, days));
+    }
+
+    /**
+     * Retrieves the temperatures served for a zip code during each of the last hours it was requested.
+     *
+     * @param zipCode the zip code
+     * @param hours   the number of hours to include
+     * @return the hourly temperature summary, oldest first
+     */
+    @Operation(
+            summary = "Get the temperature trend of a zip code",
+            description = "Retrieves the average, lowest and highest temperature served for a zip code during each "
+                    + "of the last hours it was requested, up to the analytics window.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Temperature trend retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid zip code")
+            }
+    )
+    @GetMapping("/temperature-trend")
+    public ResponseEntity<List<TemperatureTrendPoint>> getTemperatureTrend(
+            @Parameter(description = "The zip code") @RequestParam String zipCode,
+            @Parameter(description = "The number of hours to include") @RequestParam(defaultValue = "24") int hours) {
+        if (!ZipCodeValidator.isValidUSZipCode(zipCode)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(weatherAnalytics.temperatureTrend(ZipCodeValidator.canonicalize(zipCode), hours));
+    }
+}
@@ -0,0 +1,64 @@
+package com.tcg.tcgweatherapi.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the stages of a weather request as {@code weather.request.stage}, tagged with the stage.
+ *
+ * <p>The timers are registered once, so recording a stage only reads the clock and updates the timer. Percentile
+ * histograms are enabled through {@code management.metrics.distribution.percentiles-histogram}.</p>
+ */
+@Component
+public class RequestStageTimers {
+
+    /**
+     * The stages of a weather request.
+     */
+    public enum Stage {
+        USER_LOOKUP,
+        ZIP_VALIDATION,
+        WEATHER_FETCH,
+        AUDIT;
+
+        private final String tag = name().toLowerCase().replace('_', '-');
+    }
+
+    private final Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+
+    public RequestStageTimers(MeterRegistry meterRegistry) {
+        for (Stage stage : Stage.values()) {
+            timers.put(stage, Timer.builder("weather.request.stage")
+                    .description("Time spent in each stage of a weather request")
+                    .tag("stage", stage.tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Returns the start time of a stage.
+     *
+     * @return the current value of {@link System#nanoTime()}.
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a stage that started at the given time and ends now.
+     *
+     * @param stage      the stage.
+     * @param startNanos the time returned by {@link #start()} when the stage started.
+     * @return the end time, to be used as the start of the next stage.
+     */
+    public long record(Stage stage, long startNanos) {
+        long now = System.nanoTime();
+        timers.get(stage).record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+}
@@ -1,12 +1,20 @@
 package com.tcg.tcgweatherapi.controller;
 
-import com.tcg.tcgweatherapi.entity.User;
-import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import com.tcg.tcgweatherapi.cache.UserStatus;
+import com.tcg.tcgweatherapi.controller.RequestStageTimers.Stage;
 import com.tcg.tcgweatherapi.exceptions.InvalidEmailFormatException;
+import com.tcg.tcgweatherapi.model.WeatherReport;
 import com.tcg.tcgweatherapi.request.dto.UserRegistrationRequest;
+import com.tcg.tcgweatherapi.request.dto.WeatherBatchRequestDTO;
+import com.tcg.tcgweatherapi.response.dto.WeatherBatchResponseDTO;
 import com.tcg.tcgweatherapi.response.dto.WeatherResponseDTO;
+import com.tcg.tcgweatherapi.service.HistoryPage;
 import com.tcg.tcgweatherapi.service.UserService;
+import com.tcg.tcgweatherapi.service.WeatherBatchService;
+import com.tcg.tcgweatherapi.service.WeatherExportService;
+import com.tcg.tcgweatherapi.service.WeatherResult;
 import com.tcg.tcgweatherapi.service.WeatherService;
+import com.tcg.tcgweatherapi.validator.EmailValidator;
 import com.tcg.tcgweatherapi.validator.ZipCodeValidator;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,22 +22,53 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/v1/users") // API versioning added
 @Tag(name = "User API", description = "APIs for user management and weather-related operations")
 public class UserController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_HISTORY_PAGE_SIZE = 50;
+    private static final int MAX_HISTORY_PAGE_SIZE = 500;
+    private static final int EXPORT_BUFFER_SIZE = 8192;
+    private static final int MAX_BATCH_ZIP_CODES = 50;
+
     private final UserService userService;
     private final WeatherService weatherService;
+    private final WeatherExportService weatherExportService;
+    private final WeatherBatchService weatherBatchService;
+    private final RequestStageTimers stageTimers;
+    private final Executor applicationTaskExecutor;
 
-    public UserController(UserService userService, WeatherService weatherService) {
+    public UserController(UserService userService, WeatherService weatherService,
+                          WeatherExportService weatherExportService, WeatherBatchService weatherBatchService,
+                          RequestStageTimers stageTimers,
+                          @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                          Executor applicationTaskExecutor) {
         this.userService = userService;
         this.weatherService = weatherService;
+        this.weatherExportService = weatherExportService;
+        this.weatherBatchService = weatherBatchService;
+        this.stageTimers = stageTimers;
+        this.applicationTaskExecutor = applicationTaskExecutor;
     }
 
     /**
@@ -48,7 +87,7 @@ public class UserController {
     )
     @PostMapping("/register")
     public ResponseEntity<String> registerUser(@RequestBody UserRegistrationRequest request) {
-        if (!request.getEmail().contains("@")) {
+        if (!EmailValidator.isValid(request.getEmail())) {
             throw new InvalidEmailFormatException("Email is invalid");
         }
         userService.registerUser(request.getEmail());
@@ -60,7 +99,7 @@ public class UserController {
      *
      * @param email   the user's email
      * @param zipCode the zip code for weather information
-     * @return the weather details and timestamp
+     * @return a future of the weather details and timestamp
      */
     @Operation(
             summary = "Get weather information",
@@ -68,76 +107,249 @@ public class UserController {
             responses = {
                     @ApiResponse(responseCode = "200", description = "Weather details retrieved successfully"),
                     @ApiResponse(responseCode = "403", description = "User not active or not registered"),
-                    @ApiResponse(responseCode = "500", description = "Error fetching weather details")
+                    @ApiResponse(responseCode = "500", description = "Error fetching weather details"),
+                    @ApiResponse(responseCode = "503", description = "Weather API unavailable and no earlier weather details stored")
             }
     )
     @GetMapping("/weather")
-    public ResponseEntity<WeatherResponseDTO> getWeather(
+    public CompletableFuture<ResponseEntity<WeatherResponseDTO>> getWeather(
             @Parameter(description = "The user's email address") @RequestParam String email,
             @Parameter(description = "The zip code for weather information") @RequestParam String zipCode) {
 
-        User user = userService.getUserByEmail(email);
+        long stageStart = stageTimers.start();
+        UserStatus user = userService.getUserStatus(email);
+        stageStart = stageTimers.record(Stage.USER_LOOKUP, stageStart);
         if (user == null) {
             // User not found
-            WeatherResponseDTO errorResponse = new WeatherResponseDTO();
-            errorResponse.setWeatherDetails("User not found. Please register and then use the API.");
-            return ResponseEntity.badRequest().body(errorResponse);
+            WeatherResponseDTO errorResponse = WeatherResponseDTO.error("User not found. Please register and then use the API.");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(errorResponse));
         }
 
-        if (!user.isActive()) {
+        if (!user.active()) {
             // User is inactive
-            WeatherResponseDTO errorResponse = new WeatherResponseDTO();
-            errorResponse.setWeatherDetails("User is inactive. Please activate your account to use the API.");
-            return ResponseEntity.status(403).body(errorResponse);
+            WeatherResponseDTO errorResponse = WeatherResponseDTO.error("User is inactive. Please activate your account to use the API.");
+            return CompletableFuture.completedFuture(ResponseEntity.status(403).body(errorResponse));
         }
 
         // Validate the ZIP code
-        if (!ZipCodeValidator.isValidUSZipCode(zipCode)) {
-            return ResponseEntity.badRequest().body(null); // Or throw a custom exception
+        boolean validZipCode = ZipCodeValidator.isValidUSZipCode(zipCode);
+        long fetchStart = stageTimers.record(Stage.ZIP_VALIDATION, stageStart);
+        if (!validZipCode) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(null)); // Or throw a custom exception
         }
 
-        String weatherDetails = weatherService.getWeatherByZipCode(zipCode);
-        WeatherRequest weatherRequest = weatherService.saveWeatherRequest(email, zipCode, weatherDetails);
+        // The request thread is released while the weather is fetched; the response is written on completion.
+        CompletableFuture<WeatherResult> fetch = weatherService.getWeatherByZipCodeAsync(zipCode);
+        Function<WeatherResult, ResponseEntity<WeatherResponseDTO>> respond = weather -> {
+            long auditStart = stageTimers.record(Stage.WEATHER_FETCH, fetchStart);
+            // A stale fallback repeats an earlier request's weather, so it is neither audited nor counted again
+            LocalDateTime timestamp = weather.stale() ? LocalDateTime.now()
+                    : weatherService.saveWeatherRequest(email, zipCode, weather.report()).getTimestamp();
+            stageTimers.record(Stage.AUDIT, auditStart);
 
-        WeatherResponseDTO response = new WeatherResponseDTO();
-        response.setEmail(email);
-        response.setZipCode(zipCode);
-        response.setWeatherDetails(weatherDetails);
-        response.setTimestamp(weatherRequest.getTimestamp());
+            WeatherResponseDTO response = new WeatherResponseDTO(
+                    email, zipCode, weather.report().observation(), timestamp);
+            response.setWeatherDetails(weather.report().payload());
+            response.setStale(weather.stale());
 
-        return ResponseEntity.ok(response);
+            return ResponseEntity.ok(response);
+        };
+        // A pending fetch completes on a WebClient event loop thread, which must not block on the audit write
+        return fetch.isDone() ? fetch.thenApply(respond) : fetch.thenApplyAsync(respond, applicationTaskExecutor);
     }
 
     /**
-     * Retrieves the history of weather requests based on optional email and/or zip code.
+     * Retrieves weather information for up to {@value #MAX_BATCH_ZIP_CODES} zip codes for one registered user.
+     *
+     * @param request the user's email and the zip codes for weather information
+     * @return the weather details, or the error, for each distinct zip code
+     */
+    @Operation(
+            summary = "Get weather information for several zip codes",
+            description = "Retrieves weather details for a registered user for several zip codes at once. "
+                    + "The zip codes are fetched concurrently; each result carries either weather details or an error.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Weather details retrieved for each zip code"),
+                    @ApiResponse(responseCode = "400", description = "User not registered, or no or too many zip codes"),
+                    @ApiResponse(responseCode = "403", description = "User not active")
+            }
+    )
+    @PostMapping("/weather/batch")
+    public ResponseEntity<WeatherBatchResponseDTO> getWeatherBatch(@RequestBody WeatherBatchRequestDTO request) {
+        List<String> zipCodes = request.getZipCodes();
+        if (zipCodes == null || zipCodes.isEmpty() || zipCodes.size() > MAX_BATCH_ZIP_CODES) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        UserStatus user = userService.getUserStatus(request.getEmail());
+        if (user == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!user.active()) {
+            return ResponseEntity.status(403).build();
+        }
+
+        List<WeatherBatchResponseDTO.Item> results = weatherBatchService.getWeather(request.getEmail(), zipCodes)
+                .stream()
+                .map(result -> {
+                    WeatherBatchResponseDTO.Item item = new WeatherBatchResponseDTO.Item();
+                    item.setZipCode(result.zipCode());
+                    if (result.isSuccess()) {
+                        WeatherReport report = result.weather().report();
+                        item.setWeather(report.observation());
+                        if (request.isRaw()) {
+                            item.setWeatherDetails(report.payload());
+                        }
+                        item.setStale(result.weather().stale());
+                        item.setTimestamp(result.timestamp());
+                    } else {
+                        item.setError(result.error());
+                    }
+                    return item;
+                })
+                .toList();
+
+        return ResponseEntity.ok(new WeatherBatchResponseDTO(request.getEmail(), results));
+    }
+
+    /**
+     * Retrieves one page of the history of weather requests, newest first, filtered by optional email,
+     * zip code and time range. When more requests match, the cursor of the next page is returned in the
+     * {@value #NEXT_CURSOR_HEADER} response header.
      *
      * @param zipCode the zip code to filter the history (optional)
      * @param email   the user's email to filter the history (optional)
+     * @param from    the earliest request time to include, inclusive (optional)
+     * @param to      the latest request time to include, exclusive (optional)
+     * @param cursor  the cursor of the page to fetch (optional; first page if absent)
+     * @param limit   the maximum number of entries on the page
+     * @param raw     whether to include the raw upstream weather payloads
      * @return a list of weather request history
      */
     @Operation(
             summary = "Get weather request history",
-            description = "Retrieves the history of weather requests for a specific user or zip code.",
+            description = "Retrieves a page of weather requests matching all given filters, newest first. "
+                    + "Pass the value of the X-Next-Cursor response header as the cursor to fetch the next page.",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "Weather request history retrieved successfully")
+                    @ApiResponse(responseCode = "200", description = "Weather request history retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid cursor")
             }
     )
     @GetMapping("/history")
     public ResponseEntity<List<WeatherResponseDTO>> getHistory(
             @Parameter(description = "The zip code to filter the history") @RequestParam(required = false) String zipCode,
-            @Parameter(description = "The user's email to filter the history") @RequestParam(required = false) String email) {
-
-        List<WeatherRequest> history = weatherService.getHistory(zipCode, email);
-        List<WeatherResponseDTO> response = history.stream()
-                .map(request -> new WeatherResponseDTO(
-                        request.getEmail(),
-                        request.getZipCode(),
-                        request.getWeatherDetails(),
-                        request.getTimestamp()
-                ))
+            @Parameter(description = "The user's email to filter the history") @RequestParam(required = false) String email,
+            @Parameter(description = "Only include requests at or after this time (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Only include requests before this time (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "The cursor returned with the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "The maximum number of entries to return (1-" + MAX_HISTORY_PAGE_SIZE + ")")
+            @RequestParam(defaultValue = "" + DEFAULT_HISTORY_PAGE_SIZE) int limit,
+            @Parameter(description = "Also return the raw upstream weather payloads")
+            @RequestParam(defaultValue = "false") boolean raw) {
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE));
+        HistoryPage history = weatherService.getHistory(zipCode, email, from, to, cursor, pageSize, raw);
+        List<WeatherResponseDTO> response = history.items().stream()
+                .map(WeatherResponseDTO::of)
                 .toList();
 
-        return ResponseEntity.ok(response);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (history.nextCursor() != null) {
+            builder.header(NEXT_CURSOR_HEADER, history.nextCursor());
+        }
+        return builder.body(response);
+    }
+
+    /**
+     * Streams the complete history of weather requests for a user and/or zip code as newline-delimited JSON,
+     * oldest first. The response is gzip-compressed when the client accepts it.
+     *
+     * @param zipCode        the zip code to filter the history (optional if an email is given)
+     * @param email          the user's email to filter the history (optional if a zip code is given)
+     * @param from           the earliest request time to include, inclusive (optional)
+     * @param to             the latest request time to include, exclusive (optional)
+     * @param raw            whether to include the raw upstream weather payloads
+     * @param acceptEncoding the client's accepted content encodings
+     * @param response       the response the history is streamed to
+     * @return the task streaming the weather request history within the export timeout
+     */
+    @Operation(
+            summary = "Export weather request history",
+            description = "Streams every weather request matching all given filters as NDJSON, oldest first. "
+                    + "At least one of email or zip code is required.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Weather request history streamed successfully"),
+                    @ApiResponse(responseCode = "400", description = "Neither email nor zip code given"),
+                    @ApiResponse(responseCode = "503", description = "Too many exports in progress")
+            }
+    )
+    @GetMapping(value = "/history/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<ResponseEntity<Void>> exportHistory(
+            @Parameter(description = "The zip code to filter the history") @RequestParam(required = false) String zipCode,
+            @Parameter(description = "The user's email to filter the history") @RequestParam(required = false) String email,
+            @Parameter(description = "Only include requests at or after this time (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Only include requests before this time (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Also export the raw upstream weather payloads")
+            @RequestParam(defaultValue = "false") boolean raw,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) {
+
+        if (zipCode == null && email == null) {
+            return new WebAsyncTask<>(() -> ResponseEntity.badRequest().build());
+        }
+
+        boolean gzip = acceptsGzip(acceptEncoding);
+        // The export is written by the task itself, so the export timeout covers the whole stream. It runs on the
+        // bounded export executor; a rejected export is answered with 503.
+        long timeout = weatherExportService.getTimeout().toMillis();
+        return new WebAsyncTask<>(timeout, weatherExportService.getExecutor(), () -> {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"weather-history.ndjson\"");
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            OutputStream out = response.getOutputStream();
+            if (gzip) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                GZIPOutputStream compressed = new GZIPOutputStream(out, EXPORT_BUFFER_SIZE);
+                weatherExportService.exportHistory(zipCode, email, from, to, raw, compressed);
+                compressed.finish();
+            } else {
+                weatherExportService.exportHistory(zipCode, email, from, to, raw, out);
+            }
+            out.flush();
+            return null;
+        });
+    }
+
+    /**
+     * Checks whether an {@code Accept-Encoding} header accepts gzip, honouring a quality value of zero as a
+     * refusal. Only an explicit {@code gzip} coding counts.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.length() > 2 && parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        return Double.parseDouble(parameter.substring(2).trim()) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -0,0 +1,135 @@
+package com.tcg.tcgweatherapi.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stores text columns as raw deflate streams primed with a preset dictionary.
+ *
+ * <p>Upstream weather payloads are short JSON documents that share almost all of their keys and many of their
+ * values, which a per-value compressor cannot exploit on its own. Priming the compressor with a dictionary of
+ * typical payloads lets even the first bytes of a payload refer back to those shared strings.</p>
+ *
+ * <p>Every stored value starts with one byte naming the dictionary it was compressed with, so the dictionary
+ * can be retrained later without rewriting existing rows. A dictionary must never change once values have
+ * been written with its id; add a new id instead.</p>
+ */
+@Converter
+public class DeflatedTextConverter implements AttributeConverter<String, byte[]> {
+
+    /**
+     * Dictionary id of values compressed without a dictionary.
+     */
+    static final byte NO_DICTIONARY = 0;
+
+    /**
+     * Dictionary id of values compressed with {@code compression/openweathermap-v1.dict}.
+     */
+    static final byte OPENWEATHERMAP_V1 = 1;
+
+    private static final byte[] OPENWEATHERMAP_V1_DICTIONARY = loadDictionary("/compression/openweathermap-v1.dict");
+    private static final int BUFFER_SIZE = 4096;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String text) {
+        return text != null ? compress(text, OPENWEATHERMAP_V1) : null;
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] stored) {
+        return stored != null ? decompress(stored) : null;
+    }
+
+    /**
+     * Compresses text with the given dictionary.
+     *
+     * @param text         the text to compress.
+     * @param dictionaryId the dictionary to prime the compressor with.
+     * @return the dictionary id followed by the raw deflate stream.
+     */
+    static byte[] compress(String text, byte dictionaryId) {
+        byte[] input = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            byte[] dictionary = dictionary(dictionaryId);
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 4 + 16);
+            out.write(dictionaryId);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decompresses a value written by {@link #compress(String, byte)}.
+     *
+     * @param stored the dictionary id followed by the raw deflate stream.
+     * @return the text.
+     * @throws IllegalArgumentException if the value names an unknown dictionary or is corrupt.
+     */
+    static String decompress(byte[] stored) {
+        if (stored.length == 0) {
+            throw new IllegalArgumentException("Compressed value is empty");
+        }
+        Inflater inflater = new Inflater(true);
+        try {
+            byte[] dictionary = dictionary(stored[0]);
+            if (dictionary != null) {
+                inflater.setDictionary(dictionary);
+            }
+            inflater.setInput(stored, 1, stored.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(stored.length * 4);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && !inflater.finished()
+                        && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Compressed value is truncated");
+                }
+                out.write(buffer, 0, inflated);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Compressed value is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] dictionary(byte dictionaryId) {
+        return switch (dictionaryId) {
+            case NO_DICTIONARY -> null;
+            case OPENWEATHERMAP_V1 -> OPENWEATHERMAP_V1_DICTIONARY;
+            default -> throw new IllegalArgumentException("Unknown compression dictionary " + dictionaryId);
+        };
+    }
+
+    private static byte[] loadDictionary(String resource) {
+        try (InputStream in = DeflatedTextConverter.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Compression dictionary " + resource + " is missing");
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.tcg.tcgweatherapi.entity;
+
+import jakarta.persistence.Embeddable;
+import lombok.Data;
+
+/**
+ * Request count and temperature summary of a group of weather requests.
+ *
+ * <p>The temperature sum is kept rather than the average so statistics can be merged exactly. Instances are
+ * not thread-safe; callers sharing one between threads synchronize on it.</p>
+ */
+@Data
+@Embeddable
+public class RequestStatistics {
+    private long requestCount;
+    private long temperatureCount;
+    private double temperatureSum;
+    private Double minTemperature;
+    private Double maxTemperature;
+
+    /**
+     * Counts one more request.
+     *
+     * @param temperature the temperature the request received, or {@code null} if it is unknown.
+     */
+    public void add(Double temperature) {
+        requestCount++;
+        if (temperature != null) {
+            temperatureCount++;
+            temperatureSum += temperature;
+            minTemperature = minTemperature != null ? Math.min(minTemperature, temperature) : temperature;
+            maxTemperature = maxTemperature != null ? Math.max(maxTemperature, temperature) : temperature;
+        }
+    }
+
+    /**
+     * Adds the requests summarized by other statistics.
+     *
+     * @param other the statistics to add.
+     */
+    public void add(RequestStatistics other) {
+        requestCount += other.requestCount;
+        temperatureCount += other.temperatureCount;
+        temperatureSum += other.temperatureSum;
+        if (other.minTemperature != null) {
+            minTemperature = minTemperature != null ? Math.min(minTemperature, other.minTemperature)
+                    : other.minTemperature;
+        }
+        if (other.maxTemperature != null) {
+            maxTemperature = maxTemperature != null ? Math.max(maxTemperature, other.maxTemperature)
+                    : other.maxTemperature;
+        }
+    }
+
+    /**
+     * Returns the average temperature over the requests that received one.
+     *
+     * @return the average temperature, or {@code null} if no request received a temperature.
+     */
+    public Double getAverageTemperature() {
+        return temperatureCount > 0 ? temperatureSum / temperatureCount : null;
+    }
+}
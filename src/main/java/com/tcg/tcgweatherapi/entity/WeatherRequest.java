@@ -1,19 +1,49 @@
 package com.tcg.tcgweatherapi.entity;
 
+import com.tcg.tcgweatherapi.model.WeatherReport;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 @Data
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_weather_request_email_timestamp", columnList = "email, timestamp, id"),
+        @Index(name = "idx_weather_request_zip_code_timestamp", columnList = "zip_code, timestamp, id"),
+        @Index(name = "idx_weather_request_timestamp", columnList = "timestamp, id"),
+        @Index(name = "idx_weather_request_snapshot", columnList = "snapshot_id")
+})
 public class WeatherRequest {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "weather_request_seq")
+    @SequenceGenerator(name = "weather_request_seq", sequenceName = "weather_request_seq", allocationSize = 50)
     private Long id;
     private String email;
     private String zipCode;
-    @Lob // Use Large Object (LOB) for longer text
-    @Column(columnDefinition = "TEXT") // For databases supporting TEXT
-    private String weatherDetails;
+    @ManyToOne(fetch = FetchType.LAZY) // Payloads are shared between requests; see WeatherSnapshot
+    @JoinColumn(name = "snapshot_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private WeatherSnapshot snapshot;
     private LocalDateTime timestamp;
+
+    /**
+     * Returns the weather payload this request received, resolving the shared snapshot if necessary.
+     *
+     * @return the weather details, or {@code null} if the request has no snapshot.
+     */
+    public String getWeatherDetails() {
+        return snapshot != null ? snapshot.getPayload() : null;
+    }
+
+    /**
+     * Returns the weather this request received, resolving the shared snapshot if necessary.
+     *
+     * @return the weather report, or {@code null} if the request has no snapshot.
+     */
+    public WeatherReport getWeatherReport() {
+        return snapshot != null ? snapshot.toReport() : null;
+    }
 }
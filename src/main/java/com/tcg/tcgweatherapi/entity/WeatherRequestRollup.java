@@ -0,0 +1,70 @@
+package com.tcg.tcgweatherapi.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * The weather requests of one user for one ZIP code during one hour, aggregated.
+ *
+ * <p>Rollups outlive the {@link WeatherRequest} rows they summarize, so request counts and temperature ranges
+ * stay available after the rows themselves have been purged. Per-ZIP or per-user totals are the sums over the
+ * rollups of that ZIP code or user.</p>
+ */
+@Data
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_weather_request_rollup_bucket",
+        columnNames = {"bucket_start", "zip_code", "email"}),
+        indexes = {
+                @Index(name = "idx_weather_request_rollup_zip_code_bucket", columnList = "zip_code, bucket_start"),
+                @Index(name = "idx_weather_request_rollup_email_bucket", columnList = "email, bucket_start")
+        })
+public class WeatherRequestRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "weather_request_rollup_seq")
+    @SequenceGenerator(name = "weather_request_rollup_seq", sequenceName = "weather_request_rollup_seq",
+            allocationSize = 50)
+    private Long id;
+    private LocalDateTime bucketStart;
+    private String zipCode;
+    private String email;
+    @Embedded
+    private RequestStatistics statistics = new RequestStatistics();
+
+    /**
+     * Creates an empty rollup for the hour containing the given time.
+     *
+     * @param timestamp any time within the hour.
+     * @param zipCode   the canonical ZIP code.
+     * @param email     the email address of the user.
+     * @return the new, not yet persisted rollup.
+     */
+    public static WeatherRequestRollup of(LocalDateTime timestamp, String zipCode, String email) {
+        WeatherRequestRollup rollup = new WeatherRequestRollup();
+        rollup.setBucketStart(bucketOf(timestamp));
+        rollup.setZipCode(zipCode);
+        rollup.setEmail(email);
+        return rollup;
+    }
+
+    /**
+     * Returns the start of the hour a time falls into.
+     *
+     * @param timestamp the time.
+     * @return the time truncated to the hour.
+     */
+    public static LocalDateTime bucketOf(LocalDateTime timestamp) {
+        return timestamp.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    /**
+     * Counts one more request.
+     *
+     * @param temperature the temperature the request received, or {@code null} if it is unknown.
+     */
+    public void add(Double temperature) {
+        statistics.add(temperature);
+    }
+}
@@ -0,0 +1,146 @@
+package com.tcg.tcgweatherapi.entity;
+
+import com.tcg.tcgweatherapi.model.WeatherObservation;
+import com.tcg.tcgweatherapi.model.WeatherReport;
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+/**
+ * An upstream weather payload stored once per distinct (ZIP code, payload) pair.
+ *
+ * <p>The id is the SHA-256 hash of the ZIP code and payload, so every {@link WeatherRequest} that received the
+ * same payload for the same ZIP code references a single row. The conditions parsed from the payload are
+ * stored alongside it as columns, so reading them back does not parse the payload again.</p>
+ *
+ * <p>Payloads are stored compressed by {@link DeflatedTextConverter}. Payloads stored uncompressed before that
+ * are still read from their original column until {@link #compressLegacyPayload()} moves them over.</p>
+ */
+@Data
+@Entity
+@Table(indexes = @Index(name = "idx_weather_snapshot_created_at", columnList = "created_at"))
+public class WeatherSnapshot implements Persistable<String> {
+    @Id
+    @Column(length = 64)
+    private String id;
+    private String zipCode;
+    @Lob
+    @Convert(converter = DeflatedTextConverter.class)
+    @Column(name = "payload_deflated")
+    private String payload;
+    @Lob // Use Large Object (LOB) for longer text
+    @Column(name = "payload", columnDefinition = "TEXT") // Uncompressed payloads stored by earlier versions
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private String legacyPayload;
+    @Embedded
+    private WeatherObservation observation;
+    private LocalDateTime createdAt;
+    @Transient
+    private boolean persisted;
+
+    /**
+     * Creates a snapshot whose id is derived from the ZIP code and payload.
+     *
+     * @param zipCode the canonical ZIP code the payload was fetched for.
+     * @param payload the upstream weather payload.
+     * @return the new, not yet persisted snapshot.
+     */
+    public static WeatherSnapshot of(String zipCode, String payload) {
+        return of(zipCode, WeatherReport.parse(payload));
+    }
+
+    /**
+     * Creates a snapshot of an already parsed report whose id is derived from the ZIP code and payload.
+     *
+     * @param zipCode the canonical ZIP code the payload was fetched for.
+     * @param report  the upstream weather payload and the conditions parsed from it.
+     * @return the new, not yet persisted snapshot.
+     */
+    public static WeatherSnapshot of(String zipCode, WeatherReport report) {
+        WeatherSnapshot snapshot = new WeatherSnapshot();
+        snapshot.setId(contentHash(zipCode, report.payload()));
+        snapshot.setZipCode(zipCode);
+        snapshot.setPayload(report.payload());
+        snapshot.setObservation(report.observation());
+        snapshot.setCreatedAt(LocalDateTime.now());
+        return snapshot;
+    }
+
+    /**
+     * Returns the upstream weather payload, whether it is stored compressed or not.
+     *
+     * @return the payload.
+     */
+    public String getPayload() {
+        return payload != null ? payload : legacyPayload;
+    }
+
+    /**
+     * Moves a payload stored uncompressed by an earlier version to the compressed column.
+     *
+     * @return {@code true} if there was an uncompressed payload to move.
+     */
+    public boolean compressLegacyPayload() {
+        if (legacyPayload == null) {
+            return false;
+        }
+        if (payload == null) {
+            payload = legacyPayload;
+        }
+        legacyPayload = null;
+        return true;
+    }
+
+    /**
+     * Returns the stored payload and conditions as a report. Snapshots stored before conditions were kept in
+     * columns are parsed instead.
+     *
+     * @return the weather report.
+     */
+    public WeatherReport toReport() {
+        if (observation == null) {
+            return WeatherReport.parse(getPayload());
+        }
+        return new WeatherReport(observation, getPayload());
+    }
+
+    /**
+     * Returns the hex-encoded SHA-256 hash identifying a (ZIP code, payload) pair.
+     *
+     * @param zipCode the canonical ZIP code.
+     * @param payload the upstream weather payload.
+     * @return the 64-character snapshot id.
+     */
+    public static String contentHash(String zipCode, String payload) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(zipCode.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(payload).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+}
@@ -0,0 +1,31 @@
+package com.tcg.tcgweatherapi.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * The last checkpointed state of one cell of the in-memory usage analytics: the weather requests of one user for
+ * one ZIP code during one hour.
+ *
+ * <p>Unlike a {@link WeatherRequestRollup}, which archives purged requests, a checkpoint covers only the
+ * analytics window and is overwritten with the current in-memory statistics on every checkpoint, so the
+ * analytics survive a restart. Checkpoints older than the window are deleted.</p>
+ */
+@Data
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_weather_usage_checkpoint_bucket",
+        columnNames = {"bucket_start", "zip_code", "email"}))
+public class WeatherUsageCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "weather_usage_checkpoint_seq")
+    @SequenceGenerator(name = "weather_usage_checkpoint_seq", sequenceName = "weather_usage_checkpoint_seq",
+            allocationSize = 50)
+    private Long id;
+    private LocalDateTime bucketStart;
+    private String zipCode;
+    private String email;
+    @Embedded
+    private RequestStatistics statistics = new RequestStatistics();
+}
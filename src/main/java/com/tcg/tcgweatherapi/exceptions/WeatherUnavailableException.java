@@ -0,0 +1,7 @@
+package com.tcg.tcgweatherapi.exceptions;
+
+public class WeatherUnavailableException extends RuntimeException {
+    public WeatherUnavailableException(String message) {
+        super(message);
+    }
+}
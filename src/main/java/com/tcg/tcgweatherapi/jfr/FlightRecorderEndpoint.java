@@ -0,0 +1,203 @@
+package com.tcg.tcgweatherapi.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint starting, dumping and stopping a flight recording of this instance.
+ *
+ * <p>Recordings use the JDK's {@code weather.jfr.base-settings} with {@code jfr/weather-api.jfc} applied on top,
+ * which enables the weather API events. At most one recording runs at a time; it keeps the last
+ * {@code weather.jfr.max-age} of data, up to {@code weather.jfr.max-size}, on disk until it is stopped.</p>
+ *
+ * <ul>
+ *     <li>{@code POST /actuator/flightrecorder} starts the recording, optionally for a {@code duration}.</li>
+ *     <li>{@code GET /actuator/flightrecorder} downloads what the recording holds as a {@code .jfr} file.</li>
+ *     <li>{@code DELETE /actuator/flightrecorder} stops the recording and discards its data.</li>
+ * </ul>
+ *
+ * <p>Recordings contain thread stacks, system properties and environment variables, so the endpoint is only
+ * reachable once it is added to {@code management.endpoints.web.exposure.include}, which should be done on a
+ * separate {@code management.server.port} only operators can reach.</p>
+ */
+@Component
+@Endpoint(id = "flightrecorder")
+public class FlightRecorderEndpoint {
+
+    static final String RECORDING_NAME = "weather-api";
+    private static final String SETTINGS = "/jfr/weather-api.jfc";
+
+    private final Map<String, String> settings;
+    private final Duration maxAge;
+    private final DataSize maxSize;
+    private Recording recording;
+
+    /**
+     * Creates the endpoint from application properties.
+     *
+     * @param baseSettings the JDK settings the weather API settings are applied on top of, e.g. {@code default}
+     *                     or {@code profile}.
+     * @param maxAge       how much recent data the recording keeps.
+     * @param maxSize      how much data the recording keeps at most.
+     */
+    public FlightRecorderEndpoint(@Value("${weather.jfr.base-settings:default}") String baseSettings,
+                                  @Value("${weather.jfr.max-age:30m}") Duration maxAge,
+                                  @Value("${weather.jfr.max-size:250MB}") DataSize maxSize) {
+        this.settings = loadSettings(baseSettings);
+        this.maxAge = maxAge;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Starts the recording unless it is already running.
+     *
+     * @param duration how long to record before stopping automatically, or {@code null} to record until stopped.
+     * @return the status of the recording.
+     */
+    @WriteOperation
+    public synchronized RecordingStatus start(@Nullable Duration duration) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return RecordingStatus.of(recording);
+        }
+        if (recording != null) {
+            recording.close();
+        }
+        Recording started = new Recording(settings);
+        started.setName(RECORDING_NAME);
+        started.setToDisk(true);
+        started.setMaxAge(maxAge);
+        started.setMaxSize(maxSize.toBytes());
+        if (duration != null) {
+            started.setDuration(duration);
+        }
+        started.start();
+        recording = started;
+        return RecordingStatus.of(started);
+    }
+
+    /**
+     * Writes the data the recording holds to a temporary file, which is deleted once it has been downloaded.
+     *
+     * @return the recording, or a 404 response if no recording was started.
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> dump() {
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        try {
+            Path file = Files.createTempFile(RECORDING_NAME + "-", ".jfr");
+            recording.dump(file);
+            return new WebEndpointResponse<>(new TemporaryFileResource(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stops the recording and discards its data.
+     *
+     * @return the status of the stopped recording, or a 404 response if no recording was started.
+     */
+    @DeleteOperation
+    public synchronized WebEndpointResponse<RecordingStatus> stop() {
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        recording.close();
+        RecordingStatus status = RecordingStatus.of(recording);
+        recording = null;
+        return new WebEndpointResponse<>(status);
+    }
+
+    private static Map<String, String> loadSettings(String baseSettings) {
+        try (InputStream in = FlightRecorderEndpoint.class.getResourceAsStream(SETTINGS)) {
+            if (in == null) {
+                throw new IllegalStateException("Flight recorder settings " + SETTINGS + " are missing");
+            }
+            Map<String, String> merged = new HashMap<>(Configuration.getConfiguration(baseSettings).getSettings());
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                merged.putAll(Configuration.create(reader).getSettings());
+            }
+            return merged;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Flight recorder settings could not be parsed", e);
+        }
+    }
+
+    /**
+     * The state of a recording.
+     *
+     * @param name      the name of the recording.
+     * @param state     the state, e.g. {@code RUNNING} or {@code STOPPED}.
+     * @param startTime when the recording started, or {@code null} if it has not.
+     * @param duration  how long the recording runs before stopping automatically, or {@code null} if unlimited.
+     * @param size      the number of bytes recorded so far.
+     */
+    public record RecordingStatus(String name, String state, Instant startTime, Duration duration, long size) {
+
+        static RecordingStatus of(Recording recording) {
+            return new RecordingStatus(recording.getName(), recording.getState().name(), recording.getStartTime(),
+                    recording.getDuration(), recording.getSize());
+        }
+    }
+
+    /**
+     * A file that is deleted once it has been read.
+     */
+    private static final class TemporaryFileResource extends FileSystemResource {
+
+        private TemporaryFileResource(Path file) {
+            super(file);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Files.deleteIfExists(getFile().toPath());
+                    }
+                }
+            };
+        }
+
+        @Override
+        public boolean isFile() {
+            // Make the response read the file through the stream above instead of transferring it directly
+            return false;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.tcg.tcgweatherapi.jfr;
+
+import com.tcg.tcgweatherapi.upstream.UpstreamCallPriority;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+/**
+ * One call to the upstream weather API, including the wait for call quota and a bulkhead permit.
+ */
+@Name("com.tcg.weather.UpstreamCall")
+@Label("Upstream Weather Call")
+@Description("Call to the upstream weather API, including quota and bulkhead waits")
+public class UpstreamCallEvent extends WeatherApiEvent {
+
+    @Label("ZIP Code")
+    String zipCode;
+
+    @Label("Priority")
+    String priority;
+
+    @Label("HTTP Status")
+    @Description("Status of a failed response, or 0 if the call succeeded or no response was received")
+    int status;
+
+    /**
+     * Creates and begins an event.
+     *
+     * @param zipCode  the canonical ZIP code.
+     * @param priority the priority of the call.
+     * @return the begun event.
+     */
+    public static UpstreamCallEvent start(String zipCode, UpstreamCallPriority priority) {
+        UpstreamCallEvent event = new UpstreamCallEvent();
+        event.zipCode = zipCode;
+        event.priority = priority.name();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void complete(Throwable failure) {
+        Throwable cause = unwrap(failure);
+        HttpStatusCode statusCode = null;
+        if (cause instanceof RestClientResponseException response) {
+            statusCode = response.getStatusCode();
+        } else if (cause instanceof WebClientResponseException response) {
+            statusCode = response.getStatusCode();
+        }
+        status = statusCode != null ? statusCode.value() : 0;
+        super.complete(failure);
+    }
+}
@@ -0,0 +1,53 @@
+package com.tcg.tcgweatherapi.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A lookup of a user by email address. The address itself is not recorded.
+ */
+@Name("com.tcg.weather.UserLookup")
+@Label("User Lookup")
+@Description("Lookup of a user or user status by email address")
+public class UserLookupEvent extends WeatherApiEvent {
+
+    public static final String CACHE = "cache";
+    public static final String DATABASE = "database";
+
+    static final String FOUND = "found";
+    static final String NOT_FOUND = "not-found";
+
+    @Label("Source")
+    @Description("Where the user was read from")
+    String source;
+
+    /**
+     * Creates and begins an event.
+     *
+     * @param source where the user is read from, {@link #CACHE} or {@link #DATABASE}.
+     * @return the begun event.
+     */
+    public static UserLookupEvent start(String source) {
+        UserLookupEvent event = new UserLookupEvent();
+        event.source = source;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Records that the user had to be read from the database after all.
+     */
+    public void loadedFromDatabase() {
+        source = DATABASE;
+    }
+
+    /**
+     * Ends the event with the outcome of the lookup.
+     *
+     * @param found whether the user exists.
+     */
+    public void complete(boolean found) {
+        complete(found ? FOUND : NOT_FOUND);
+    }
+}
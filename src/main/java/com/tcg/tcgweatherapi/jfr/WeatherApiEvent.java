@@ -0,0 +1,69 @@
+package com.tcg.tcgweatherapi.jfr;
+
+import com.tcg.tcgweatherapi.exceptions.WeatherUnavailableException;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * Base of the Java Flight Recorder events of the weather API.
+ *
+ * <p>Every event is timed from {@code begin()} to {@link #complete(String)} and carries the thread it completed
+ * on, like any JFR event, plus the outcome of the operation. Nothing is committed unless a recording enables the
+ * event and its duration exceeds the configured threshold, so an instrumented call without a recording costs
+ * little more than allocating the event, which the JIT usually eliminates.</p>
+ */
+@Category("Weather API")
+@StackTrace(false)
+abstract class WeatherApiEvent extends Event {
+
+    static final String SUCCESS = "success";
+    static final String UNAVAILABLE = "unavailable";
+    static final String ERROR = "error";
+
+    @Label("Outcome")
+    String outcome;
+
+    /**
+     * Ends the event and commits it with the given outcome if it is enabled and slow enough to be recorded.
+     *
+     * @param outcome the outcome of the operation.
+     */
+    public void complete(String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.outcome = outcome;
+            commit();
+        }
+    }
+
+    /**
+     * Ends the event and commits it as successful.
+     */
+    public void completeSuccessfully() {
+        complete(SUCCESS);
+    }
+
+    /**
+     * Ends the event and commits it with the outcome of the given failure.
+     *
+     * @param failure the failure of the operation, or {@code null} if it succeeded.
+     */
+    public void complete(Throwable failure) {
+        complete(outcomeOf(failure));
+    }
+
+    static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    private static String outcomeOf(Throwable failure) {
+        if (failure == null) {
+            return SUCCESS;
+        }
+        return unwrap(failure) instanceof WeatherUnavailableException ? UNAVAILABLE : ERROR;
+    }
+}
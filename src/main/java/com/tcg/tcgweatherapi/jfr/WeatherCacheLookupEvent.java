@@ -0,0 +1,35 @@
+package com.tcg.tcgweatherapi.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The decision the weather cache made for one ZIP code: serve a fresh entry, serve a stale one while refreshing
+ * it, or miss.
+ */
+@Name("com.tcg.weather.WeatherCacheLookup")
+@Label("Weather Cache Lookup")
+@Description("Weather cache decision for a ZIP code")
+public class WeatherCacheLookupEvent extends WeatherApiEvent {
+
+    public static final String HIT = "hit";
+    public static final String STALE = "stale";
+    public static final String MISS = "miss";
+
+    @Label("ZIP Code")
+    String zipCode;
+
+    /**
+     * Creates and begins an event.
+     *
+     * @param zipCode the canonical ZIP code.
+     * @return the begun event.
+     */
+    public static WeatherCacheLookupEvent start(String zipCode) {
+        WeatherCacheLookupEvent event = new WeatherCacheLookupEvent();
+        event.zipCode = zipCode;
+        event.begin();
+        return event;
+    }
+}
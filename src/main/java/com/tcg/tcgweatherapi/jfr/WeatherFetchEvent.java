@@ -0,0 +1,47 @@
+package com.tcg.tcgweatherapi.jfr;
+
+import com.tcg.tcgweatherapi.service.WeatherResult;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A weather lookup for one ZIP code, from the cache, the upstream API or the stored fallback.
+ */
+@Name("com.tcg.weather.WeatherFetch")
+@Label("Weather Fetch")
+@Description("Weather served for a ZIP code, including cache lookup, upstream call and stale fallback")
+public class WeatherFetchEvent extends WeatherApiEvent {
+
+    static final String STALE = "stale";
+
+    @Label("ZIP Code")
+    String zipCode;
+
+    /**
+     * Creates and begins an event.
+     *
+     * @param zipCode the canonical ZIP code.
+     * @return the begun event.
+     */
+    public static WeatherFetchEvent start(String zipCode) {
+        WeatherFetchEvent event = new WeatherFetchEvent();
+        event.zipCode = zipCode;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event with the outcome of the lookup.
+     *
+     * @param result  the weather served, or {@code null} if the lookup failed.
+     * @param failure the failure of the lookup, or {@code null} if it succeeded.
+     */
+    public void complete(WeatherResult result, Throwable failure) {
+        if (failure == null && result != null && result.stale()) {
+            complete(STALE);
+        } else {
+            complete(failure);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.tcg.tcgweatherapi.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Weather requests handed to the audit writer, which may write them synchronously when its queue is full.
+ */
+@Name("com.tcg.weather.WeatherRequestSave")
+@Label("Weather Request Save")
+@Description("Weather requests submitted for writing, including synchronous writes when the audit queue is full")
+public class WeatherRequestSaveEvent extends WeatherApiEvent {
+
+    @Label("ZIP Code")
+    @Description("The ZIP code of a single request, or null for a batch")
+    String zipCode;
+
+    @Label("Requests")
+    int requests;
+
+    /**
+     * Creates and begins an event.
+     *
+     * @param zipCode  the canonical ZIP code of a single request, or {@code null} for a batch.
+     * @param requests the number of requests saved.
+     * @return the begun event.
+     */
+    public static WeatherRequestSaveEvent start(String zipCode, int requests) {
+        WeatherRequestSaveEvent event = new WeatherRequestSaveEvent();
+        event.zipCode = zipCode;
+        event.requests = requests;
+        event.begin();
+        return event;
+    }
+}
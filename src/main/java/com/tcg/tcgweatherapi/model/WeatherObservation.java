@@ -0,0 +1,37 @@
+package com.tcg.tcgweatherapi.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.time.Instant;
+
+/**
+ * The conditions reported by the upstream weather API for one ZIP code, in imperial units.
+ *
+ * <p>Stored as columns of {@link com.tcg.tcgweatherapi.entity.WeatherSnapshot} and serialized as a JSON
+ * object in responses. Components the upstream payload did not contain are {@code null}.</p>
+ *
+ * @param temperature   the temperature in degrees Fahrenheit.
+ * @param feelsLike     the perceived temperature in degrees Fahrenheit.
+ * @param humidity      the relative humidity in percent.
+ * @param windSpeed     the wind speed in miles per hour.
+ * @param windDirection the direction the wind blows from, in degrees.
+ * @param conditions    a short description of the conditions, such as "light rain".
+ * @param observedAt    the instant the conditions were observed.
+ */
+@Embeddable
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record WeatherObservation(Double temperature,
+                                 Double feelsLike,
+                                 Integer humidity,
+                                 Double windSpeed,
+                                 Integer windDirection,
+                                 @Column(length = 100) String conditions,
+                                 Instant observedAt) {
+
+    /**
+     * The observation of a payload that carries no recognizable weather data.
+     */
+    public static final WeatherObservation EMPTY = new WeatherObservation(null, null, null, null, null, null, null);
+}
@@ -0,0 +1,70 @@
+package com.tcg.tcgweatherapi.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.time.Instant;
+
+/**
+ * An upstream weather payload together with the {@link WeatherObservation} parsed from it.
+ *
+ * <p>Payloads are parsed once, when they are received, and the report is what gets cached, stored and
+ * returned. The raw payload is kept for clients that ask for it.</p>
+ *
+ * @param observation the typed conditions; {@link WeatherObservation#EMPTY} if the payload is not recognized.
+ * @param payload     the raw upstream JSON payload.
+ */
+public record WeatherReport(WeatherObservation observation, String payload) {
+
+    private static final ObjectReader READER = new ObjectMapper().reader();
+
+    /**
+     * Parses an OpenWeatherMap current weather payload.
+     *
+     * <p>Payloads that are not JSON objects, or lack some fields, are accepted; the missing components of the
+     * observation are left {@code null}.</p>
+     *
+     * @param payload the raw upstream payload.
+     * @return the report, or {@code null} if {@code payload} is {@code null}.
+     */
+    public static WeatherReport parse(String payload) {
+        if (payload == null) {
+            return null;
+        }
+        JsonNode root;
+        try {
+            root = READER.readTree(payload);
+        } catch (JsonProcessingException e) {
+            return new WeatherReport(WeatherObservation.EMPTY, payload);
+        }
+        if (root == null || !root.isObject()) {
+            return new WeatherReport(WeatherObservation.EMPTY, payload);
+        }
+        JsonNode main = root.path("main");
+        JsonNode wind = root.path("wind");
+        JsonNode dt = root.path("dt");
+        WeatherObservation observation = new WeatherObservation(
+                doubleValue(main.path("temp")),
+                doubleValue(main.path("feels_like")),
+                intValue(main.path("humidity")),
+                doubleValue(wind.path("speed")),
+                intValue(wind.path("deg")),
+                textValue(root.path("weather").path(0).path("description")),
+                dt.canConvertToLong() ? Instant.ofEpochSecond(dt.longValue()) : null);
+        return new WeatherReport(observation, payload);
+    }
+
+    private static Double doubleValue(JsonNode node) {
+        return node.isNumber() ? node.doubleValue() : null;
+    }
+
+    private static Integer intValue(JsonNode node) {
+        return node.isNumber() ? (int) Math.round(node.doubleValue()) : null;
+    }
+
+    private static String textValue(JsonNode node) {
+        return node.isTextual() ? node.textValue() : null;
+    }
+}
@@ -0,0 +1,16 @@
+package com.tcg.tcgweatherapi.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a weather request past its retention period that its rollup needs.
+ *
+ * @param id          the weather request id.
+ * @param email       the email address of the user who made the request.
+ * @param zipCode     the canonical zip code.
+ * @param timestamp   when the request was made.
+ * @param temperature the temperature the request received, or {@code null} if it is unknown.
+ */
+public record ExpiredWeatherRequest(Long id, String email, String zipCode, LocalDateTime timestamp,
+                                    Double temperature) {
+}
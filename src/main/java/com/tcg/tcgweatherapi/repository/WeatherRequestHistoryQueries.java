@@ -0,0 +1,27 @@
+package com.tcg.tcgweatherapi.repository;
+
+import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * History reads that select only the columns a history page shows.
+ */
+public interface WeatherRequestHistoryQueries {
+
+    /**
+     * Reads one page of the weather requests matching {@code filter}, newest first, ordered by (timestamp, id).
+     *
+     * <p>Only the request columns and the parsed conditions of its snapshot are selected. The snapshot payload,
+     * usually the largest column by far, is only read when {@code includePayload} is set.</p>
+     *
+     * @param filter         the requests to include.
+     * @param position       the keyset of the last row of the previous page, or an initial position.
+     * @param limit          the maximum number of requests on the page.
+     * @param includePayload whether to read the raw upstream payload of every request.
+     * @return the page, positioned for scrolling forward.
+     */
+    Window<WeatherRequestSummary> findHistory(Specification<WeatherRequest> filter, KeysetScrollPosition position,
+                                              int limit, boolean includePayload);
+}
@@ -0,0 +1,89 @@
+package com.tcg.tcgweatherapi.repository;
+
+import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import com.tcg.tcgweatherapi.entity.WeatherSnapshot;
+import com.tcg.tcgweatherapi.model.WeatherObservation;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+class WeatherRequestHistoryQueriesImpl implements WeatherRequestHistoryQueries {
+
+    private final EntityManager entityManager;
+
+    WeatherRequestHistoryQueriesImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Window<WeatherRequestSummary> findHistory(Specification<WeatherRequest> filter,
+                                                     KeysetScrollPosition position, int limit,
+                                                     boolean includePayload) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<WeatherRequest> root = query.from(WeatherRequest.class);
+        Join<WeatherRequest, WeatherSnapshot> snapshot = root.join("snapshot", JoinType.LEFT);
+
+        List<Selection<?>> selections = new ArrayList<>(List.of(root.get("id"), root.get("email"),
+                root.get("zipCode"), root.get("timestamp"), snapshot.get("observation")));
+        if (includePayload) {
+            selections.add(snapshot.get("payload"));
+            selections.add(snapshot.get("legacyPayload"));
+        }
+
+        List<Predicate> predicates = new ArrayList<>(2);
+        Predicate filterPredicate = filter.toPredicate(root, query, criteriaBuilder);
+        if (filterPredicate != null) {
+            predicates.add(filterPredicate);
+        }
+        if (!position.isInitial()) {
+            LocalDateTime timestamp = (LocalDateTime) position.getKeys().get("timestamp");
+            Long id = (Long) position.getKeys().get("id");
+            predicates.add(criteriaBuilder.or(
+                    criteriaBuilder.lessThan(root.get("timestamp"), timestamp),
+                    criteriaBuilder.and(criteriaBuilder.equal(root.get("timestamp"), timestamp),
+                            criteriaBuilder.lessThan(root.get("id"), id))));
+        }
+        query.multiselect(selections)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(criteriaBuilder.desc(root.get("timestamp")), criteriaBuilder.desc(root.get("id")));
+
+        // One row more than the page holds tells whether another page follows
+        List<Tuple> rows = entityManager.createQuery(query).setMaxResults(limit + 1).getResultList();
+        List<WeatherRequestSummary> summaries = new ArrayList<>(Math.min(rows.size(), limit));
+        for (int i = 0; i < rows.size() && i < limit; i++) {
+            summaries.add(toSummary(rows.get(i), includePayload));
+        }
+        return Window.from(summaries, index -> {
+            WeatherRequestSummary summary = summaries.get(index);
+            return ScrollPosition.forward(Map.of("timestamp", summary.timestamp(), "id", summary.id()));
+        }, rows.size() > limit);
+    }
+
+    private static WeatherRequestSummary toSummary(Tuple row, boolean includePayload) {
+        String payload = null;
+        if (includePayload) {
+            payload = row.get(5, String.class);
+            if (payload == null) {
+                payload = row.get(6, String.class);
+            }
+        }
+        return new WeatherRequestSummary(row.get(0, Long.class), row.get(1, String.class), row.get(2, String.class),
+                row.get(3, LocalDateTime.class), row.get(4, WeatherObservation.class), payload);
+    }
+}
@@ -1,10 +1,26 @@
 package com.tcg.tcgweatherapi.repository;
 
 import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
-public interface WeatherRequestRepository extends JpaRepository<WeatherRequest, Long> {
-    List<WeatherRequest> findByZipCodeOrEmail(String zipCode, String email);
-}
\ No newline at end of file
+public interface WeatherRequestRepository extends JpaRepository<WeatherRequest, Long>,
+        JpaSpecificationExecutor<WeatherRequest>, WeatherRequestHistoryQueries {
+    @EntityGraph(attributePaths = "snapshot")
+    WeatherRequest findFirstByZipCodeOrderByTimestampDesc(String zipCode);
+
+    @EntityGraph(attributePaths = "snapshot")
+    List<WeatherRequest> findByTimestampAfterOrderByTimestampDesc(LocalDateTime after, Limit limit);
+
+    @Query("select new com.tcg.tcgweatherapi.repository.ExpiredWeatherRequest("
+            + "r.id, r.email, r.zipCode, r.timestamp, s.observation.temperature) "
+            + "from WeatherRequest r left join r.snapshot s where r.timestamp < :cutoff order by r.timestamp, r.id")
+    List<ExpiredWeatherRequest> findExpired(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+}
@@ -0,0 +1,11 @@
+package com.tcg.tcgweatherapi.repository;
+
+import com.tcg.tcgweatherapi.entity.WeatherRequestRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface WeatherRequestRollupRepository extends JpaRepository<WeatherRequestRollup, Long> {
+    List<WeatherRequestRollup> findByBucketStartBetween(LocalDateTime from, LocalDateTime to);
+}
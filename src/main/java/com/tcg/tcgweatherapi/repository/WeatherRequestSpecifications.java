@@ -0,0 +1,55 @@
+package com.tcg.tcgweatherapi.repository;
+
+import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Query specifications for {@link WeatherRequest} history reads.
+ */
+public final class WeatherRequestSpecifications {
+
+    private WeatherRequestSpecifications() {
+    }
+
+    /**
+     * Matches requests by every filter that is given; {@code null} filters are ignored.
+     *
+     * <p>With an email or a zip code the query is served by the {@code (email, timestamp, id)} or
+     * {@code (zip_code, timestamp, id)} index respectively. When whole entities are selected, the snapshot
+     * payload is fetched in the same query.</p>
+     *
+     * @param email   the user's email address (optional).
+     * @param zipCode the canonical zip code (optional).
+     * @param from    the earliest timestamp, inclusive (optional).
+     * @param to      the latest timestamp, exclusive (optional).
+     * @return the specification.
+     */
+    public static Specification<WeatherRequest> history(String email, String zipCode,
+                                                        LocalDateTime from, LocalDateTime to) {
+        return (root, query, criteriaBuilder) -> {
+            if (query.getResultType() == WeatherRequest.class) {
+                root.fetch("snapshot", JoinType.LEFT);
+            }
+            List<Predicate> predicates = new ArrayList<>(4);
+            if (email != null) {
+                predicates.add(criteriaBuilder.equal(root.get("email"), email));
+            }
+            if (zipCode != null) {
+                predicates.add(criteriaBuilder.equal(root.get("zipCode"), zipCode));
+            }
+            if (from != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("timestamp"), from));
+            }
+            if (to != null) {
+                predicates.add(criteriaBuilder.lessThan(root.get("timestamp"), to));
+            }
+            return criteriaBuilder.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+}
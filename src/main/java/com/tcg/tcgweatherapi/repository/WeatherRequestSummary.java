@@ -0,0 +1,21 @@
+package com.tcg.tcgweatherapi.repository;
+
+import com.tcg.tcgweatherapi.model.WeatherObservation;
+
+import java.time.LocalDateTime;
+
+/**
+ * A weather request as read for the history, without loading the {@link com.tcg.tcgweatherapi.entity.WeatherRequest}
+ * entity or, unless asked for, its snapshot payload.
+ *
+ * @param id          the weather request id.
+ * @param email       the email address of the user who made the request.
+ * @param zipCode     the canonical zip code.
+ * @param timestamp   when the request was made.
+ * @param observation the conditions parsed from the payload, or {@code null} for requests stored before
+ *                    conditions were kept in columns.
+ * @param payload     the raw upstream payload, or {@code null} if it was not requested.
+ */
+public record WeatherRequestSummary(Long id, String email, String zipCode, LocalDateTime timestamp,
+                                    WeatherObservation observation, String payload) {
+}
@@ -0,0 +1,22 @@
+package com.tcg.tcgweatherapi.repository;
+
+import com.tcg.tcgweatherapi.entity.WeatherSnapshot;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface WeatherSnapshotRepository extends JpaRepository<WeatherSnapshot, String> {
+    @Query("select s.id from WeatherSnapshot s where s.id in :ids")
+    List<String> findExistingIds(@Param("ids") Collection<String> ids);
+
+    List<WeatherSnapshot> findByLegacyPayloadIsNotNull(Limit limit);
+
+    @Query("select s.id from WeatherSnapshot s where s.createdAt < :cutoff "
+            + "and not exists (select r.id from WeatherRequest r where r.snapshot = s) order by s.createdAt")
+    List<String> findUnreferencedIds(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+}
@@ -0,0 +1,21 @@
+package com.tcg.tcgweatherapi.repository;
+
+import com.tcg.tcgweatherapi.entity.WeatherUsageCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface WeatherUsageCheckpointRepository extends JpaRepository<WeatherUsageCheckpoint, Long> {
+    List<WeatherUsageCheckpoint> findByBucketStartIn(Collection<LocalDateTime> bucketStarts);
+
+    List<WeatherUsageCheckpoint> findByBucketStartGreaterThanEqual(LocalDateTime from);
+
+    @Modifying
+    @Query("delete from WeatherUsageCheckpoint c where c.bucketStart < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,13 @@
+package com.tcg.tcgweatherapi.request.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class WeatherBatchRequestDTO {
+    private String email;
+    private List<String> zipCodes;
+    private boolean raw;
+
+}
@@ -0,0 +1,53 @@
+package com.tcg.tcgweatherapi.response.dto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes an upstream payload into a response as embedded JSON if it is a single valid JSON value, and as a
+ * JSON string otherwise.
+ *
+ * <p>Stored payloads are not guaranteed to be JSON: the weather API may have answered with an error page or a
+ * truncated body. Each payload is checked by streaming over its tokens, without building a tree, so a valid
+ * payload is still copied into the response as is.</p>
+ */
+public class JsonPayloadSerializer extends StdSerializer<String> {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    public JsonPayloadSerializer() {
+        super(String.class);
+    }
+
+    @Override
+    public void serialize(String payload, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        if (isJson(payload)) {
+            generator.writeRawValue(payload);
+        } else {
+            generator.writeString(payload);
+        }
+    }
+
+    /**
+     * Checks whether a payload is exactly one valid JSON value.
+     *
+     * @param payload the payload.
+     * @return true if the payload can be embedded as is; false otherwise.
+     */
+    static boolean isJson(String payload) {
+        try (JsonParser parser = JSON_FACTORY.createParser(payload)) {
+            if (parser.nextToken() == null) {
+                return false;
+            }
+            parser.skipChildren();
+            return parser.nextToken() == null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
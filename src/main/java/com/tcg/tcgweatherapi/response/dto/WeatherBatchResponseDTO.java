@@ -0,0 +1,39 @@
+package com.tcg.tcgweatherapi.response.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.tcg.tcgweatherapi.model.WeatherObservation;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class WeatherBatchResponseDTO {
+    private String email;
+    private List<Item> results;
+
+    public WeatherBatchResponseDTO(String email, List<Item> results) {
+        this.email = email;
+        this.results = results;
+    }
+
+    /**
+     * The weather details, or the error, for one zip code of the batch.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Item {
+        private String zipCode;
+        private WeatherObservation weather;
+        // The upstream payload, embedded as JSON unless it is not valid JSON; only included when the client asks for it
+        @JsonSerialize(using = JsonPayloadSerializer.class)
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private String weatherDetails;
+        private LocalDateTime timestamp;
+        private boolean stale;
+        private String error;
+    }
+}
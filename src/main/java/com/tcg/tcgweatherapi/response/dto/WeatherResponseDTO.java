@@ -1,5 +1,11 @@
 package com.tcg.tcgweatherapi.response.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import com.tcg.tcgweatherapi.model.WeatherObservation;
+import com.tcg.tcgweatherapi.model.WeatherReport;
+import com.tcg.tcgweatherapi.repository.WeatherRequestSummary;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -9,17 +15,73 @@ import java.time.LocalDateTime;
 public class WeatherResponseDTO {
     private String email;
     private String zipCode;
+    private WeatherObservation weather;
+    // The upstream payload, embedded as JSON unless it is not valid JSON, or the error text of a failed request
+    @JsonSerialize(using = JsonPayloadSerializer.class)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String weatherDetails;
+    // The error text of a failed request, also carried in weatherDetails for clients that read it from there
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String message;
     private LocalDateTime timestamp;
+    private boolean stale;
 
-    public WeatherResponseDTO(String email, String zipCode, String weatherDetails, LocalDateTime timestamp) {
+    public WeatherResponseDTO(String email, String zipCode, WeatherObservation weather, LocalDateTime timestamp) {
         this.email = email;
         this.zipCode = zipCode;
-        this.weatherDetails = weatherDetails;
+        this.weather = weather;
         this.timestamp = timestamp;
     }
 
     public WeatherResponseDTO() {
 
     }
+
+    /**
+     * Creates the response of a failed weather request.
+     *
+     * @param message the error text.
+     * @return the response, with the error text as both its message and its weather details.
+     */
+    public static WeatherResponseDTO error(String message) {
+        WeatherResponseDTO response = new WeatherResponseDTO();
+        response.setMessage(message);
+        response.setWeatherDetails(message);
+        return response;
+    }
+
+    /**
+     * Maps a stored weather request to its response.
+     *
+     * @param request the weather request.
+     * @param raw     whether to include the raw upstream weather payload.
+     * @return the response.
+     */
+    public static WeatherResponseDTO of(WeatherRequest request, boolean raw) {
+        WeatherReport report = request.getWeatherReport();
+        WeatherResponseDTO response = new WeatherResponseDTO(request.getEmail(), request.getZipCode(),
+                report != null ? report.observation() : null, request.getTimestamp());
+        if (raw && report != null) {
+            response.setWeatherDetails(report.payload());
+        }
+        return response;
+    }
+
+    /**
+     * Maps a weather request read for the history to its response. The raw upstream payload is included
+     * whenever the summary carries one.
+     *
+     * @param summary the weather request summary.
+     * @return the response.
+     */
+    public static WeatherResponseDTO of(WeatherRequestSummary summary) {
+        WeatherObservation observation = summary.observation();
+        if (observation == null && summary.payload() != null) {
+            observation = WeatherReport.parse(summary.payload()).observation();
+        }
+        WeatherResponseDTO response = new WeatherResponseDTO(summary.email(), summary.zipCode(), observation,
+                summary.timestamp());
+        response.setWeatherDetails(summary.payload());
+        return response;
+    }
 }
@@ -0,0 +1,173 @@
+package com.tcg.tcgweatherapi.service;
+
+import com.tcg.tcgweatherapi.cache.CacheSnapshot;
+import com.tcg.tcgweatherapi.cache.CachedWeather;
+import com.tcg.tcgweatherapi.cache.ExpiringUserStatus;
+import com.tcg.tcgweatherapi.cache.UserStatusCache;
+import com.tcg.tcgweatherapi.cache.WeatherCache;
+import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import com.tcg.tcgweatherapi.entity.WeatherSnapshot;
+import com.tcg.tcgweatherapi.repository.WeatherRequestRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Carries the weather and user status caches across restarts, so a freshly deployed instance serves like one
+ * that has been running for a while.
+ *
+ * <p>The caches are written to a {@link CacheSnapshot} file at {@code cache.snapshot.path} every
+ * {@code cache.snapshot.interval} and on shutdown. On startup the snapshot is loaded before the application
+ * reports itself ready for traffic; entries that have expired in the meantime are discarded. Without a usable
+ * snapshot the weather cache is seeded from the most recent {@code cache.snapshot.seed-rows} weather requests
+ * instead, each aged from when its payload was first stored.</p>
+ */
+@Service
+public class CacheWarmer implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+
+    private final WeatherCache weatherCache;
+    private final UserStatusCache userStatusCache;
+    private final WeatherRequestRepository weatherRequestRepository;
+    private final boolean enabled;
+    private final Path path;
+    private final int seedRows;
+    private final ReentrantLock saveLock = new ReentrantLock();
+
+    /**
+     * Creates the warmer from application properties.
+     *
+     * @param weatherCache             the weather cache to save and restore.
+     * @param userStatusCache          the user status cache to save and restore.
+     * @param weatherRequestRepository the repository the weather cache is seeded from without a snapshot.
+     * @param enabled                  whether caches are saved and restored at all.
+     * @param path                     the snapshot file.
+     * @param seedRows                 the number of recent weather requests read when seeding.
+     */
+    public CacheWarmer(WeatherCache weatherCache, UserStatusCache userStatusCache,
+                       WeatherRequestRepository weatherRequestRepository,
+                       @Value("${cache.snapshot.enabled:true}") boolean enabled,
+                       @Value("${cache.snapshot.path:data/cache-snapshot.bin}") Path path,
+                       @Value("${cache.snapshot.seed-rows:1000}") int seedRows) {
+        this.weatherCache = weatherCache;
+        this.userStatusCache = userStatusCache;
+        this.weatherRequestRepository = weatherRequestRepository;
+        this.enabled = enabled;
+        this.path = path;
+        this.seedRows = seedRows;
+    }
+
+    /**
+     * Warms the caches on startup. Runs before the application is marked ready to accept traffic.
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        if (restore() == 0) {
+            seed();
+        }
+    }
+
+    /**
+     * Restores the caches from the snapshot file.
+     *
+     * @return the number of weather entries restored; zero if there is no usable snapshot.
+     */
+    public int restore() {
+        if (!Files.isRegularFile(path)) {
+            return 0;
+        }
+        CacheSnapshot snapshot;
+        try {
+            snapshot = CacheSnapshot.readFrom(path);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable cache snapshot {}: {}", path, e.getMessage());
+            return 0;
+        }
+        int weather = 0;
+        for (Map.Entry<String, CachedWeather> entry : snapshot.weather().entrySet()) {
+            if (weatherCache.restore(entry.getKey(), entry.getValue())) {
+                weather++;
+            }
+        }
+        int users = 0;
+        for (ExpiringUserStatus entry : snapshot.userStatuses()) {
+            if (userStatusCache.restore(entry)) {
+                users++;
+            }
+        }
+        log.info("Restored {} of {} weather and {} of {} user status entries from cache snapshot taken at {}",
+                weather, snapshot.weather().size(), users, snapshot.userStatuses().size(), snapshot.writtenAt());
+        return weather;
+    }
+
+    /**
+     * Seeds the weather cache from the most recent weather requests.
+     *
+     * @return the number of weather entries seeded.
+     */
+    public int seed() {
+        LocalDateTime after = LocalDateTime.now().minus(weatherCache.maxAge());
+        Set<String> seen = new HashSet<>();
+        int seeded = 0;
+        for (WeatherRequest weatherRequest :
+                weatherRequestRepository.findByTimestampAfterOrderByTimestampDesc(after, Limit.of(seedRows))) {
+            WeatherSnapshot snapshot = weatherRequest.getSnapshot();
+            if (snapshot == null || !seen.add(weatherRequest.getZipCode())) {
+                continue;
+            }
+            // The payload may have been fetched again since it was first stored; assume the oldest fetch time.
+            Instant fetchedAt = snapshot.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant();
+            CachedWeather entry = new CachedWeather(snapshot.toReport(), fetchedAt);
+            if (weatherCache.restore(weatherRequest.getZipCode(), entry)) {
+                seeded++;
+            }
+        }
+        log.info("Seeded {} weather entries from recent weather requests", seeded);
+        return seeded;
+    }
+
+    /**
+     * Writes the current contents of the caches to the snapshot file.
+     */
+    @Scheduled(fixedDelayString = "${cache.snapshot.interval:5m}",
+            initialDelayString = "${cache.snapshot.interval:5m}")
+    public void save() {
+        if (!enabled) {
+            return;
+        }
+        saveLock.lock();
+        try {
+            new CacheSnapshot(Instant.now(), weatherCache.entries(), userStatusCache.entries()).writeTo(path);
+        } catch (IOException e) {
+            log.warn("Failed to write cache snapshot {}: {}", path, e.getMessage());
+        } finally {
+            saveLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void saveOnShutdown() {
+        save();
+    }
+}
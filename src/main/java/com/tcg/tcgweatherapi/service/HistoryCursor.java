@@ -0,0 +1,42 @@
+package com.tcg.tcgweatherapi.service;
+
+import com.tcg.tcgweatherapi.exceptions.InvalidCursorException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Opaque history cursors encoding the (timestamp, id) keyset of the last row on a page.
+ */
+final class HistoryCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private HistoryCursor() {
+    }
+
+    static String encode(LocalDateTime timestamp, Long id) {
+        String keyset = timestamp + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(keyset.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static KeysetScrollPosition decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String keyset = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = keyset.indexOf(SEPARATOR);
+            LocalDateTime timestamp = LocalDateTime.parse(keyset.substring(0, separator));
+            Long id = Long.valueOf(keyset.substring(separator + 1));
+            return ScrollPosition.forward(Map.of("timestamp", timestamp, "id", id));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidCursorException("Cursor is invalid");
+        }
+    }
+}
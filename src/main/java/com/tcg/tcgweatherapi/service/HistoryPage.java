@@ -0,0 +1,14 @@
+package com.tcg.tcgweatherapi.service;
+
+import com.tcg.tcgweatherapi.repository.WeatherRequestSummary;
+
+import java.util.List;
+
+/**
+ * One page of weather request history, newest first.
+ *
+ * @param items      the weather requests on this page.
+ * @param nextCursor the cursor for the following page, or {@code null} if this is the last page.
+ */
+public record HistoryPage(List<WeatherRequestSummary> items, String nextCursor) {
+}
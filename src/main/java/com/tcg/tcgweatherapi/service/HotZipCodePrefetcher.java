@@ -0,0 +1,95 @@
+package com.tcg.tcgweatherapi.service;
+
+import com.tcg.tcgweatherapi.cache.WeatherCache;
+import com.tcg.tcgweatherapi.cache.ZipCodePopularity;
+import com.tcg.tcgweatherapi.exceptions.WeatherUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Keeps the weather of the most requested ZIP codes cached, so requests for them are not the ones paying for
+ * an upstream fetch.
+ *
+ * <p>Every {@code weather.prefetch.interval} the hot set of {@link ZipCodePopularity} is walked, most requested
+ * first. Each ZIP code whose cache entry is missing or turns stale within {@code weather.prefetch.refresh-ahead}
+ * is fetched again through {@link WeatherService#prefetchWeather(String)}. A run makes at most
+ * {@code weather.prefetch.max-calls-per-run} upstream calls, and stops early once the upstream API is unavailable
+ * or the background share of its call quota is spent.</p>
+ */
+@Service
+public class HotZipCodePrefetcher {
+
+    private static final Logger log = LoggerFactory.getLogger(HotZipCodePrefetcher.class);
+
+    private final WeatherService weatherService;
+    private final WeatherCache weatherCache;
+    private final ZipCodePopularity zipCodePopularity;
+    private final boolean enabled;
+    private final Duration refreshAhead;
+    private final int maxCallsPerRun;
+
+    /**
+     * Creates the prefetcher from application properties.
+     *
+     * @param weatherService    the service fetching weather from the upstream API.
+     * @param weatherCache      the cache the hot ZIP codes are kept in.
+     * @param zipCodePopularity the tracker deciding which ZIP codes are hot.
+     * @param enabled           whether hot ZIP codes are prefetched at all.
+     * @param refreshAhead      how long before turning stale an entry is refreshed.
+     * @param maxCallsPerRun    the maximum number of upstream calls per run.
+     */
+    public HotZipCodePrefetcher(WeatherService weatherService, WeatherCache weatherCache,
+                                ZipCodePopularity zipCodePopularity,
+                                @Value("${weather.prefetch.enabled:true}") boolean enabled,
+                                @Value("${weather.prefetch.refresh-ahead:2m}") Duration refreshAhead,
+                                @Value("${weather.prefetch.max-calls-per-run:10}") int maxCallsPerRun) {
+        this.weatherService = weatherService;
+        this.weatherCache = weatherCache;
+        this.zipCodePopularity = zipCodePopularity;
+        this.enabled = enabled;
+        this.refreshAhead = refreshAhead;
+        this.maxCallsPerRun = maxCallsPerRun;
+    }
+
+    @Scheduled(fixedDelayString = "${weather.prefetch.interval:30s}",
+            initialDelayString = "${weather.prefetch.interval:30s}")
+    void scheduledPrefetch() {
+        if (enabled) {
+            prefetchHotZipCodes();
+        }
+    }
+
+    /**
+     * Refreshes the hot ZIP codes whose cache entries are missing or about to turn stale.
+     *
+     * @return the number of ZIP codes refreshed.
+     */
+    public int prefetchHotZipCodes() {
+        int calls = 0;
+        int refreshed = 0;
+        for (String zipCode : zipCodePopularity.hotSet()) {
+            if (calls >= maxCallsPerRun) {
+                break;
+            }
+            if (weatherCache.isFresh(zipCode, refreshAhead)) {
+                continue;
+            }
+            calls++;
+            try {
+                weatherService.prefetchWeather(zipCode);
+                refreshed++;
+            } catch (WeatherUnavailableException e) {
+                log.debug("Stopped prefetching hot ZIP codes: {}", e.getMessage());
+                break;
+            } catch (RuntimeException e) {
+                log.warn("Prefetching weather for hot ZIP {} failed: {}", zipCode, e.getMessage());
+            }
+        }
+        return refreshed;
+    }
+}
@@ -0,0 +1,90 @@
+package com.tcg.tcgweatherapi.service;
+
+import com.tcg.tcgweatherapi.entity.DeflatedTextConverter;
+import com.tcg.tcgweatherapi.entity.WeatherSnapshot;
+import com.tcg.tcgweatherapi.repository.WeatherSnapshotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Compresses weather payloads stored uncompressed by earlier versions.
+ *
+ * <p>Every {@code weather.storage.migration.interval}, up to {@code weather.storage.migration.batch-size}
+ * snapshots with an uncompressed payload are moved to the compressed column in one short transaction, so the
+ * migration never holds long locks and competes little with live traffic. Once a batch comes back short, every
+ * legacy payload has been migrated and the migrator stops querying. Uncompressed payloads are readable
+ * throughout; see {@link DeflatedTextConverter}.</p>
+ */
+@Service
+public class PayloadCompressionMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(PayloadCompressionMigrator.class);
+
+    private final WeatherSnapshotRepository weatherSnapshotRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private volatile boolean finished;
+    private long migrated;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param weatherSnapshotRepository the repository holding the payloads to migrate.
+     * @param transactionTemplate       the template running each batch in its own transaction.
+     * @param enabled                   whether legacy payloads are migrated at all.
+     * @param batchSize                 the maximum number of payloads migrated per transaction.
+     */
+    public PayloadCompressionMigrator(WeatherSnapshotRepository weatherSnapshotRepository,
+                                      TransactionTemplate transactionTemplate,
+                                      @Value("${weather.storage.migration.enabled:true}") boolean enabled,
+                                      @Value("${weather.storage.migration.batch-size:200}") int batchSize) {
+        this.weatherSnapshotRepository = weatherSnapshotRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${weather.storage.migration.interval:10s}",
+            initialDelayString = "${weather.storage.migration.interval:10s}")
+    void scheduledMigration() {
+        if (enabled && !finished) {
+            migrateBatch();
+        }
+    }
+
+    /**
+     * Compresses one batch of legacy payloads.
+     *
+     * @return the number of payloads compressed.
+     */
+    public int migrateBatch() {
+        Integer compressed = transactionTemplate.execute(status -> {
+            List<WeatherSnapshot> snapshots =
+                    weatherSnapshotRepository.findByLegacyPayloadIsNotNull(Limit.of(batchSize));
+            int count = 0;
+            for (WeatherSnapshot snapshot : snapshots) {
+                if (snapshot.compressLegacyPayload()) {
+                    count++;
+                }
+            }
+            return count;
+        });
+        int count = compressed != null ? compressed : 0;
+        migrated += count;
+        if (count < batchSize) {
+            finished = true;
+            if (migrated > 0) {
+                log.info("Compressed {} weather payloads stored by an earlier version", migrated);
+            }
+        }
+        return count;
+    }
+}
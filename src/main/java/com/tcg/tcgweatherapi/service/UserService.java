@@ -1,10 +1,16 @@
 package com.tcg.tcgweatherapi.service;
 
+import com.tcg.tcgweatherapi.cache.UserStatus;
+import com.tcg.tcgweatherapi.cache.UserStatusCache;
 import com.tcg.tcgweatherapi.entity.User;
 import com.tcg.tcgweatherapi.exceptions.UserAlreadyRegisteredException;
+import com.tcg.tcgweatherapi.jfr.UserLookupEvent;
 import com.tcg.tcgweatherapi.repository.UserRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * Service class responsible for managing user-related operations.
@@ -13,20 +19,26 @@ import org.springframework.transaction.annotation.Transactional;
  * methods for registering, retrieving, activating, and deactivating users.
  * It uses {@link UserRepository} to interact with the database and ensures
  * transactional integrity.</p>
+ *
+ * <p>User status is served from a {@link UserStatusCache}. Every status change made here is written
+ * through to the cache once its transaction commits.</p>
  */
 @Service
 @Transactional
 public class UserService {
 
     private final UserRepository userRepository;
+    private final UserStatusCache userStatusCache;
 
     /**
-     * Constructor for dependency injection of {@link UserRepository}.
+     * Constructor for dependency injection.
      *
-     * @param userRepository the repository for accessing and managing {@link User} entities.
+     * @param userRepository  the repository for accessing and managing {@link User} entities.
+     * @param userStatusCache the cache of user status by email address.
      */
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, UserStatusCache userStatusCache) {
         this.userRepository = userRepository;
+        this.userStatusCache = userStatusCache;
     }
 
     /**
@@ -47,7 +59,9 @@ public class UserService {
         User user = new User();
         user.setEmail(email);
         user.setActive(true);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        cacheStatus(saved);
+        return saved;
     }
 
     /**
@@ -60,7 +74,40 @@ public class UserService {
      * @return the {@link User} entity, or {@code null} if not found.
      */
     public User getUserByEmail(String email) {
-        return userRepository.findByEmail(email);
+        UserLookupEvent event = UserLookupEvent.start(UserLookupEvent.DATABASE);
+        try {
+            User user = userRepository.findByEmail(email);
+            event.complete(user != null);
+            return user;
+        } catch (RuntimeException e) {
+            event.complete(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Retrieves the status of a user by their email address.
+     *
+     * <p>The status is served from the cache when present and read from the database otherwise. No
+     * transaction is started, so a cache hit does not touch the database at all.</p>
+     *
+     * @param email the email address of the user.
+     * @return the user's {@link UserStatus}, or {@code null} if not found.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public UserStatus getUserStatus(String email) {
+        UserLookupEvent event = UserLookupEvent.start(UserLookupEvent.CACHE);
+        try {
+            UserStatus status = userStatusCache.get(email, key -> {
+                event.loadedFromDatabase();
+                return loadUserStatus(key);
+            });
+            event.complete(status != null);
+            return status;
+        } catch (RuntimeException e) {
+            event.complete(e);
+            throw e;
+        }
     }
 
     /**
@@ -79,6 +126,7 @@ public class UserService {
         }
         user.setActive(true);
         userRepository.save(user);
+        cacheStatus(user);
     }
 
     /**
@@ -97,5 +145,31 @@ public class UserService {
         }
         user.setActive(false);
         userRepository.save(user);
+        cacheStatus(user);
+    }
+
+    private UserStatus loadUserStatus(String email) {
+        User user = userRepository.findByEmail(email);
+        return user != null ? new UserStatus(user.getId(), user.isActive()) : null;
+    }
+
+    /**
+     * Writes a user's new status through to the cache once the current transaction commits. The old entry is
+     * dropped right away, so readers fall back to the database until then.
+     */
+    private void cacheStatus(User user) {
+        String email = user.getEmail();
+        UserStatus status = new UserStatus(user.getId(), user.isActive());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            userStatusCache.put(email, status);
+            return;
+        }
+        userStatusCache.evict(email);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                userStatusCache.put(email, status);
+            }
+        });
     }
 }
@@ -0,0 +1,216 @@
+package com.tcg.tcgweatherapi.service;
+
+import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import com.tcg.tcgweatherapi.exceptions.WeatherUnavailableException;
+import com.tcg.tcgweatherapi.model.WeatherReport;
+import com.tcg.tcgweatherapi.validator.ZipCodeValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service class responsible for fetching weather for many zip codes at once.
+ *
+ * <p>The zip codes of a batch are fetched concurrently through {@link WeatherService}, by at most
+ * {@code weather.batch.parallelism} workers per batch on a shared pool of {@code weather.batch.pool-size}
+ * threads, or on virtual threads. The batch therefore takes about as long as its slowest zip code instead of the
+ * sum of all of them.
+ * A failure for one zip code is reported for that zip code only. Zip codes still pending after
+ * {@code weather.batch.timeout} are reported as timed out, and every zip code is reported as unavailable if the
+ * pool is too busy to take any worker of the batch. The audit rows of a batch are written together.</p>
+ */
+@Service
+public class WeatherBatchService implements MeterBinder {
+
+    private final WeatherService weatherService;
+    private final Executor executor;
+    private final int parallelism;
+    private final Duration timeout;
+
+    /**
+     * Creates the service from application properties. Fetches run on a dedicated pool, or on a new virtual
+     * thread each when {@code spring.threads.virtual.enabled} is set.
+     *
+     * @param weatherService the service fetching and recording weather for a single zip code.
+     * @param parallelism    the maximum number of zip codes of one batch fetched at the same time.
+     * @param poolSize       the number of threads shared by all batches, when running on platform threads.
+     * @param timeout        how long a batch waits for its zip codes.
+     * @param environment    the environment deciding between platform and virtual threads.
+     */
+    @Autowired
+    public WeatherBatchService(WeatherService weatherService,
+                               @Value("${weather.batch.parallelism:8}") int parallelism,
+                               @Value("${weather.batch.pool-size:32}") int poolSize,
+                               @Value("${weather.batch.timeout:10s}") Duration timeout,
+                               Environment environment) {
+        this(weatherService, Threading.VIRTUAL.isActive(environment)
+                ? new VirtualThreadTaskExecutor("weather-batch-")
+                : newBatchExecutor(poolSize), parallelism, timeout);
+    }
+
+    /**
+     * Creates the service with an explicit executor.
+     *
+     * @param weatherService the service fetching and recording weather for a single zip code.
+     * @param executor       the executor running fetches.
+     * @param parallelism    the maximum number of zip codes of one batch fetched at the same time.
+     * @param timeout        how long a batch waits for its zip codes.
+     */
+    public WeatherBatchService(WeatherService weatherService, Executor executor, int parallelism, Duration timeout) {
+        this.weatherService = weatherService;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Fetches weather for each distinct zip code and records one weather request per successful zip code that is
+     * not a stale fallback.
+     *
+     * @param email    the email address of the user making the requests.
+     * @param zipCodes the zip codes to fetch weather for.
+     * @return one result per distinct zip code, in request order.
+     */
+    public List<ZipWeatherResult> getWeather(String email, List<String> zipCodes) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(zipCodes));
+        Map<String, ZipWeatherResult> failures = new LinkedHashMap<>();
+        List<String> valid = new ArrayList<>(distinct.size());
+        for (String zipCode : distinct) {
+            if (ZipCodeValidator.isValidUSZipCode(zipCode)) {
+                valid.add(zipCode);
+            } else {
+                failures.put(zipCode, ZipWeatherResult.failure(zipCode, "Invalid zip code"));
+            }
+        }
+
+        Map<String, WeatherResult> fetched = fetchAll(valid, failures);
+
+        // Stale fallbacks repeat earlier requests' weather, so they are neither audited nor counted again
+        Map<String, WeatherReport> reports = new LinkedHashMap<>();
+        fetched.forEach((zipCode, weather) -> {
+            if (!weather.stale()) {
+                reports.put(zipCode, weather.report());
+            }
+        });
+        Iterator<WeatherRequest> saved = weatherService.saveWeatherRequests(email, reports).iterator();
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, ZipWeatherResult> successes = new LinkedHashMap<>();
+        fetched.forEach((zipCode, weather) -> successes.put(zipCode, new ZipWeatherResult(zipCode, weather,
+                weather.stale() ? now : saved.next().getTimestamp(), null)));
+
+        List<ZipWeatherResult> results = new ArrayList<>(distinct.size());
+        for (String zipCode : distinct) {
+            results.add(successes.containsKey(zipCode) ? successes.get(zipCode) : failures.get(zipCode));
+        }
+        return results;
+    }
+
+    /**
+     * Fetches the given zip codes with bounded parallelism. Each worker takes the next unclaimed zip code until
+     * none are left, so no more than {@code parallelism} fetches of this batch run at once.
+     */
+    private Map<String, WeatherResult> fetchAll(List<String> zipCodes, Map<String, ZipWeatherResult> failures) {
+        List<CompletableFuture<WeatherResult>> futures = new ArrayList<>(zipCodes.size());
+        for (int i = 0; i < zipCodes.size(); i++) {
+            futures.add(new CompletableFuture<>());
+        }
+        AtomicInteger next = new AtomicInteger();
+        AtomicBoolean abandoned = new AtomicBoolean();
+        Runnable worker = () -> {
+            int i;
+            while (!abandoned.get() && (i = next.getAndIncrement()) < zipCodes.size()) {
+                try {
+                    futures.get(i).complete(weatherService.getWeatherByZipCode(zipCodes.get(i)));
+                } catch (RuntimeException e) {
+                    futures.get(i).completeExceptionally(e);
+                }
+            }
+        };
+        int workers = 0;
+        try {
+            for (int w = Math.min(parallelism, zipCodes.size()); w > 0; w--) {
+                executor.execute(worker);
+                workers++;
+            }
+        } catch (RejectedExecutionException e) {
+            // The pool is saturated; the workers already accepted fetch every zip code of the batch.
+            if (workers == 0) {
+                futures.forEach(future -> future.completeExceptionally(
+                        new WeatherUnavailableException("Too many weather batches in progress")));
+            }
+        }
+
+        Map<String, WeatherResult> fetched = new LinkedHashMap<>();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (int i = 0; i < zipCodes.size(); i++) {
+            String zipCode = zipCodes.get(i);
+            try {
+                fetched.put(zipCode, futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (ExecutionException e) {
+                String message = e.getCause().getMessage();
+                failures.put(zipCode, ZipWeatherResult.failure(zipCode,
+                        message != null ? message : "Error fetching weather data"));
+            } catch (TimeoutException e) {
+                abandoned.set(true);
+                failures.put(zipCode, ZipWeatherResult.failure(zipCode, "Timed out fetching weather data"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abandoned.set(true);
+                failures.put(zipCode, ZipWeatherResult.failure(zipCode, "Interrupted fetching weather data"));
+            }
+        }
+        return fetched;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (executor instanceof ExecutorService executorService) {
+            new ExecutorServiceMetrics(executorService, "weather-batch", List.of()).bindTo(registry);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    private static ExecutorService newBatchExecutor(int poolSize) {
+        AtomicInteger threadCount = new AtomicInteger();
+        // Rejects workers when saturated, so a worker never runs on the request thread past the batch timeout.
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(1_000),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "weather-batch-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
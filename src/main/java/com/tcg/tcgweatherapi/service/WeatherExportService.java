@@ -0,0 +1,216 @@
+package com.tcg.tcgweatherapi.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import com.tcg.tcgweatherapi.repository.WeatherRequestSpecifications;
+import com.tcg.tcgweatherapi.response.dto.WeatherResponseDTO;
+import com.tcg.tcgweatherapi.validator.ZipCodeValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Service class responsible for exporting the full history of weather requests.
+ *
+ * <p>Rows are read through a forward-only database cursor with a bounded fetch size and written as
+ * newline-delimited JSON straight to the caller's output stream. The persistence context is cleared every
+ * {@code weather.export.fetch-size} rows, so memory use does not grow with the size of the export.</p>
+ *
+ * <p>Exports stream on a pool of their own of {@code weather.export.max-concurrent} threads, so they cannot take
+ * the threads other asynchronous requests complete on. Exports beyond that, and beyond
+ * {@code weather.export.queue-capacity} waiting, are rejected.</p>
+ */
+@Service
+public class WeatherExportService implements MeterBinder {
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter rowWriter;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+    private final Duration timeout;
+    private final AsyncTaskExecutor executor;
+
+    /**
+     * Creates the service from application properties.
+     *
+     * @param entityManager      the entity manager the export query runs on.
+     * @param transactionManager the transaction manager holding the cursor's connection open.
+     * @param objectMapper       the application's JSON mapper.
+     * @param fetchSize          the number of rows fetched from the database per round trip.
+     * @param timeout            how long an export may stream before it is aborted.
+     * @param maxConcurrent      the number of exports streaming at the same time.
+     * @param queueCapacity      the number of exports waiting for a thread before further ones are rejected.
+     */
+    @Autowired
+    public WeatherExportService(EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                @Value("${weather.export.fetch-size:500}") int fetchSize,
+                                @Value("${weather.export.timeout:30m}") Duration timeout,
+                                @Value("${weather.export.max-concurrent:4}") int maxConcurrent,
+                                @Value("${weather.export.queue-capacity:0}") int queueCapacity) {
+        this(entityManager, transactionManager, objectMapper, fetchSize, timeout,
+                newExportExecutor(maxConcurrent, queueCapacity));
+    }
+
+    /**
+     * Creates the service with an explicit executor.
+     *
+     * @param entityManager      the entity manager the export query runs on.
+     * @param transactionManager the transaction manager holding the cursor's connection open.
+     * @param objectMapper       the application's JSON mapper.
+     * @param fetchSize          the number of rows fetched from the database per round trip.
+     * @param timeout            how long an export may stream before it is aborted.
+     * @param executor           the executor exports stream on.
+     */
+    public WeatherExportService(EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                int fetchSize,
+                                Duration timeout,
+                                AsyncTaskExecutor executor) {
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.fetchSize = fetchSize;
+        this.timeout = timeout;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns how long an export may stream before it is aborted. Exports outlive the default timeout of other
+     * asynchronous requests, so only they are given this one.
+     *
+     * @return the export timeout.
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Returns the executor exports stream on. It rejects exports beyond its capacity.
+     *
+     * @return the export executor.
+     */
+    public AsyncTaskExecutor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Writes every weather request matching the given filters to {@code out}, oldest first, one JSON object
+     * per line. The stream is flushed but not closed.
+     *
+     * @param zipCode the zip code to filter the history (optional).
+     * @param email   the user's email to filter the history (optional).
+     * @param from    the earliest request time to include, inclusive (optional).
+     * @param to      the latest request time to include, exclusive (optional).
+     * @param raw     whether to include the raw upstream weather payloads.
+     * @param out     the stream to write to.
+     * @return the number of exported weather requests.
+     * @throws IOException if writing to {@code out} fails.
+     */
+    public long exportHistory(String zipCode, String email, LocalDateTime from, LocalDateTime to,
+                              boolean raw, OutputStream out) throws IOException {
+        String canonicalZipCode = zipCode != null ? ZipCodeValidator.canonicalize(zipCode) : null;
+        try {
+            Long exported = readOnlyTransaction.execute(status -> {
+                try {
+                    return write(historyQuery(canonicalZipCode, email, from, to), raw, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return exported != null ? exported : 0;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private TypedQuery<WeatherRequest> historyQuery(String zipCode, String email,
+                                                    LocalDateTime from, LocalDateTime to) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<WeatherRequest> query = criteriaBuilder.createQuery(WeatherRequest.class);
+        Root<WeatherRequest> root = query.from(WeatherRequest.class);
+        query.where(WeatherRequestSpecifications.history(email, zipCode, from, to)
+                        .toPredicate(root, query, criteriaBuilder))
+                .orderBy(criteriaBuilder.asc(root.get("timestamp")), criteriaBuilder.asc(root.get("id")));
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+    }
+
+    private long write(TypedQuery<WeatherRequest> query, boolean raw, OutputStream out) throws IOException {
+        long exported = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+             Stream<WeatherRequest> rows = query.getResultStream()) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            Iterator<WeatherRequest> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                WeatherRequest request = iterator.next();
+                rowWriter.writeValue(generator, WeatherResponseDTO.of(request, raw));
+                generator.writeRaw('\n');
+                if (++exported % fetchSize == 0) {
+                    // Detach the rows written so far; the cursor keeps its position.
+                    entityManager.clear();
+                }
+            }
+        }
+        out.flush();
+        return exported;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            new ExecutorServiceMetrics(pool.getThreadPoolExecutor(), "weather-export", List.of()).bindTo(registry);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+    }
+
+    private static ThreadPoolTaskExecutor newExportExecutor(int maxConcurrent, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrent);
+        executor.setMaxPoolSize(maxConcurrent);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("weather-export-");
+        executor.setDaemon(true);
+        executor.initialize();
+        return executor;
+    }
+}
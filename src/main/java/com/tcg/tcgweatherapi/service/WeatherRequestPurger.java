@@ -0,0 +1,156 @@
+package com.tcg.tcgweatherapi.service;
+
+import com.tcg.tcgweatherapi.entity.WeatherRequestRollup;
+import com.tcg.tcgweatherapi.repository.ExpiredWeatherRequest;
+import com.tcg.tcgweatherapi.repository.WeatherRequestRepository;
+import com.tcg.tcgweatherapi.repository.WeatherRequestRollupRepository;
+import com.tcg.tcgweatherapi.repository.WeatherSnapshotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Purges weather requests older than the retention period, keeping hourly rollups of them.
+ *
+ * <p>Every {@code weather.retention.interval}, expired requests are removed oldest first in chunks of up to
+ * {@code weather.retention.batch-size} rows, each in its own short transaction. Before a chunk is deleted its
+ * requests are added to the {@link WeatherRequestRollup} of their hour, ZIP code and user in the same
+ * transaction, so a request is either counted in a rollup or still stored, never both or neither. Snapshots no
+ * longer referenced by any request are then removed the same way.</p>
+ *
+ * <p>At most {@code weather.retention.max-chunks-per-run} chunks are purged per run, so catching up on a large
+ * backlog is spread over several runs instead of competing with live traffic for minutes.</p>
+ */
+@Service
+public class WeatherRequestPurger {
+
+    private static final Logger log = LoggerFactory.getLogger(WeatherRequestPurger.class);
+
+    private final WeatherRequestRepository weatherRequestRepository;
+    private final WeatherSnapshotRepository weatherSnapshotRepository;
+    private final WeatherRequestRollupRepository weatherRequestRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final int batchSize;
+    private final int maxChunksPerRun;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param weatherRequestRepository       the repository holding the requests to purge.
+     * @param weatherSnapshotRepository      the repository holding the snapshots the requests reference.
+     * @param weatherRequestRollupRepository the repository the rollups of purged requests are added to.
+     * @param transactionTemplate            the template running each chunk in its own transaction.
+     * @param enabled                        whether expired requests are purged at all.
+     * @param ttl                            how long requests are kept.
+     * @param batchSize                      the maximum number of rows deleted per transaction.
+     * @param maxChunksPerRun                the maximum number of chunks of each table purged per run.
+     */
+    public WeatherRequestPurger(WeatherRequestRepository weatherRequestRepository,
+                                WeatherSnapshotRepository weatherSnapshotRepository,
+                                WeatherRequestRollupRepository weatherRequestRollupRepository,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${weather.retention.enabled:true}") boolean enabled,
+                                @Value("${weather.retention.ttl:30d}") Duration ttl,
+                                @Value("${weather.retention.batch-size:500}") int batchSize,
+                                @Value("${weather.retention.max-chunks-per-run:20}") int maxChunksPerRun) {
+        this.weatherRequestRepository = weatherRequestRepository;
+        this.weatherSnapshotRepository = weatherSnapshotRepository;
+        this.weatherRequestRollupRepository = weatherRequestRollupRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.batchSize = batchSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+    }
+
+    @Scheduled(fixedDelayString = "${weather.retention.interval:1m}",
+            initialDelayString = "${weather.retention.interval:1m}")
+    void scheduledPurge() {
+        if (enabled) {
+            purge(LocalDateTime.now().minus(ttl));
+        }
+    }
+
+    /**
+     * Purges up to {@code max-chunks-per-run} chunks of requests made before the cutoff, then of snapshots
+     * created before it that no request references any more.
+     *
+     * @param cutoff the time before which requests and snapshots are purged.
+     * @return the number of requests purged.
+     */
+    public int purge(LocalDateTime cutoff) {
+        int requests = 0;
+        int chunk = batchSize;
+        for (int i = 0; i < maxChunksPerRun && chunk == batchSize; i++) {
+            chunk = purgeRequests(cutoff);
+            requests += chunk;
+        }
+        int snapshots = 0;
+        chunk = batchSize;
+        for (int i = 0; i < maxChunksPerRun && chunk == batchSize; i++) {
+            chunk = purgeSnapshots(cutoff);
+            snapshots += chunk;
+        }
+        if (requests > 0 || snapshots > 0) {
+            log.info("Purged {} weather requests and {} weather snapshots from before {}", requests, snapshots, cutoff);
+        }
+        return requests;
+    }
+
+    private int purgeRequests(LocalDateTime cutoff) {
+        Integer purged = transactionTemplate.execute(status -> {
+            List<ExpiredWeatherRequest> expired =
+                    weatherRequestRepository.findExpired(cutoff, Limit.of(batchSize));
+            if (expired.isEmpty()) {
+                return 0;
+            }
+            rollUp(expired);
+            weatherRequestRepository.deleteAllByIdInBatch(expired.stream().map(ExpiredWeatherRequest::id).toList());
+            return expired.size();
+        });
+        return purged != null ? purged : 0;
+    }
+
+    private void rollUp(List<ExpiredWeatherRequest> expired) {
+        // Chunks are read oldest first, so the rollups they touch lie between the first and the last one's hour
+        Map<RollupKey, WeatherRequestRollup> rollups = new HashMap<>();
+        for (WeatherRequestRollup rollup : weatherRequestRollupRepository.findByBucketStartBetween(
+                WeatherRequestRollup.bucketOf(expired.get(0).timestamp()),
+                WeatherRequestRollup.bucketOf(expired.get(expired.size() - 1).timestamp()))) {
+            rollups.put(new RollupKey(rollup.getBucketStart(), rollup.getZipCode(), rollup.getEmail()), rollup);
+        }
+        for (ExpiredWeatherRequest request : expired) {
+            RollupKey key = new RollupKey(WeatherRequestRollup.bucketOf(request.timestamp()), request.zipCode(),
+                    request.email());
+            rollups.computeIfAbsent(key, k -> WeatherRequestRollup.of(k.bucketStart(), k.zipCode(), k.email()))
+                    .add(request.temperature());
+        }
+        weatherRequestRollupRepository.saveAll(rollups.values());
+    }
+
+    private int purgeSnapshots(LocalDateTime cutoff) {
+        Integer purged = transactionTemplate.execute(status -> {
+            List<String> unreferenced = weatherSnapshotRepository.findUnreferencedIds(cutoff, Limit.of(batchSize));
+            if (!unreferenced.isEmpty()) {
+                weatherSnapshotRepository.deleteAllByIdInBatch(unreferenced);
+            }
+            return unreferenced.size();
+        });
+        return purged != null ? purged : 0;
+    }
+
+    private record RollupKey(LocalDateTime bucketStart, String zipCode, String email) {
+    }
+}
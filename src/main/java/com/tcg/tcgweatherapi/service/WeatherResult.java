@@ -0,0 +1,13 @@
+package com.tcg.tcgweatherapi.service;
+
+import com.tcg.tcgweatherapi.model.WeatherReport;
+
+/**
+ * Weather details returned by {@link WeatherService}.
+ *
+ * @param report the weather report.
+ * @param stale  true if the report is the last known good value served because the upstream
+ *               API is unavailable.
+ */
+public record WeatherResult(WeatherReport report, boolean stale) {
+}
@@ -1,14 +1,42 @@
 package com.tcg.tcgweatherapi.service;
 
+import com.tcg.tcgweatherapi.analytics.WeatherAnalytics;
+import com.tcg.tcgweatherapi.audit.WeatherRequestWriter;
+import com.tcg.tcgweatherapi.cache.SingleFlight;
+import com.tcg.tcgweatherapi.cache.WeatherCache;
+import com.tcg.tcgweatherapi.cache.ZipCodePopularity;
 import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import com.tcg.tcgweatherapi.entity.WeatherSnapshot;
+import com.tcg.tcgweatherapi.exceptions.WeatherUnavailableException;
+import com.tcg.tcgweatherapi.jfr.UpstreamCallEvent;
+import com.tcg.tcgweatherapi.jfr.WeatherFetchEvent;
+import com.tcg.tcgweatherapi.jfr.WeatherRequestSaveEvent;
+import com.tcg.tcgweatherapi.model.WeatherReport;
 import com.tcg.tcgweatherapi.repository.WeatherRequestRepository;
+import com.tcg.tcgweatherapi.repository.WeatherRequestSpecifications;
+import com.tcg.tcgweatherapi.repository.WeatherRequestSummary;
+import com.tcg.tcgweatherapi.upstream.UpstreamCallPriority;
+import com.tcg.tcgweatherapi.upstream.UpstreamGuard;
+import com.tcg.tcgweatherapi.validator.ZipCodeValidator;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Service class responsible for managing weather-related operations.
@@ -26,76 +54,372 @@ public class WeatherService {
     @Value("${weather.api.appid}")
     private String appId;
 
+    @Value("${weather.api.coalesce-timeout:5s}")
+    private Duration coalesceTimeout = Duration.ofSeconds(5);
+
+    @Value("${weather.api.non-blocking:false}")
+    private boolean nonBlocking;
+
     private final RestTemplate restTemplate;
+    private final WebClient webClient;
     private final WeatherRequestRepository weatherRequestRepository;
+    private final WeatherCache weatherCache;
+    private final UpstreamGuard upstreamGuard;
+    private final WeatherRequestWriter weatherRequestWriter;
+    private final ZipCodePopularity zipCodePopularity;
+    private final WeatherAnalytics weatherAnalytics;
+    private final SingleFlight<String, WeatherReport> upstreamFetches = new SingleFlight<>();
 
     /**
      * Constructor for dependency injection.
      *
      * @param restTemplate             the {@link RestTemplate} instance for making HTTP requests.
+     * @param webClient                the {@link WebClient} instance for making non-blocking HTTP requests.
      * @param weatherRequestRepository the repository for managing {@link WeatherRequest} entities.
+     * @param weatherCache             the cache of recently fetched weather payloads.
+     * @param upstreamGuard            the circuit breaker and bulkhead around the external API.
+     * @param weatherRequestWriter     the write-behind pipeline persisting {@link WeatherRequest} entities.
+     * @param zipCodePopularity        the tracker of recently requested zip codes.
+     * @param weatherAnalytics         the usage analytics every saved request is counted in.
      */
-    public WeatherService(RestTemplate restTemplate, WeatherRequestRepository weatherRequestRepository) {
+    public WeatherService(RestTemplate restTemplate, WebClient webClient,
+                          WeatherRequestRepository weatherRequestRepository,
+                          WeatherCache weatherCache, UpstreamGuard upstreamGuard,
+                          WeatherRequestWriter weatherRequestWriter, ZipCodePopularity zipCodePopularity,
+                          WeatherAnalytics weatherAnalytics) {
         this.restTemplate = restTemplate;
+        this.webClient = webClient;
         this.weatherRequestRepository = weatherRequestRepository;
+        this.weatherCache = weatherCache;
+        this.upstreamGuard = upstreamGuard;
+        this.weatherRequestWriter = weatherRequestWriter;
+        this.zipCodePopularity = zipCodePopularity;
+        this.weatherAnalytics = weatherAnalytics;
+    }
+
+    /**
+     * Fetches weather information for a specific zip code.
+     *
+     * <p>The zip code is reduced to its canonical 5-digit form and looked up in the {@link WeatherCache}.
+     * Fresh and recently stale entries are served from memory; otherwise the weather data is fetched from
+     * the external weather API and cached. Concurrent fetches for the same zip code are coalesced into a
+     * single upstream call whose result is shared with every waiting caller. Every lookup is counted towards
+     * the zip code's popularity, so frequently requested zip codes are refreshed ahead of expiry.</p>
+     *
+     * <p>Calls to the external API are metered by the upstream call quota; background refreshes of stale
+     * entries yield to loads for uncached zip codes. If the external API is unavailable (its circuit is open,
+     * its call quota is exhausted, too many calls are in flight, or an in-flight call takes too long), the
+     * most recently stored weather details for the zip code are
+     * returned instead and marked as stale.</p>
+     *
+     * @param zipCode the zip code for which weather data is to be retrieved.
+     * @return the weather details, and whether they are a stale fallback.
+     * @throws WeatherUnavailableException if the external API is unavailable and no earlier weather details
+     *                                     exist for the zip code.
+     * @throws RuntimeException            if an HTTP or general error occurs while fetching weather data.
+     */
+    public WeatherResult getWeatherByZipCode(String zipCode) {
+        String canonicalZipCode = ZipCodeValidator.canonicalize(zipCode);
+        zipCodePopularity.record(canonicalZipCode);
+        WeatherFetchEvent event = WeatherFetchEvent.start(canonicalZipCode);
+        try {
+            WeatherResult result = cachedOrLastKnownWeather(canonicalZipCode);
+            event.complete(result, null);
+            return result;
+        } catch (RuntimeException e) {
+            event.complete(null, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Fetches weather information for a specific zip code without blocking the calling thread.
+     *
+     * <p>Behaves like {@link #getWeatherByZipCode(String)}. When {@code weather.api.non-blocking} is enabled, the
+     * external API is called through the {@link WebClient}, so no thread waits for the upstream response, and
+     * the stale fallback lookup runs on a scheduler meant for blocking work. Otherwise the weather is fetched
+     * in the calling thread and returned as a completed future.</p>
+     *
+     * @param zipCode the zip code for which weather data is to be retrieved.
+     * @return a future of the weather details, and whether they are a stale fallback; it fails with the
+     *         exceptions documented on {@link #getWeatherByZipCode(String)}.
+     */
+    public CompletableFuture<WeatherResult> getWeatherByZipCodeAsync(String zipCode) {
+        if (!nonBlocking) {
+            try {
+                return CompletableFuture.completedFuture(getWeatherByZipCode(zipCode));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        String canonicalZipCode = ZipCodeValidator.canonicalize(zipCode);
+        zipCodePopularity.record(canonicalZipCode);
+        WeatherFetchEvent event = WeatherFetchEvent.start(canonicalZipCode);
+        return weatherCache.getAsync(canonicalZipCode, this::loadWeatherAsync, this::refreshWeatherAsync)
+                .thenApply(report -> new WeatherResult(report, false))
+                .exceptionallyCompose(failure -> {
+                    Throwable cause = unwrap(failure);
+                    if (!(cause instanceof WeatherUnavailableException unavailable)) {
+                        return CompletableFuture.failedFuture(cause);
+                    }
+                    return Mono.fromCallable(() -> lastKnownWeather(canonicalZipCode, unavailable))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .toFuture();
+                })
+                .whenComplete(event::complete);
     }
 
     /**
-     * Fetches weather information for a specific zip code using an external weather API.
+     * Fetches weather for a zip code from the external API ahead of demand and caches it.
+     *
+     * <p>The upstream call has background priority: it never waits for call quota and leaves part of it to
+     * requests that find nothing cached. It is coalesced with any in-flight call for the same zip code.</p>
+     *
+     * @param zipCode the zip code to refresh.
+     * @return the weather report.
+     * @throws WeatherUnavailableException if the external API is unavailable or its call quota is exhausted.
+     * @throws RuntimeException            if an HTTP or general error occurs while fetching weather data.
+     */
+    public WeatherReport prefetchWeather(String zipCode) {
+        return refreshWeather(ZipCodeValidator.canonicalize(zipCode));
+    }
+
+    private WeatherResult cachedOrLastKnownWeather(String canonicalZipCode) {
+        try {
+            WeatherReport report = weatherCache.get(canonicalZipCode, this::loadWeather, this::refreshWeather);
+            return new WeatherResult(report, false);
+        } catch (WeatherUnavailableException e) {
+            return lastKnownWeather(canonicalZipCode, e);
+        }
+    }
+
+    private WeatherResult lastKnownWeather(String canonicalZipCode, WeatherUnavailableException unavailable) {
+        WeatherRequest lastKnown = weatherRequestRepository.findFirstByZipCodeOrderByTimestampDesc(canonicalZipCode);
+        if (lastKnown == null) {
+            throw unavailable;
+        }
+        return new WeatherResult(lastKnown.getWeatherReport(), true);
+    }
+
+    /**
+     * Loads weather for a canonical zip code through the single in-flight upstream call for that zip code,
+     * caching the result before any waiting caller is released. The payload is parsed once, here, and the
+     * parsed report is shared by everyone it is served to.
+     *
+     * @param zipCode the canonical zip code.
+     * @return the weather report.
+     */
+    private WeatherReport loadWeather(String zipCode) {
+        return loadWeather(zipCode, UpstreamCallPriority.LIVE);
+    }
+
+    private WeatherReport refreshWeather(String zipCode) {
+        return loadWeather(zipCode, UpstreamCallPriority.REFRESH);
+    }
+
+    private WeatherReport loadWeather(String zipCode, UpstreamCallPriority priority) {
+        return upstreamFetches.execute(zipCode, () -> {
+            WeatherReport report = WeatherReport.parse(fetchFromUpstream(zipCode, priority));
+            weatherCache.put(zipCode, report);
+            return report;
+        }, coalesceTimeout);
+    }
+
+    /**
+     * Non-blocking variant of {@link #loadWeather(String)}; shares in-flight upstream calls with it.
+     *
+     * @param zipCode the canonical zip code.
+     * @return a future of the weather report.
+     */
+    private CompletableFuture<WeatherReport> loadWeatherAsync(String zipCode) {
+        return loadWeatherAsync(zipCode, UpstreamCallPriority.LIVE);
+    }
+
+    private CompletableFuture<WeatherReport> refreshWeatherAsync(String zipCode) {
+        return loadWeatherAsync(zipCode, UpstreamCallPriority.REFRESH);
+    }
+
+    private CompletableFuture<WeatherReport> loadWeatherAsync(String zipCode, UpstreamCallPriority priority) {
+        return upstreamFetches.executeAsync(zipCode, () -> fetchFromUpstreamAsync(zipCode, priority)
+                .thenApply(payload -> {
+                    WeatherReport report = WeatherReport.parse(payload);
+                    weatherCache.put(zipCode, report);
+                    return report;
+                }));
+    }
+
+    /**
+     * Fetches weather information for a canonical zip code from the external weather API.
      *
      * <p>The method constructs the API URL using the provided zip code, app ID, and API base URL.
      * If the request is successful, the weather data is returned as a JSON string. In case of errors,
      * appropriate runtime exceptions are thrown.</p>
      *
-     * @param zipCode the zip code for which weather data is to be retrieved.
+     * @param zipCode the canonical zip code.
      * @return a JSON string containing weather details.
      * @throws RuntimeException if an HTTP or general error occurs while fetching weather data.
      */
-    public String getWeatherByZipCode(String zipCode) {
+    String fetchFromUpstream(String zipCode) {
+        return fetchFromUpstream(zipCode, UpstreamCallPriority.LIVE);
+    }
+
+    private String fetchFromUpstream(String zipCode, UpstreamCallPriority priority) {
         String url = String.format("%s?zip=%s&appid=%s&units=imperial", weatherApiUrl, zipCode, appId);
+        UpstreamCallEvent event = UpstreamCallEvent.start(zipCode, priority);
         try {
-            return restTemplate.getForObject(url, String.class);
+            String payload = upstreamGuard.call(priority, () -> restTemplate.getForObject(url, String.class));
+            event.completeSuccessfully();
+            return payload;
+        } catch (WeatherUnavailableException e) {
+            event.complete(e);
+            throw e;
         } catch (HttpClientErrorException e) {
+            event.complete(e);
             // Handle specific HTTP errors (e.g., 404 or 401)
             throw new RuntimeException("Error fetching weather data: " + e.getMessage());
         } catch (Exception e) {
+            event.complete(e);
             // Handle generic errors
             throw new RuntimeException("Unexpected error occurred while fetching weather data: " + e.getMessage());
         }
     }
 
+    /**
+     * Non-blocking variant of {@link #fetchFromUpstream(String)}, calling the external weather API through the
+     * {@link WebClient}. Failures carry the same messages as the blocking variant.
+     *
+     * @param zipCode the canonical zip code.
+     * @return a future of a JSON string containing weather details.
+     */
+    CompletableFuture<String> fetchFromUpstreamAsync(String zipCode) {
+        return fetchFromUpstreamAsync(zipCode, UpstreamCallPriority.LIVE);
+    }
+
+    private CompletableFuture<String> fetchFromUpstreamAsync(String zipCode, UpstreamCallPriority priority) {
+        String url = String.format("%s?zip=%s&appid=%s&units=imperial", weatherApiUrl, zipCode, appId);
+        UpstreamCallEvent event = UpstreamCallEvent.start(zipCode, priority);
+        return upstreamGuard.<String>callAsync(priority, () -> webClient.get()
+                        .uri(url)
+                        .retrieve()
+                        .bodyToMono(String.class)
+                        .toFuture())
+                .whenComplete((payload, failure) -> event.complete(failure))
+                .exceptionallyCompose(failure -> {
+                    Throwable cause = unwrap(failure);
+                    if (cause instanceof WeatherUnavailableException) {
+                        return CompletableFuture.failedFuture(cause);
+                    }
+                    if (cause instanceof WebClientResponseException) {
+                        return CompletableFuture.failedFuture(
+                                new RuntimeException("Error fetching weather data: " + cause.getMessage()));
+                    }
+                    return CompletableFuture.failedFuture(new RuntimeException(
+                            "Unexpected error occurred while fetching weather data: " + cause.getMessage()));
+                });
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
     /**
      * Saves weather request details to the database.
      *
      * <p>The method creates a new {@link WeatherRequest} entity with the provided email,
-     * zip code, and weather details, along with the current timestamp. The entity is then
-     * persisted to the database using the {@link WeatherRequestRepository}.</p>
+     * canonical zip code, and weather report, along with the current timestamp. The report is held in a
+     * {@link WeatherSnapshot} shared by every request that received the same payload for the same zip code.
+     * The entity is then handed to the {@link WeatherRequestWriter}, which persists it in a background batch,
+     * and counted in the {@link WeatherAnalytics}.</p>
      *
      * @param email          the email address of the user making the request.
      * @param zipCode        the zip code for which weather data was requested.
-     * @param weatherDetails the weather details retrieved from the external API.
-     * @return the saved {@link WeatherRequest} entity.
+     * @param report         the weather report retrieved from the external API.
+     * @return the {@link WeatherRequest} entity; a copy of it is written, so its id stays unassigned.
      */
-    public WeatherRequest saveWeatherRequest(String email, String zipCode, String weatherDetails) {
+    public WeatherRequest saveWeatherRequest(String email, String zipCode, WeatherReport report) {
+        WeatherRequest weatherRequest = newWeatherRequest(email, zipCode, report, LocalDateTime.now());
+        WeatherRequestSaveEvent event = WeatherRequestSaveEvent.start(weatherRequest.getZipCode(), 1);
+        try {
+            weatherRequestWriter.submit(weatherRequest);
+        } catch (RuntimeException e) {
+            event.complete(e);
+            throw e;
+        }
+        event.completeSuccessfully();
+        weatherAnalytics.record(weatherRequest, report.observation());
+        return weatherRequest;
+    }
+
+    /**
+     * Saves the weather requests of one user for several zip codes as a single batch.
+     *
+     * <p>Every request gets the same timestamp. See {@link #saveWeatherRequest(String, String, WeatherReport)}.</p>
+     *
+     * @param email            the email address of the user making the requests.
+     * @param reportsByZipCode the weather report retrieved for each requested zip code.
+     * @return the {@link WeatherRequest} entities, in the iteration order of {@code reportsByZipCode}.
+     */
+    public List<WeatherRequest> saveWeatherRequests(String email, Map<String, WeatherReport> reportsByZipCode) {
+        LocalDateTime timestamp = LocalDateTime.now();
+        List<WeatherRequest> weatherRequests = new ArrayList<>(reportsByZipCode.size());
+        reportsByZipCode.forEach((zipCode, report) ->
+                weatherRequests.add(newWeatherRequest(email, zipCode, report, timestamp)));
+        WeatherRequestSaveEvent event = WeatherRequestSaveEvent.start(null, weatherRequests.size());
+        try {
+            weatherRequestWriter.submitAll(weatherRequests);
+        } catch (RuntimeException e) {
+            event.complete(e);
+            throw e;
+        }
+        event.completeSuccessfully();
+        Iterator<WeatherRequest> recorded = weatherRequests.iterator();
+        reportsByZipCode.values().forEach(report -> weatherAnalytics.record(recorded.next(), report.observation()));
+        return weatherRequests;
+    }
+
+    private static WeatherRequest newWeatherRequest(String email, String zipCode, WeatherReport report,
+                                                    LocalDateTime timestamp) {
         WeatherRequest weatherRequest = new WeatherRequest();
         weatherRequest.setEmail(email);
-        weatherRequest.setZipCode(zipCode);
-        weatherRequest.setWeatherDetails(weatherDetails);
-        weatherRequest.setTimestamp(LocalDateTime.now());
-        return weatherRequestRepository.save(weatherRequest);
+        String canonicalZipCode = ZipCodeValidator.canonicalize(zipCode);
+        weatherRequest.setZipCode(canonicalZipCode);
+        weatherRequest.setSnapshot(WeatherSnapshot.of(canonicalZipCode, report));
+        weatherRequest.setTimestamp(timestamp);
+        return weatherRequest;
     }
 
     /**
-     * Retrieves the history of weather requests based on email or zip code.
+     * Retrieves one page of the weather request history, newest first.
+     *
+     * <p>Every filter that is given must match; {@code null} filters are ignored. Pages are read with keyset
+     * pagination on (timestamp, id), so fetching a later page costs the same as fetching the first one. Pass
+     * the {@link HistoryPage#nextCursor()} of a page to fetch the page after it.</p>
      *
-     * <p>This method queries the database for weather requests that match the specified
-     * email or zip code. If both parameters are null, it retrieves all records.</p>
+     * <p>Only the request columns and the parsed conditions are read. The raw upstream payloads are read only
+     * when {@code includePayload} is set, as they make up most of the bytes of a history row.</p>
      *
-     * @param zipCode the zip code to filter the history (optional).
-     * @param email   the user's email address to filter the history (optional).
-     * @return a list of {@link WeatherRequest} entities matching the criteria.
+     * @param zipCode        the zip code to filter the history (optional).
+     * @param email          the user's email address to filter the history (optional).
+     * @param from           the earliest request time to include, inclusive (optional).
+     * @param to             the latest request time to include, exclusive (optional).
+     * @param cursor         the cursor returned with the previous page, or {@code null} for the first page.
+     * @param limit          the maximum number of requests on the page.
+     * @param includePayload whether to read the raw upstream payload of every request.
+     * @return the page of request summaries and the cursor of the next page.
      */
-    public List<WeatherRequest> getHistory(String zipCode, String email) {
-        return weatherRequestRepository.findByZipCodeOrEmail(zipCode, email);
+    public HistoryPage getHistory(String zipCode, String email, LocalDateTime from, LocalDateTime to,
+                                  String cursor, int limit, boolean includePayload) {
+        String canonicalZipCode = zipCode != null ? ZipCodeValidator.canonicalize(zipCode) : null;
+        KeysetScrollPosition position = HistoryCursor.decode(cursor);
+        Window<WeatherRequestSummary> window = weatherRequestRepository.findHistory(
+                WeatherRequestSpecifications.history(email, canonicalZipCode, from, to), position, limit,
+                includePayload);
+
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            WeatherRequestSummary last = window.getContent().get(window.size() - 1);
+            nextCursor = HistoryCursor.encode(last.timestamp(), last.id());
+        }
+        return new HistoryPage(window.getContent(), nextCursor);
     }
 }
@@ -0,0 +1,27 @@
+package com.tcg.tcgweatherapi.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * The outcome of fetching weather for one zip code of a batch.
+ *
+ * @param zipCode   the zip code as requested.
+ * @param weather   the weather details, or {@code null} if fetching failed.
+ * @param timestamp when the weather request was recorded, or {@code null} if fetching failed.
+ * @param error     why fetching failed, or {@code null} on success.
+ */
+public record ZipWeatherResult(String zipCode, WeatherResult weather, LocalDateTime timestamp, String error) {
+
+    static ZipWeatherResult failure(String zipCode, String error) {
+        return new ZipWeatherResult(zipCode, null, null, error);
+    }
+
+    /**
+     * Returns whether weather details were fetched for the zip code.
+     *
+     * @return true on success; false if {@link #error()} explains the failure.
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
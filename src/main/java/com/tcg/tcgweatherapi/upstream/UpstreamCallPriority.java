@@ -0,0 +1,19 @@
+package com.tcg.tcgweatherapi.upstream;
+
+/**
+ * How urgently an upstream weather API call needs a share of the {@link UpstreamQuota}.
+ */
+public enum UpstreamCallPriority {
+
+    /**
+     * A caller is waiting for the result and nothing servable is cached. May wait briefly for quota and may
+     * use all of it.
+     */
+    LIVE,
+
+    /**
+     * A background refresh of a cached entry that is still being served. Never waits, and leaves
+     * {@code weather.api.quota.refresh-reserve} calls of the burst to live calls.
+     */
+    REFRESH
+}
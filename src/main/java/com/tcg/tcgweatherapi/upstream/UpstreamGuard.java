@@ -0,0 +1,357 @@
+package com.tcg.tcgweatherapi.upstream;
+
+import com.tcg.tcgweatherapi.exceptions.WeatherUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.http.Outcome;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker, call quota and concurrency bulkhead around calls to the upstream weather API.
+ *
+ * <p>The circuit opens when the failure rate or the slow-call rate over a sliding window of recent calls
+ * crosses its threshold. While open, calls are rejected immediately; after the open duration a limited
+ * number of half-open probe calls decide whether it closes again. Client errors such as an unknown ZIP code
+ * (HTTP 4xx) do not count as failures, except for HTTP 429. The bulkhead caps the number of calls in flight
+ * to the upstream API at the same time, whether they block a request thread or not.</p>
+ *
+ * <p>Calls permitted by the circuit breaker take a token from the {@link UpstreamQuota} before they enter the
+ * bulkhead. Lack of quota is not an upstream failure and does not count towards opening the circuit, and the
+ * circuit breaker times a call only from when it has its token, so waiting for quota is never a slow call. An
+ * HTTP 429 answer pauses the quota and surfaces like any other rejection.</p>
+ *
+ * <p>Rejected calls surface as {@link WeatherUnavailableException}, so callers can fall back to
+ * previously stored data.</p>
+ *
+ * <p>Every call that reaches the upstream API is timed as {@code weather.api.calls}, tagged with its outcome and
+ * HTTP status. Calls rejected by the circuit breaker or the bulkhead are counted as {@code weather.api.rejected}.</p>
+ */
+@Component
+public class UpstreamGuard implements MeterBinder {
+
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final UpstreamQuota upstreamQuota;
+    private final LongAdder circuitOpenRejections = new LongAdder();
+    private final LongAdder bulkheadFullRejections = new LongAdder();
+    private final Map<String, Timer> callTimers = new ConcurrentHashMap<>();
+    private volatile MeterRegistry meterRegistry;
+
+    /**
+     * Creates the guard from application properties.
+     *
+     * @param failureRateThreshold  failure percentage that opens the circuit.
+     * @param slowCallRateThreshold slow-call percentage that opens the circuit.
+     * @param slowCallDuration      calls slower than this count as slow.
+     * @param slidingWindowSize     number of recent calls the rates are computed over.
+     * @param minimumCalls          calls required before the rates are evaluated.
+     * @param openDuration          how long the circuit stays open before probing.
+     * @param halfOpenCalls         number of probe calls permitted while half-open.
+     * @param maxConcurrentCalls    maximum concurrent upstream calls.
+     * @param maxWait               how long a call may wait for a bulkhead permit.
+     * @param upstreamQuota         the quota of calls to the upstream API.
+     */
+    @Autowired
+    public UpstreamGuard(@Value("${weather.api.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+                         @Value("${weather.api.circuit-breaker.slow-call-rate-threshold:80}") float slowCallRateThreshold,
+                         @Value("${weather.api.circuit-breaker.slow-call-duration:2s}") Duration slowCallDuration,
+                         @Value("${weather.api.circuit-breaker.sliding-window-size:50}") int slidingWindowSize,
+                         @Value("${weather.api.circuit-breaker.minimum-calls:20}") int minimumCalls,
+                         @Value("${weather.api.circuit-breaker.open-duration:30s}") Duration openDuration,
+                         @Value("${weather.api.circuit-breaker.half-open-calls:5}") int halfOpenCalls,
+                         @Value("${weather.api.bulkhead.max-concurrent-calls:50}") int maxConcurrentCalls,
+                         @Value("${weather.api.bulkhead.max-wait:100ms}") Duration maxWait,
+                         UpstreamQuota upstreamQuota) {
+        this(CircuitBreaker.of("weather-api", CircuitBreakerConfig.custom()
+                        .failureRateThreshold(failureRateThreshold)
+                        .slowCallRateThreshold(slowCallRateThreshold)
+                        .slowCallDurationThreshold(slowCallDuration)
+                        .slidingWindowSize(slidingWindowSize)
+                        .minimumNumberOfCalls(minimumCalls)
+                        .waitDurationInOpenState(openDuration)
+                        .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                        .ignoreException(UpstreamGuard::isIgnored)
+                        .build()),
+                Bulkhead.of("weather-api", BulkheadConfig.custom()
+                        .maxConcurrentCalls(maxConcurrentCalls)
+                        .maxWaitDuration(maxWait)
+                        .build()),
+                upstreamQuota);
+    }
+
+    /**
+     * Creates the guard around an existing circuit breaker and bulkhead, without a call quota.
+     *
+     * @param circuitBreaker the circuit breaker.
+     * @param bulkhead       the bulkhead.
+     */
+    public UpstreamGuard(CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+        this(circuitBreaker, bulkhead, UpstreamQuota.unlimited());
+    }
+
+    /**
+     * Creates the guard around an existing circuit breaker, bulkhead and call quota.
+     *
+     * @param circuitBreaker the circuit breaker.
+     * @param bulkhead       the bulkhead.
+     * @param upstreamQuota  the quota of calls to the upstream API.
+     */
+    public UpstreamGuard(CircuitBreaker circuitBreaker, Bulkhead bulkhead, UpstreamQuota upstreamQuota) {
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.upstreamQuota = upstreamQuota;
+    }
+
+    /**
+     * Runs a live upstream call through the circuit breaker, the quota and the bulkhead.
+     *
+     * @param upstreamCall the call to the upstream API.
+     * @param <T>          the result type.
+     * @return the result of the call.
+     * @throws WeatherUnavailableException if the circuit is open, the quota is exhausted, the bulkhead is full
+     *                                     or the upstream API throttled the call.
+     */
+    public <T> T call(Supplier<T> upstreamCall) {
+        return call(UpstreamCallPriority.LIVE, upstreamCall);
+    }
+
+    /**
+     * Runs an upstream call through the circuit breaker, the quota and the bulkhead.
+     *
+     * @param priority     the priority of the call for the quota.
+     * @param upstreamCall the call to the upstream API.
+     * @param <T>          the result type.
+     * @return the result of the call.
+     * @throws WeatherUnavailableException if the circuit is open, the quota is exhausted, the bulkhead is full
+     *                                     or the upstream API throttled the call.
+     */
+    public <T> T call(UpstreamCallPriority priority, Supplier<T> upstreamCall) {
+        Supplier<T> bulkheadCall = Bulkhead.decorateSupplier(bulkhead, () -> {
+            long start = System.nanoTime();
+            try {
+                T result = upstreamCall.get();
+                recordCall(start, null);
+                return result;
+            } catch (RuntimeException e) {
+                recordCall(start, e);
+                throw e;
+            }
+        });
+        try {
+            circuitBreaker.acquirePermission();
+            try {
+                upstreamQuota.acquire(priority);
+            } catch (RuntimeException e) {
+                circuitBreaker.releasePermission();
+                throw e;
+            }
+            // Timed from here, so a wait for quota never counts as a slow call
+            long start = circuitBreaker.getCurrentTimestamp();
+            try {
+                T result = bulkheadCall.get();
+                circuitBreaker.onSuccess(circuitBreaker.getCurrentTimestamp() - start,
+                        circuitBreaker.getTimestampUnit());
+                return result;
+            } catch (RuntimeException e) {
+                circuitBreaker.onError(circuitBreaker.getCurrentTimestamp() - start,
+                        circuitBreaker.getTimestampUnit(), e);
+                throw e;
+            }
+        } catch (CallNotPermittedException e) {
+            circuitOpenRejections.increment();
+            throw new WeatherUnavailableException("Weather API is currently unavailable");
+        } catch (BulkheadFullException e) {
+            bulkheadFullRejections.increment();
+            throw new WeatherUnavailableException("Too many concurrent weather API calls");
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            throw throttled();
+        }
+    }
+
+    /**
+     * Runs a live non-blocking upstream call through the circuit breaker, the quota and the bulkhead.
+     *
+     * @param upstreamCall starts the call to the upstream API.
+     * @param <T>          the result type.
+     * @return a future of the result of the call; see {@link #callAsync(UpstreamCallPriority, Supplier)}.
+     */
+    public <T> CompletableFuture<T> callAsync(Supplier<? extends CompletionStage<T>> upstreamCall) {
+        return callAsync(UpstreamCallPriority.LIVE, upstreamCall);
+    }
+
+    /**
+     * Runs a non-blocking upstream call through the circuit breaker, the quota and the bulkhead. A wait for
+     * quota does not block a thread. The bulkhead permit is held until the returned stage completes.
+     *
+     * @param priority     the priority of the call for the quota.
+     * @param upstreamCall starts the call to the upstream API.
+     * @param <T>          the result type.
+     * @return a future of the result of the call; it fails with {@link WeatherUnavailableException} if the
+     *         circuit is open, the quota is exhausted, the bulkhead is full or the upstream API throttled the call.
+     */
+    public <T> CompletableFuture<T> callAsync(UpstreamCallPriority priority,
+                                              Supplier<? extends CompletionStage<T>> upstreamCall) {
+        Supplier<CompletionStage<T>> bulkheadCall = Bulkhead.decorateCompletionStage(bulkhead, () -> {
+            long start = System.nanoTime();
+            try {
+                return upstreamCall.get().whenComplete((result, failure) -> recordCall(start, failure));
+            } catch (RuntimeException e) {
+                recordCall(start, e);
+                throw e;
+            }
+        });
+        try {
+            circuitBreaker.acquirePermission();
+        } catch (CallNotPermittedException e) {
+            return CompletableFuture.failedFuture(translate(e));
+        }
+        return upstreamQuota.acquireAsync(priority)
+                .whenComplete((acquired, failure) -> {
+                    if (failure != null) {
+                        circuitBreaker.releasePermission();
+                    }
+                })
+                .thenCompose(acquired -> {
+                    long start = circuitBreaker.getCurrentTimestamp();
+                    CompletionStage<T> call;
+                    try {
+                        call = bulkheadCall.get();
+                    } catch (RuntimeException e) {
+                        call = CompletableFuture.failedFuture(e);
+                    }
+                    return call.whenComplete((result, failure) -> {
+                        long elapsed = circuitBreaker.getCurrentTimestamp() - start;
+                        if (failure == null) {
+                            circuitBreaker.onSuccess(elapsed, circuitBreaker.getTimestampUnit());
+                        } else {
+                            circuitBreaker.onError(elapsed, circuitBreaker.getTimestampUnit(), unwrap(failure));
+                        }
+                    });
+                })
+                .exceptionallyCompose(failure -> CompletableFuture.failedFuture(translate(failure)));
+    }
+
+    /**
+     * Returns the current circuit state.
+     *
+     * @return the circuit breaker state.
+     */
+    public CircuitBreaker.State state() {
+        return circuitBreaker.getState();
+    }
+
+    private Throwable translate(Throwable failure) {
+        Throwable cause = unwrap(failure);
+        if (cause instanceof CallNotPermittedException) {
+            circuitOpenRejections.increment();
+            return new WeatherUnavailableException("Weather API is currently unavailable");
+        }
+        if (cause instanceof BulkheadFullException) {
+            bulkheadFullRejections.increment();
+            return new WeatherUnavailableException("Too many concurrent weather API calls");
+        }
+        if (cause instanceof WebClientResponseException.TooManyRequests) {
+            return throttled();
+        }
+        return cause;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("weather.api.rejected", circuitOpenRejections, LongAdder::sum)
+                .description("Upstream weather API calls rejected before reaching the API")
+                .tag("reason", "circuit-open")
+                .register(registry);
+        FunctionCounter.builder("weather.api.rejected", bulkheadFullRejections, LongAdder::sum)
+                .description("Upstream weather API calls rejected before reaching the API")
+                .tag("reason", "bulkhead-full")
+                .register(registry);
+        for (CircuitBreaker.State state : new CircuitBreaker.State[]{CircuitBreaker.State.CLOSED,
+                CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN}) {
+            Gauge.builder("weather.api.circuit.state", circuitBreaker, breaker -> breaker.getState() == state ? 1 : 0)
+                    .description("Whether the circuit around the upstream weather API is in this state")
+                    .tag("state", state.name().toLowerCase())
+                    .register(registry);
+        }
+        meterRegistry = registry;
+    }
+
+    /**
+     * Times one call that reached the upstream API. Timers are registered once per outcome and status.
+     */
+    private void recordCall(long start, Throwable failure) {
+        MeterRegistry registry = meterRegistry;
+        if (registry == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        Throwable cause = unwrap(failure);
+        int status = statusOf(cause);
+        String outcome = cause == null ? Outcome.SUCCESS.name()
+                : status > 0 ? Outcome.forStatus(status).name() : Outcome.UNKNOWN.name();
+        String statusTag = cause == null ? "2xx" : status > 0 ? Integer.toString(status) : "none";
+        callTimers.computeIfAbsent(outcome + ' ' + statusTag, key -> Timer.builder("weather.api.calls")
+                        .description("Calls to the upstream weather API")
+                        .tag("outcome", outcome)
+                        .tag("status", statusTag)
+                        .register(registry))
+                .record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    private static int statusOf(Throwable failure) {
+        HttpStatusCode statusCode = null;
+        if (failure instanceof RestClientResponseException response) {
+            statusCode = response.getStatusCode();
+        } else if (failure instanceof WebClientResponseException response) {
+            statusCode = response.getStatusCode();
+        }
+        return statusCode != null ? statusCode.value() : 0;
+    }
+
+    private WeatherUnavailableException throttled() {
+        upstreamQuota.throttled();
+        return new WeatherUnavailableException("Weather API call quota exceeded upstream");
+    }
+
+    private static boolean isIgnored(Throwable throwable) {
+        if (throwable instanceof BulkheadFullException || throwable instanceof WeatherUnavailableException) {
+            // Rejected before reaching the upstream API.
+            return true;
+        }
+        if (throwable instanceof WebClientResponseException response) {
+            return response.getStatusCode().is4xxClientError()
+                    && !(response instanceof WebClientResponseException.TooManyRequests);
+        }
+        return throwable instanceof HttpClientErrorException
+                && !(throwable instanceof HttpClientErrorException.TooManyRequests);
+    }
+}
@@ -0,0 +1,223 @@
+package com.tcg.tcgweatherapi.upstream;
+
+import com.tcg.tcgweatherapi.exceptions.WeatherUnavailableException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket metering this instance's calls to the upstream weather API against its share of the appid quota.
+ *
+ * <p>The bucket refills at {@code weather.api.quota.calls-per-minute} and holds up to
+ * {@code weather.api.quota.burst} calls. It is kept as a single theoretical arrival time (the generic cell rate
+ * algorithm) updated by compare-and-set, so taking a token never blocks on a lock. A {@link UpstreamCallPriority#LIVE}
+ * call that finds the bucket empty reserves the next token and waits for it, but only if it arrives within
+ * {@code weather.api.quota.max-wait}; this bounds both how long and how many callers queue. A
+ * {@link UpstreamCallPriority#REFRESH} call never waits and leaves {@code weather.api.quota.refresh-reserve}
+ * tokens to live calls. Rejected calls surface as {@link WeatherUnavailableException}, so callers keep serving
+ * cached or previously stored data.</p>
+ *
+ * <p>When the upstream API throttles anyway (HTTP 429), the bucket is emptied for
+ * {@code weather.api.quota.throttle-pause}. A rate of zero or less disables metering.</p>
+ */
+@Component
+public class UpstreamQuota implements MeterBinder {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final long refreshBurstNanos;
+    private final long maxWaitNanos;
+    private final long throttlePauseNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong theoreticalArrival;
+    private final Map<UpstreamCallPriority, LongAdder> rejected = new EnumMap<>(UpstreamCallPriority.class);
+    private final LongAdder throttled = new LongAdder();
+
+    /**
+     * Creates the quota from application properties.
+     *
+     * @param callsPerMinute the sustained number of upstream calls per minute; zero or less disables metering.
+     * @param burst          the number of calls that may be made back to back after a quiet period.
+     * @param refreshReserve the number of burst calls background refreshes leave to live calls.
+     * @param maxWait        how long a live call may wait for its token.
+     * @param throttlePause  how long no calls are made after the upstream API answered HTTP 429.
+     */
+    @Autowired
+    public UpstreamQuota(@Value("${weather.api.quota.calls-per-minute:60}") double callsPerMinute,
+                         @Value("${weather.api.quota.burst:10}") int burst,
+                         @Value("${weather.api.quota.refresh-reserve:5}") int refreshReserve,
+                         @Value("${weather.api.quota.max-wait:500ms}") Duration maxWait,
+                         @Value("${weather.api.quota.throttle-pause:1m}") Duration throttlePause) {
+        this(callsPerMinute, burst, refreshReserve, maxWait, throttlePause, System::nanoTime);
+    }
+
+    /**
+     * Creates the quota with an explicit clock.
+     *
+     * @param callsPerMinute the sustained number of upstream calls per minute; zero or less disables metering.
+     * @param burst          the number of calls that may be made back to back after a quiet period.
+     * @param refreshReserve the number of burst calls background refreshes leave to live calls.
+     * @param maxWait        how long a live call may wait for its token.
+     * @param throttlePause  how long no calls are made after the upstream API answered HTTP 429.
+     * @param nanoClock      the monotonic clock, in nanoseconds.
+     */
+    public UpstreamQuota(double callsPerMinute, int burst, int refreshReserve, Duration maxWait,
+                         Duration throttlePause, LongSupplier nanoClock) {
+        int capacity = Math.max(1, burst);
+        this.intervalNanos = callsPerMinute > 0 ? (long) (TimeUnit.MINUTES.toNanos(1) / callsPerMinute) : 0;
+        this.burstNanos = capacity * intervalNanos;
+        this.refreshBurstNanos = Math.max(1, capacity - Math.max(0, refreshReserve)) * intervalNanos;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.throttlePauseNanos = throttlePause.toNanos();
+        this.nanoClock = nanoClock;
+        this.theoreticalArrival = new AtomicLong(nanoClock.getAsLong());
+        for (UpstreamCallPriority priority : UpstreamCallPriority.values()) {
+            rejected.put(priority, new LongAdder());
+        }
+    }
+
+    /**
+     * Returns a quota that never limits calls.
+     *
+     * @return an unlimited quota.
+     */
+    public static UpstreamQuota unlimited() {
+        return new UpstreamQuota(0, 1, 0, Duration.ZERO, Duration.ZERO, System::nanoTime);
+    }
+
+    /**
+     * Takes a token for one upstream call, waiting for it if needed and allowed.
+     *
+     * @param priority the priority of the call.
+     * @throws WeatherUnavailableException if no token is available within the priority's wait allowance.
+     */
+    public void acquire(UpstreamCallPriority priority) {
+        long waitNanos = reserve(priority);
+        if (waitNanos < 0) {
+            throw exhausted();
+        }
+        long deadline = nanoClock.getAsLong() + waitNanos;
+        for (long remaining = waitNanos; remaining > 0; remaining = deadline - nanoClock.getAsLong()) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new WeatherUnavailableException("Interrupted while waiting for weather API quota");
+            }
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #acquire(UpstreamCallPriority)}.
+     *
+     * @param priority the priority of the call.
+     * @return a future completing once the token may be used; it fails with {@link WeatherUnavailableException}
+     *         if no token is available within the priority's wait allowance.
+     */
+    public CompletableFuture<Void> acquireAsync(UpstreamCallPriority priority) {
+        long waitNanos = reserve(priority);
+        if (waitNanos < 0) {
+            return CompletableFuture.failedFuture(exhausted());
+        }
+        if (waitNanos == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> { },
+                CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Empties the bucket for the throttle pause, after the upstream API rejected a call for exceeding its quota.
+     */
+    public void throttled() {
+        if (intervalNanos == 0) {
+            return;
+        }
+        throttled.increment();
+        long pausedUntil = nanoClock.getAsLong() + throttlePauseNanos + burstNanos - intervalNanos;
+        theoreticalArrival.accumulateAndGet(pausedUntil, Math::max);
+    }
+
+    /**
+     * Returns the number of calls that could be made right now without waiting.
+     *
+     * @return the number of available tokens.
+     */
+    public long available() {
+        if (intervalNanos == 0) {
+            return Long.MAX_VALUE;
+        }
+        long now = nanoClock.getAsLong();
+        long backlog = Math.max(theoreticalArrival.get(), now) - now;
+        return Math.max(0, (burstNanos - backlog) / intervalNanos);
+    }
+
+    /**
+     * Returns the number of calls rejected so far.
+     *
+     * @param priority the priority of the rejected calls.
+     * @return the cumulative number of rejected calls of that priority.
+     */
+    public long rejectedCount(UpstreamCallPriority priority) {
+        return rejected.get(priority).sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("weather.api.quota.available", this, UpstreamQuota::available)
+                .description("Upstream weather API calls that can be made without waiting")
+                .register(registry);
+        for (UpstreamCallPriority priority : UpstreamCallPriority.values()) {
+            FunctionCounter.builder("weather.api.quota.rejected", rejected.get(priority), LongAdder::sum)
+                    .description("Upstream weather API calls rejected for lack of quota")
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(registry);
+        }
+        FunctionCounter.builder("weather.api.quota.throttled", throttled, LongAdder::sum)
+                .description("Upstream weather API calls answered with HTTP 429")
+                .register(registry);
+    }
+
+    /**
+     * Takes the next token if it arrives within the priority's allowance.
+     *
+     * @return how long to wait before the token may be used, in nanoseconds, or -1 if the call is rejected.
+     */
+    long reserve(UpstreamCallPriority priority) {
+        if (intervalNanos == 0) {
+            return 0;
+        }
+        long tolerance = priority == UpstreamCallPriority.LIVE ? burstNanos : refreshBurstNanos;
+        long allowedWait = priority == UpstreamCallPriority.LIVE ? maxWaitNanos : 0;
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long waitNanos = next - tolerance - now;
+            if (waitNanos > allowedWait) {
+                rejected.get(priority).increment();
+                return -1;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return Math.max(0, waitNanos);
+            }
+        }
+    }
+
+    private static WeatherUnavailableException exhausted() {
+        return new WeatherUnavailableException("Weather API call quota exhausted");
+    }
+}
@@ -0,0 +1,62 @@
+package com.tcg.tcgweatherapi.validator;
+
+public class EmailValidator {
+
+    private static final int MAX_LENGTH = 254;
+    private static final int MAX_LOCAL_PART_LENGTH = 64;
+    private static final int MAX_LABEL_LENGTH = 63;
+    private static final String LOCAL_PART_SYMBOLS = "!#$%&'*+/=?^_`{|}~-";
+
+    /**
+     * Validates whether the given email address is a plain {@code local-part@domain} address: a dot-separated
+     * local part of letters, digits and the RFC 5322 symbols, and a domain of at least two dot-separated labels
+     * of letters, digits and inner hyphens. Quoted local parts, IP literals and non-ASCII addresses are rejected.
+     *
+     * @param email the email address to validate.
+     * @return true if the email address is valid; false otherwise.
+     */
+    public static boolean isValid(String email) {
+        if (email == null || email.length() > MAX_LENGTH) {
+            return false;
+        }
+        int at = email.indexOf('@');
+        return at > 0 && at <= MAX_LOCAL_PART_LENGTH
+                && isValidLocalPart(email, at)
+                && isValidDomain(email, at + 1);
+    }
+
+    private static boolean isValidLocalPart(String email, int end) {
+        char previous = '.';
+        for (int i = 0; i < end; i++) {
+            char c = email.charAt(i);
+            if (c == '.' ? previous == '.' : !isAlphanumeric(c) && LOCAL_PART_SYMBOLS.indexOf(c) < 0) {
+                return false;
+            }
+            previous = c;
+        }
+        return previous != '.';
+    }
+
+    private static boolean isValidDomain(String email, int start) {
+        int labelStart = start;
+        int labels = 0;
+        for (int i = start; i <= email.length(); i++) {
+            char c = i < email.length() ? email.charAt(i) : '.';
+            if (c == '.') {
+                int length = i - labelStart;
+                if (length == 0 || length > MAX_LABEL_LENGTH || email.charAt(i - 1) == '-') {
+                    return false;
+                }
+                labels++;
+                labelStart = i + 1;
+            } else if (c == '-' ? i == labelStart : !isAlphanumeric(c)) {
+                return false;
+            }
+        }
+        return labels >= 2;
+    }
+
+    private static boolean isAlphanumeric(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,97 @@
+package com.tcg.tcgweatherapi.validator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * The 5-digit ZIP codes weather is fetched for; requests for any other code are rejected before they cost an
+ * upstream round trip.
+ *
+ * <p>The allowlist is a bitset over all 100,000 possible codes, bundled as {@code zipcodes/us-zip-codes.bits}: bit
+ * {@code zip % 8} of byte {@code zip / 8} is set for every allowed code. It is read once into 1,563 longs, so a
+ * lookup is a shift and a mask on 12.5 KB that stay in cache.</p>
+ *
+ * <p>The bundled bitset is coarse. It was built from the three-digit prefixes USPS has not assigned, such as
+ * {@code 000} to {@code 004} or {@code 213}, and allows every other code, 96,200 in total. Codes that do not exist
+ * under an assigned prefix still reach the weather API. Regenerate the bitset from the Census ZCTA gazetteer with
+ * {@code mvn process-test-classes -Pzipcodes} to allow only the ZIP codes in use.</p>
+ */
+public final class ZipCodeAllowlist {
+
+    /**
+     * The number of possible 5-digit ZIP codes.
+     */
+    static final int SIZE = 100_000;
+
+    /**
+     * The size of the bundled bitset in bytes.
+     */
+    static final int BYTES = SIZE / Byte.SIZE;
+
+    private static final long[] ALLOWED = decode(load("/zipcodes/us-zip-codes.bits"));
+
+    private ZipCodeAllowlist() {
+    }
+
+    /**
+     * Checks whether weather may be fetched for a 5-digit ZIP code.
+     *
+     * @param zipCode the ZIP code as a number, {@code 0} to {@code 99999}.
+     * @return true if the ZIP code is allowed; false otherwise.
+     */
+    public static boolean contains(int zipCode) {
+        return zipCode >= 0 && zipCode < SIZE && (ALLOWED[zipCode >>> 6] & 1L << zipCode) != 0;
+    }
+
+    /**
+     * Encodes ZIP codes as the bitset stored in the bundled resource.
+     *
+     * @param zipCodes the allowed ZIP codes, {@code 0} to {@code 99999}.
+     * @return the {@value #BYTES}-byte bitset.
+     * @throws IllegalArgumentException if a ZIP code is out of range.
+     */
+    static byte[] encode(int... zipCodes) {
+        byte[] bits = new byte[BYTES];
+        for (int zipCode : zipCodes) {
+            if (zipCode < 0 || zipCode >= SIZE) {
+                throw new IllegalArgumentException("ZIP code " + zipCode + " is out of range");
+            }
+            bits[zipCode >>> 3] |= (byte) (1 << (zipCode & 7));
+        }
+        return bits;
+    }
+
+    /**
+     * Decodes the bitset stored in the bundled resource into words of 64 ZIP codes each.
+     *
+     * @param bits the {@value #BYTES}-byte bitset.
+     * @return the words, bit {@code zip % 64} of word {@code zip / 64} being set for every allowed ZIP code.
+     * @throws IllegalArgumentException if the bitset does not have {@value #BYTES} bytes.
+     */
+    static long[] decode(byte[] bits) {
+        if (bits.length != BYTES) {
+            throw new IllegalArgumentException("ZIP code bitset has " + bits.length + " bytes instead of " + BYTES);
+        }
+        long[] words = new long[(SIZE + Long.SIZE - 1) / Long.SIZE];
+        ByteBuffer.wrap(Arrays.copyOf(bits, words.length * Long.BYTES))
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asLongBuffer()
+                .get(words);
+        return words;
+    }
+
+    private static byte[] load(String resource) {
+        try (InputStream in = ZipCodeAllowlist.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("ZIP code bitset " + resource + " is missing");
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
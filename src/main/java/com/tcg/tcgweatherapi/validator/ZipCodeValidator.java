@@ -1,19 +1,60 @@
 package com.tcg.tcgweatherapi.validator;
 
-import org.apache.commons.validator.routines.RegexValidator;
-
 public class ZipCodeValidator {
 
-    private static final RegexValidator US_ZIP_CODE_VALIDATOR =
-            new RegexValidator("^(\\d{5})(?:[-\\s]\\d{4})?$");
+    private static final int ZIP_LENGTH = 5;
+    private static final int ZIP_PLUS_FOUR_LENGTH = 10;
 
     /**
-     * Validates whether the given ZIP code is a valid US ZIP code.
+     * Validates whether the given ZIP code is a valid US ZIP code: five digits, optionally followed by a hyphen
+     * or whitespace and four more digits, whose 5-digit code is in the {@link ZipCodeAllowlist}.
      *
      * @param zipCode the ZIP code to validate.
      * @return true if the ZIP code is valid; false otherwise.
      */
     public static boolean isValidUSZipCode(String zipCode) {
-        return US_ZIP_CODE_VALIDATOR.isValid(zipCode);
+        if (zipCode == null
+                || zipCode.length() != ZIP_LENGTH && zipCode.length() != ZIP_PLUS_FOUR_LENGTH) {
+            return false;
+        }
+        int zip = 0;
+        for (int i = 0; i < ZIP_LENGTH; i++) {
+            int digit = digit(zipCode.charAt(i));
+            if (digit < 0) {
+                return false;
+            }
+            zip = zip * 10 + digit;
+        }
+        if (zipCode.length() == ZIP_PLUS_FOUR_LENGTH) {
+            if (!isSeparator(zipCode.charAt(ZIP_LENGTH))) {
+                return false;
+            }
+            for (int i = ZIP_LENGTH + 1; i < ZIP_PLUS_FOUR_LENGTH; i++) {
+                if (digit(zipCode.charAt(i)) < 0) {
+                    return false;
+                }
+            }
+        }
+        return ZipCodeAllowlist.contains(zip);
+    }
+
+    /**
+     * Reduces a valid US ZIP code to its canonical 5-digit form, dropping any ZIP+4 suffix.
+     *
+     * @param zipCode a ZIP code accepted by {@link #isValidUSZipCode(String)}.
+     * @return the 5-digit ZIP code.
+     */
+    public static String canonicalize(String zipCode) {
+        String trimmed = zipCode.trim();
+        return trimmed.length() > 5 ? trimmed.substring(0, 5) : trimmed;
+    }
+
+    private static int digit(char c) {
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+
+    private static boolean isSeparator(char c) {
+        // A hyphen or any of the ASCII whitespace characters ZIP+4 codes have historically been accepted with
+        return c == '-' || c == ' ' || c >= '\t' && c <= '\r';
     }
 }
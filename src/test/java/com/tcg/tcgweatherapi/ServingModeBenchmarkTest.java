@@ -0,0 +1,170 @@
+package com.tcg.tcgweatherapi;
+
+import com.sun.net.httpserver.HttpServer;
+import com.tcg.tcgweatherapi.service.UserService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares serving {@code GET /weather} on Tomcat's platform thread pool with serving it on virtual threads.
+ *
+ * <p>Every request misses the weather cache and blocks on a local fake weather API that answers after
+ * {@value #UPSTREAM_LATENCY_MILLIS} ms, while {@value #CONCURRENCY} clients keep requests in flight. With platform
+ * threads, throughput is capped at about {@code server.tomcat.threads.max / latency}; with virtual threads it
+ * is not. Run with {@code mvn test -Pbenchmark} on Java 21.</p>
+ */
+@Tag("benchmark")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class ServingModeBenchmarkTest {
+
+    private static final int UPSTREAM_LATENCY_MILLIS = 100;
+    private static final int CONCURRENCY = 1_000;
+    private static final int WARM_UP_REQUESTS = 1_000;
+    private static final int MEASURED_REQUESTS = 5_000;
+    private static final String EMAIL = "benchmark@example.com";
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        HttpServer upstream = startFakeWeatherApi();
+        try {
+            String weatherApiUrl = "http://localhost:" + upstream.getAddress().getPort() + "/weather";
+            Result platform = run("platform", false, weatherApiUrl);
+            Result virtual = run("virtual", true, weatherApiUrl);
+
+            System.out.printf("%n%-9s %12s %9s %9s %9s %14s%n",
+                    "mode", "requests/s", "p50 ms", "p99 ms", "errors", "peak threads");
+            for (Result result : List.of(platform, virtual)) {
+                System.out.printf("%-9s %12.0f %9d %9d %9d %14d%n", result.mode(), result.throughput(),
+                        result.p50Millis(), result.p99Millis(), result.errors(), result.peakThreads());
+            }
+
+            assertEquals(0, platform.errors());
+            assertEquals(0, virtual.errors());
+        } finally {
+            upstream.stop(0);
+        }
+    }
+
+    private Result run(String mode, boolean virtualThreads, String weatherApiUrl) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TcgweatherapiApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark-" + mode,
+                        "--weather.api.url=" + weatherApiUrl,
+                        "--weather.api.pool.max-total=" + CONCURRENCY,
+                        "--weather.api.pool.max-per-route=" + CONCURRENCY,
+                        "--weather.api.bulkhead.max-concurrent-calls=" + CONCURRENCY,
+                        "--weather.api.bulkhead.max-wait=10s",
+                        "--weather.api.quota.calls-per-minute=0",
+                        "--cache.snapshot.enabled=false",
+                        "--weather.api.pool.connection-request-timeout=10s",
+                        "--weather.api.read-timeout=1m",
+                        "--weather.api.response-timeout=1m",
+                        "--weather.api.circuit-breaker.slow-call-duration=1m",
+                        "--logging.level.root=WARN")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            context.getBean(UserService.class).registerUser(EMAIL);
+
+            HttpClient client = HttpClient.newBuilder().executor(new VirtualThreadTaskExecutor("benchmark-client-")).build();
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+            fire(client, port, 10_000, WARM_UP_REQUESTS);
+            threads.resetPeakThreadCount();
+            long start = System.nanoTime();
+            long[] latencies = fire(client, port, 20_000, MEASURED_REQUESTS);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            long errors = Arrays.stream(latencies).filter(latency -> latency < 0).count();
+            long[] succeeded = Arrays.stream(latencies).filter(latency -> latency >= 0).sorted().toArray();
+            return new Result(mode, MEASURED_REQUESTS / seconds, percentile(succeeded, 0.50),
+                    percentile(succeeded, 0.99), errors, threads.getPeakThreadCount());
+        }
+    }
+
+    /**
+     * Sends {@code count} weather requests with at most {@link #CONCURRENCY} in flight, each for a distinct
+     * ZIP code so none is served from the cache.
+     *
+     * @return the latency of each request in nanoseconds, or -1 for a failed request.
+     */
+    private static long[] fire(HttpClient client, int port, int firstZipCode, int count) throws Exception {
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        long[] latencies = new long[count];
+        List<CompletableFuture<?>> responses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int request = i;
+            URI uri = URI.create("http://localhost:" + port + "/api/v1/users/weather?email=" + EMAIL
+                    + "&zipCode=" + (firstZipCode + i));
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            responses.add(client.sendAsync(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        boolean ok = failure == null && response.statusCode() == 200;
+                        latencies[request] = ok ? System.nanoTime() - sent : -1;
+                        inFlight.release();
+                    }));
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).join();
+        return latencies;
+    }
+
+    private static long percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return -1;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return Duration.ofNanos(sortedNanos[Math.max(0, index)]).toMillis();
+    }
+
+    private static HttpServer startFakeWeatherApi() throws Exception {
+        // The JDK server closes idle connections beyond this limit, which the client pool would then reuse.
+        System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(CONCURRENCY));
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), CONCURRENCY);
+        AtomicInteger served = new AtomicInteger();
+        server.createContext("/weather", exchange -> {
+            try {
+                Thread.sleep(UPSTREAM_LATENCY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = ("{\"weather\":\"Sunny\",\"n\":" + served.incrementAndGet() + "}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.setExecutor(new VirtualThreadTaskExecutor("fake-weather-api-"));
+        server.start();
+        return server;
+    }
+
+    private record Result(String mode, double throughput, long p50Millis, long p99Millis, long errors,
+                          int peakThreads) {
+    }
+}
@@ -3,7 +3,7 @@ package com.tcg.tcgweatherapi;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "cache.snapshot.enabled=false")
 class TcgweatherapiApplicationTests {
 
 	@Test
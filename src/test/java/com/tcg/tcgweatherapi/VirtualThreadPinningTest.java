@@ -0,0 +1,119 @@
+package com.tcg.tcgweatherapi;
+
+import com.tcg.tcgweatherapi.audit.OverflowPolicy;
+import com.tcg.tcgweatherapi.audit.WeatherRequestStore;
+import com.tcg.tcgweatherapi.audit.WeatherRequestWriter;
+import com.tcg.tcgweatherapi.cache.SingleFlight;
+import com.tcg.tcgweatherapi.cache.UserStatus;
+import com.tcg.tcgweatherapi.cache.UserStatusCache;
+import com.tcg.tcgweatherapi.cache.WeatherCache;
+import com.tcg.tcgweatherapi.model.WeatherReport;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Guards the request hot path against pinning virtual threads to their carrier.
+ *
+ * <p>Each scenario blocks inside the components a request passes through while running on virtual threads,
+ * and fails if the JVM reports a {@code jdk.VirtualThreadPinned} event, which is emitted when a virtual thread
+ * blocks inside a {@code synchronized} block or native frame.</p>
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadPinningTest {
+
+    private static final Duration BLOCKING_CALL = Duration.ofMillis(50);
+
+    private final VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("pinning-test-");
+
+    @Test
+    void testUserStatusCacheLoadDoesNotPin() throws Exception {
+        UserStatusCache cache = new UserStatusCache(100, Duration.ofMinutes(5));
+
+        assertNoPinning(() -> cache.get("test@example.com", email -> {
+            sleep();
+            return new UserStatus(1L, true);
+        }));
+    }
+
+    @Test
+    void testWeatherCacheLoadDoesNotPin() throws Exception {
+        WeatherCache cache = new WeatherCache(100, Duration.ofMinutes(10), Duration.ofMinutes(5),
+                Runnable::run, Clock.systemUTC());
+
+        assertNoPinning(() -> cache.get("10001", zipCode -> {
+            sleep();
+            return WeatherReport.parse("Sunny");
+        }));
+    }
+
+    @Test
+    void testSingleFlightDoesNotPin() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+        assertNoPinning(() -> singleFlight.execute("10001", () -> {
+            sleep();
+            return "Sunny";
+        }, Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void testWriterLifecycleDoesNotPin() throws Exception {
+        WeatherRequestWriter writer = new WeatherRequestWriter(mock(WeatherRequestStore.class), true, 100, 10,
+                BLOCKING_CALL, OverflowPolicy.CALLER_RUNS, Duration.ZERO, Duration.ofSeconds(5));
+
+        assertNoPinning(() -> {
+            writer.start();
+            // Stopping waits for the drain thread, which polls for one flush interval before it notices.
+            writer.stop();
+            return null;
+        });
+    }
+
+    private void assertNoPinning(Callable<?> blockingCall) throws Exception {
+        Path dump = Files.createTempFile("virtual-thread-pinning", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(10)).withStackTrace();
+            recording.start();
+
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                calls.add(executor.submit(blockingCall));
+            }
+            for (Future<?> call : calls) {
+                call.get();
+            }
+
+            recording.stop();
+            recording.dump(dump);
+            List<RecordedEvent> pinned = RecordingFile.readAllEvents(dump);
+            assertTrue(pinned.isEmpty(), () -> "Virtual threads were pinned:\n" + pinned);
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(BLOCKING_CALL.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
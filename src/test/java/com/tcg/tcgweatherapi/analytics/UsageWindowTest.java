@@ -0,0 +1,88 @@
+package com.tcg.tcgweatherapi.analytics;
+
+import com.tcg.tcgweatherapi.entity.RequestStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UsageWindowTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 3, 12, 30);
+
+    private final UsageWindow window = new UsageWindow(48);
+
+    @Test
+    void testTopZipCodes_CountsOnlyTheRequestedHours() {
+        window.record(NOW, "10001", "a@example.com", null);
+        window.record(NOW.minusMinutes(20), "10001", "b@example.com", null);
+        window.record(NOW.minusHours(1), "94105", "a@example.com", null);
+        window.record(NOW.minusHours(5), "94105", "a@example.com", null);
+        window.record(NOW.minusHours(5), "94105", "a@example.com", null);
+        window.record(NOW.minusHours(5), "60601", "a@example.com", null);
+
+        assertEquals(List.of(new ZipCodeUsage("10001", 2), new ZipCodeUsage("94105", 1)),
+                window.topZipCodes(NOW, 2, 10));
+        assertEquals(List.of(new ZipCodeUsage("94105", 3), new ZipCodeUsage("10001", 2)),
+                window.topZipCodes(NOW, 24, 2));
+    }
+
+    @Test
+    void testDailyRequests_GroupsHoursByDayWithinTheWindow() {
+        window.record(NOW, "10001", "a@example.com", null);
+        window.record(NOW.minusHours(12).minusMinutes(1), "10001", "a@example.com", null);
+        window.record(NOW.minusHours(13), "94105", "a@example.com", null);
+        window.record(NOW.minusHours(3), "94105", "b@example.com", null);
+
+        assertEquals(List.of(new DailyUsage(LocalDate.of(2024, 1, 2), 1),
+                        new DailyUsage(LocalDate.of(2024, 1, 3), 2)),
+                window.dailyRequests("a@example.com", NOW, 30));
+    }
+
+    @Test
+    void testTemperatureTrend_SummarizesEachHour() {
+        window.record(NOW.minusHours(2), "10001", "a@example.com", 10.0);
+        window.record(NOW.minusHours(2), "10001", "b@example.com", 14.0);
+        window.record(NOW.minusHours(2), "10001", "b@example.com", null);
+        window.record(NOW, "10001", "a@example.com", 12.0);
+        window.record(NOW, "94105", "a@example.com", 30.0);
+
+        assertEquals(List.of(new TemperatureTrendPoint(LocalDateTime.of(2024, 1, 3, 10, 0), 3, 12.0, 10.0, 14.0),
+                        new TemperatureTrendPoint(LocalDateTime.of(2024, 1, 3, 12, 0), 1, 12.0, 12.0, 12.0)),
+                window.temperatureTrend("10001", NOW, 24));
+    }
+
+    @Test
+    void testRecord_HoursOlderThanTheWindowAreReplaced() {
+        window.record(NOW.minusHours(48), "10001", "a@example.com", null);
+        window.record(NOW, "94105", "a@example.com", null);
+        window.record(NOW.minusHours(48), "10001", "a@example.com", null);
+
+        assertEquals(List.of(new ZipCodeUsage("94105", 1)), window.topZipCodes(NOW, 48, 10));
+    }
+
+    @Test
+    void testTakeChanged_ReturnsChangedHoursOnce() {
+        window.record(NOW, "10001", "a@example.com", 10.0);
+        window.record(NOW, "10001", "a@example.com", 20.0);
+        RequestStatistics restored = new RequestStatistics();
+        restored.add(5.0);
+        window.restore(NOW.minusHours(1), "10001", "a@example.com", restored);
+
+        List<UsageWindow.Bucket> changed = window.takeChanged();
+
+        assertEquals(1, changed.size());
+        assertEquals(LocalDateTime.of(2024, 1, 3, 12, 0), changed.get(0).start());
+        changed.get(0).forEachCell((zipCode, email, statistics) -> {
+            assertEquals("10001", zipCode);
+            assertEquals("a@example.com", email);
+            assertEquals(2, statistics.getRequestCount());
+            assertEquals(15.0, statistics.getAverageTemperature());
+        });
+        assertTrue(window.takeChanged().isEmpty());
+        assertEquals(List.of(new ZipCodeUsage("10001", 3)), window.topZipCodes(NOW, 2, 10));
+    }
+}
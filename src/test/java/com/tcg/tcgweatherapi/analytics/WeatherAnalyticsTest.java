@@ -0,0 +1,111 @@
+package com.tcg.tcgweatherapi.analytics;
+
+import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import com.tcg.tcgweatherapi.entity.WeatherSnapshot;
+import com.tcg.tcgweatherapi.entity.WeatherUsageCheckpoint;
+import com.tcg.tcgweatherapi.repository.WeatherUsageCheckpointRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class WeatherAnalyticsTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 3, 12, 30);
+
+    @Autowired
+    private WeatherUsageCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private WeatherAnalytics weatherAnalytics;
+
+    @BeforeEach
+    void setUp() {
+        weatherAnalytics = newAnalytics();
+    }
+
+    @Test
+    void testCheckpoint_OverwritesChangedHours() {
+        record(weatherAnalytics, newRequest("10001", "a@example.com", 10.0, NOW));
+        record(weatherAnalytics, newRequest("10001", "a@example.com", null, NOW.minusHours(1)));
+        assertEquals(2, weatherAnalytics.checkpoint());
+
+        record(weatherAnalytics, newRequest("10001", "a@example.com", 20.0, NOW));
+        assertEquals(1, weatherAnalytics.checkpoint());
+        assertEquals(0, weatherAnalytics.checkpoint());
+        entityManager.flush();
+        entityManager.clear();
+
+        List<WeatherUsageCheckpoint> checkpoints = checkpointRepository.findAll();
+        assertEquals(2, checkpoints.size());
+        WeatherUsageCheckpoint current = checkpoints.stream()
+                .filter(checkpoint -> checkpoint.getBucketStart().equals(LocalDateTime.of(2024, 1, 3, 12, 0)))
+                .findFirst().orElseThrow();
+        assertEquals(2, current.getStatistics().getRequestCount());
+        assertEquals(15.0, current.getStatistics().getAverageTemperature());
+    }
+
+    @Test
+    void testRestore_RebuildsAnalyticsWithinTheWindow() {
+        record(weatherAnalytics, newRequest("10001", "a@example.com", 10.0, NOW));
+        record(weatherAnalytics, newRequest("94105", "a@example.com", 20.0, NOW.minusHours(2)));
+        weatherAnalytics.checkpoint();
+        WeatherUsageCheckpoint expired = new WeatherUsageCheckpoint();
+        expired.setBucketStart(NOW.minusDays(3));
+        expired.setZipCode("60601");
+        expired.setEmail("a@example.com");
+        expired.getStatistics().add(5.0);
+        checkpointRepository.save(expired);
+        entityManager.flush();
+        entityManager.clear();
+
+        WeatherAnalytics restarted = newAnalytics();
+        record(restarted, newRequest("10001", "b@example.com", 14.0, NOW));
+
+        assertEquals(2, restarted.restore());
+        assertEquals(List.of(new ZipCodeUsage("10001", 2), new ZipCodeUsage("94105", 1)),
+                restarted.topZipCodes(24, 10));
+        assertEquals(12.0, restarted.temperatureTrend("10001", 1).get(0).averageTemperature());
+        assertEquals(2, restarted.dailyRequests("a@example.com", 1).get(0).requests());
+
+        restarted.checkpoint();
+        entityManager.flush();
+        assertEquals(3, checkpointRepository.count(), "checkpoints older than the window are deleted");
+    }
+
+    private WeatherAnalytics newAnalytics() {
+        return new WeatherAnalytics(checkpointRepository, transactionTemplate, true, Duration.ofDays(2),
+                Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    private static void record(WeatherAnalytics analytics, WeatherRequest weatherRequest) {
+        analytics.record(weatherRequest, weatherRequest.getWeatherReport().observation());
+    }
+
+    private static WeatherRequest newRequest(String zipCode, String email, Double temperature,
+                                             LocalDateTime timestamp) {
+        String payload = temperature != null ? "{\"main\":{\"temp\":" + temperature + "}}" : "{}";
+        WeatherRequest weatherRequest = new WeatherRequest();
+        weatherRequest.setEmail(email);
+        weatherRequest.setZipCode(zipCode);
+        weatherRequest.setSnapshot(WeatherSnapshot.of(zipCode, payload));
+        weatherRequest.setTimestamp(timestamp);
+        return weatherRequest;
+    }
+}
@@ -0,0 +1,145 @@
+package com.tcg.tcgweatherapi.audit;
+
+import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import com.tcg.tcgweatherapi.entity.WeatherSnapshot;
+import com.tcg.tcgweatherapi.repository.WeatherRequestRepository;
+import com.tcg.tcgweatherapi.repository.WeatherSnapshotRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+class WeatherRequestStoreTest {
+
+    @Autowired
+    private WeatherRequestRepository weatherRequestRepository;
+
+    @Autowired
+    private WeatherSnapshotRepository weatherSnapshotRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private WeatherRequestStore weatherRequestStore;
+
+    @BeforeEach
+    void setUp() {
+        weatherRequestStore = newStore();
+    }
+
+    @Test
+    void testSaveAll_IdenticalPayloadsShareOneSnapshot() {
+        weatherRequestStore.saveAll(List.of(
+                newRequest("a@example.com", "10001", "Sunny"),
+                newRequest("b@example.com", "10001", "Sunny"),
+                newRequest("c@example.com", "10001-1234", "Sunny"),
+                newRequest("a@example.com", "94105", "Sunny")));
+
+        assertEquals(4, weatherRequestRepository.count());
+        assertEquals(2, weatherSnapshotRepository.count());
+    }
+
+    @Test
+    void testSaveAll_ReusesSnapshotsFromEarlierBatches() {
+        weatherRequestStore.save(newRequest("a@example.com", "10001", "Sunny"));
+        entityManager.flush();
+        entityManager.clear();
+
+        weatherRequestStore.saveAll(List.of(
+                newRequest("b@example.com", "10001", "Sunny"),
+                newRequest("b@example.com", "10001", "Rainy")));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(3, weatherRequestRepository.count());
+        assertEquals(2, weatherSnapshotRepository.count());
+        List<WeatherRequest> history = weatherRequestRepository.findAll();
+        assertEquals(3, history.size());
+        assertEquals(2, history.stream().filter(request -> "Sunny".equals(request.getWeatherDetails())).count());
+    }
+
+    @Test
+    void testSaveAll_NewStoreLooksUpExistingSnapshots() {
+        weatherRequestStore.save(newRequest("a@example.com", "10001", "Sunny"));
+        entityManager.flush();
+        entityManager.clear();
+
+        newStore().save(newRequest("b@example.com", "10001", "Sunny"));
+        entityManager.flush();
+
+        assertEquals(1, weatherSnapshotRepository.count());
+    }
+
+    @Test
+    void testSaveAll_LeavesSubmittedRequestsUnchanged() {
+        weatherRequestStore.save(newRequest("a@example.com", "10001", "Sunny"));
+        entityManager.flush();
+        entityManager.clear();
+
+        WeatherRequest weatherRequest = newRequest("b@example.com", "10001", "Sunny");
+        WeatherSnapshot snapshot = weatherRequest.getSnapshot();
+        newStore().save(weatherRequest);
+        entityManager.flush();
+
+        assertNull(weatherRequest.getId());
+        assertSame(snapshot, weatherRequest.getSnapshot());
+        assertTrue(snapshot.isNew());
+        assertEquals("Sunny", weatherRequest.getWeatherDetails());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testSaveAll_RetriesAfterConcurrentSnapshotInsert() {
+        try {
+            weatherRequestStore.save(newRequest("a@example.com", "10001", "Sunny"));
+
+            // Another writer inserted the snapshot between this writer's lookup and its insert
+            WeatherSnapshotRepository racingRepository =
+                    mock(WeatherSnapshotRepository.class, delegatesTo(weatherSnapshotRepository));
+            doReturn(List.of()).doAnswer(delegatesTo(weatherSnapshotRepository))
+                    .when(racingRepository).findExistingIds(anyCollection());
+            WeatherRequestStore racingStore =
+                    new WeatherRequestStore(weatherRequestRepository, racingRepository, transactionTemplate);
+
+            racingStore.saveAll(List.of(
+                    newRequest("b@example.com", "10001", "Sunny"),
+                    newRequest("b@example.com", "94105", "Rainy")));
+
+            assertEquals(3, weatherRequestRepository.count());
+            assertEquals(2, weatherSnapshotRepository.count());
+        } finally {
+            weatherRequestRepository.deleteAllInBatch();
+            weatherSnapshotRepository.deleteAllInBatch();
+        }
+    }
+
+    private WeatherRequestStore newStore() {
+        return new WeatherRequestStore(weatherRequestRepository, weatherSnapshotRepository, transactionTemplate);
+    }
+
+    private static WeatherRequest newRequest(String email, String zipCode, String weatherDetails) {
+        WeatherRequest weatherRequest = new WeatherRequest();
+        weatherRequest.setEmail(email);
+        weatherRequest.setZipCode(zipCode);
+        weatherRequest.setSnapshot(WeatherSnapshot.of(zipCode.substring(0, 5), weatherDetails));
+        weatherRequest.setTimestamp(LocalDateTime.now());
+        return weatherRequest;
+    }
+}
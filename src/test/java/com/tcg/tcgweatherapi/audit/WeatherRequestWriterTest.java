@@ -0,0 +1,187 @@
+package com.tcg.tcgweatherapi.audit;
+
+import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import com.tcg.tcgweatherapi.entity.WeatherSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WeatherRequestWriterTest {
+
+    @Mock
+    private WeatherRequestStore weatherRequestStore;
+
+    private WeatherRequestWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void testSubmit_WritesInBatches() {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            batchSizes.add(invocation.<List<?>>getArgument(0).size());
+            return invocation.getArgument(0);
+        }).when(weatherRequestStore).saveAll(anyList());
+        writer = newWriter(100, 10, OverflowPolicy.CALLER_RUNS);
+        writer.start();
+
+        for (int i = 0; i < 25; i++) {
+            writer.submit(newRequest(i));
+        }
+        writer.stop();
+
+        assertTrue(batchSizes.size() >= 3);
+        assertEquals(25, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 10));
+        assertEquals(25, writer.writtenCount());
+        verify(weatherRequestStore, never()).save(any(WeatherRequest.class));
+    }
+
+    @Test
+    void testSubmit_NotRunningSavesSynchronously() {
+        writer = newWriter(100, 10, OverflowPolicy.CALLER_RUNS);
+        WeatherRequest weatherRequest = newRequest(1);
+
+        writer.submit(weatherRequest);
+
+        verify(weatherRequestStore, times(1)).save(weatherRequest);
+    }
+
+    @Test
+    void testSubmit_DisabledSavesSynchronously() {
+        writer = new WeatherRequestWriter(weatherRequestStore, false, 100, 10, Duration.ofMillis(50),
+                OverflowPolicy.CALLER_RUNS, Duration.ZERO, Duration.ofSeconds(5));
+        writer.start();
+        WeatherRequest weatherRequest = newRequest(1);
+
+        writer.submit(weatherRequest);
+
+        assertFalse(writer.isRunning());
+        verify(weatherRequestStore, times(1)).save(weatherRequest);
+    }
+
+    @Test
+    void testSubmitAll_NotRunningSavesOneBatch() {
+        writer = newWriter(100, 10, OverflowPolicy.CALLER_RUNS);
+        List<WeatherRequest> weatherRequests = List.of(newRequest(1), newRequest(2), newRequest(3));
+
+        writer.submitAll(weatherRequests);
+
+        verify(weatherRequestStore, times(1)).saveAll(weatherRequests);
+        verify(weatherRequestStore, never()).save(any(WeatherRequest.class));
+    }
+
+    @Test
+    void testSubmit_CallerRunsWhenQueueFull() throws Exception {
+        writer = newWriter(1, 1, OverflowPolicy.CALLER_RUNS);
+        CountDownLatch release = blockWriterOnFirstBatch();
+
+        WeatherRequest overflow = newRequest(3);
+        writer.submit(overflow);
+
+        verify(weatherRequestStore, times(1)).save(overflow);
+        release.countDown();
+    }
+
+    @Test
+    void testSubmit_DropWhenQueueFull() throws Exception {
+        writer = newWriter(1, 1, OverflowPolicy.DROP);
+        CountDownLatch release = blockWriterOnFirstBatch();
+
+        writer.submit(newRequest(3));
+
+        assertEquals(1, writer.droppedCount());
+        verify(weatherRequestStore, never()).save(any(WeatherRequest.class));
+        release.countDown();
+    }
+
+    @Test
+    void testBindTo_ReportsQueueDepthAndBatchWrites() throws Exception {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        writer = newWriter(1, 1, OverflowPolicy.DROP);
+        writer.bindTo(registry);
+        CountDownLatch release = blockWriterOnFirstBatch();
+
+        writer.submit(newRequest(3));
+
+        assertEquals(1, registry.get("weather.audit.queue.depth").gauge().value());
+        assertEquals(1, registry.get("weather.audit.rows").tag("result", "dropped").functionCounter().count());
+        release.countDown();
+        writer.stop();
+        assertEquals(2, registry.get("weather.audit.rows").tag("result", "written").functionCounter().count());
+        assertTrue(registry.get("weather.audit.batch.write").timer().count() >= 1);
+    }
+
+    @Test
+    void testStop_DrainsQueuedRows() {
+        writer = newWriter(1_000, 100, OverflowPolicy.CALLER_RUNS);
+        writer.start();
+
+        for (int i = 0; i < 500; i++) {
+            writer.submit(newRequest(i));
+        }
+        writer.stop();
+
+        assertEquals(0, writer.queueDepth());
+        assertEquals(500, writer.writtenCount());
+    }
+
+    /**
+     * Starts the writer and parks it inside the first batch write, with one more row queued behind it,
+     * so the queue of capacity one is full.
+     */
+    private CountDownLatch blockWriterOnFirstBatch() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        }).when(weatherRequestStore).saveAll(anyList());
+
+        writer.start();
+        writer.submit(newRequest(1));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        writer.submit(newRequest(2));
+        assertEquals(1, writer.queueDepth());
+        return release;
+    }
+
+    private WeatherRequestWriter newWriter(int capacity, int batchSize, OverflowPolicy overflowPolicy) {
+        return new WeatherRequestWriter(weatherRequestStore, true, capacity, batchSize, Duration.ofMillis(50),
+                overflowPolicy, Duration.ZERO, Duration.ofSeconds(5));
+    }
+
+    private static WeatherRequest newRequest(int i) {
+        WeatherRequest weatherRequest = new WeatherRequest();
+        weatherRequest.setEmail("user" + i + "@example.com");
+        weatherRequest.setZipCode("10001");
+        weatherRequest.setSnapshot(WeatherSnapshot.of("10001", "Sunny"));
+        weatherRequest.setTimestamp(LocalDateTime.now());
+        return weatherRequest;
+    }
+}
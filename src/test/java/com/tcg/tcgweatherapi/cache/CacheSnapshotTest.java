@@ -0,0 +1,87 @@
+package com.tcg.tcgweatherapi.cache;
+
+import com.tcg.tcgweatherapi.model.WeatherReport;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class CacheSnapshotTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testWriteTo_RoundTrips() throws IOException {
+        Instant now = Instant.ofEpochMilli(1_700_000_000_000L);
+        CacheSnapshot snapshot = new CacheSnapshot(now,
+                Map.of("10001", new CachedWeather(WeatherReport.parse("{ \"weather\": \"Sunny ☀\" }"), now.minusSeconds(60)),
+                        "94105", new CachedWeather(WeatherReport.parse("{ \"weather\": \"Fog\" }"), now.minusSeconds(120))),
+                List.of(new ExpiringUserStatus("test@example.com", new UserStatus(7L, true), now.plusSeconds(300)),
+                        new ExpiringUserStatus("off@example.com", new UserStatus(8L, false), now.plusSeconds(60))));
+        Path path = directory.resolve("nested").resolve("cache-snapshot.bin");
+
+        snapshot.writeTo(path);
+
+        assertEquals(snapshot, CacheSnapshot.readFrom(path));
+        try (var files = Files.list(path.getParent())) {
+            assertEquals(List.of(path), files.toList(), "no temporary file is left behind");
+        }
+    }
+
+    @Test
+    void testWriteTo_ReplacesEarlierSnapshot() throws IOException {
+        Path path = directory.resolve("cache-snapshot.bin");
+        Instant now = Instant.ofEpochMilli(System.currentTimeMillis());
+        new CacheSnapshot(now, Map.of("10001", new CachedWeather(WeatherReport.parse("Sunny"), now)), List.of()).writeTo(path);
+
+        CacheSnapshot latest =
+                new CacheSnapshot(now, Map.of("94105", new CachedWeather(WeatherReport.parse("Fog"), now)), List.of());
+        latest.writeTo(path);
+
+        assertEquals(latest, CacheSnapshot.readFrom(path));
+    }
+
+    @Test
+    void testWriteTo_RestrictsFileToOwner() throws IOException {
+        assumeTrue(Files.getFileAttributeView(directory, PosixFileAttributeView.class) != null);
+        Path path = directory.resolve("cache-snapshot.bin");
+        Instant now = Instant.ofEpochMilli(System.currentTimeMillis());
+        new CacheSnapshot(now, Map.of(),
+                List.of(new ExpiringUserStatus("test@example.com", new UserStatus(7L, true), now))).writeTo(path);
+
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(path)));
+    }
+
+    @Test
+    void testReadFrom_RejectsOtherFiles() throws IOException {
+        Path path = directory.resolve("cache-snapshot.bin");
+        Files.writeString(path, "not a snapshot");
+
+        assertThrows(IOException.class, () -> CacheSnapshot.readFrom(path));
+    }
+
+    @Test
+    void testReadFrom_RejectsTruncatedSnapshot() throws IOException {
+        Path path = directory.resolve("cache-snapshot.bin");
+        Instant now = Instant.ofEpochMilli(System.currentTimeMillis());
+        new CacheSnapshot(now, Map.of("10001", new CachedWeather(WeatherReport.parse("Sunny"), now)), List.of()).writeTo(path);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 6));
+
+        Exception exception = assertThrows(IOException.class, () -> CacheSnapshot.readFrom(path));
+        assertTrue(exception.getMessage().startsWith("Truncated or corrupt cache snapshot"));
+    }
+}
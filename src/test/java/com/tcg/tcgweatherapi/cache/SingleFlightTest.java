@@ -0,0 +1,163 @@
+package com.tcg.tcgweatherapi.cache;
+
+import com.tcg.tcgweatherapi.exceptions.WeatherUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 64;
+    private static final Duration WAIT = Duration.ofSeconds(5);
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testExecute_ConcurrentCallersShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return singleFlight.execute("10001", () -> {
+                    loads.incrementAndGet();
+                    awaitCoalesced(CALLERS - 1);
+                    return "Sunny";
+                }, WAIT);
+            }));
+        }
+        start.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("Sunny", result.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(CALLERS - 1, singleFlight.coalescedCount());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void testExecute_FailureIsSharedWithWaiters() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return singleFlight.execute("10001", () -> {
+                    loads.incrementAndGet();
+                    awaitCoalesced(CALLERS - 1);
+                    throw new RuntimeException("Error fetching weather data: 404");
+                }, WAIT);
+            }));
+        }
+        start.countDown();
+
+        for (Future<String> result : results) {
+            ExecutionException exception = assertThrows(ExecutionException.class,
+                    () -> result.get(10, TimeUnit.SECONDS));
+            assertEquals("Error fetching weather data: 404", exception.getCause().getMessage());
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testExecute_WaiterTimesOut() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("10001", () -> {
+            leaderStarted.countDown();
+            awaitQuietly(releaseLeader);
+            return "Sunny";
+        }, WAIT));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        Exception exception = assertThrows(WeatherUnavailableException.class,
+                () -> singleFlight.execute("10001", () -> "Rainy", Duration.ofMillis(50)));
+        assertTrue(exception.getMessage().contains("Timed out"));
+
+        releaseLeader.countDown();
+        assertEquals("Sunny", leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testExecute_DistinctKeysLoadIndependently() {
+        assertEquals("10001", singleFlight.execute("10001", () -> "10001", WAIT));
+        assertEquals("94105", singleFlight.execute("94105", () -> "94105", WAIT));
+        assertEquals(0, singleFlight.coalescedCount());
+    }
+
+    @Test
+    void testExecute_CompletedLoadIsNotReused() {
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute("10001", () -> "v" + loads.incrementAndGet(), WAIT);
+        String second = singleFlight.execute("10001", () -> "v" + loads.incrementAndGet(), WAIT);
+
+        assertEquals("v2", second);
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void testExecuteAsync_CallersShareOneLoadUntilItCompletes() {
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+
+        CompletableFuture<String> first = singleFlight.executeAsync("10001", () -> {
+            loads.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<String> second = singleFlight.executeAsync("10001", () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+
+        assertFalse(first.isDone());
+        assertEquals(1, singleFlight.inFlightCount());
+        upstream.complete("Sunny");
+
+        assertEquals("Sunny", first.join());
+        assertEquals("Sunny", second.join());
+        assertEquals(1, loads.get());
+        assertEquals(1, singleFlight.coalescedCount());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    private void awaitCoalesced(int expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.coalescedCount() < expected && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
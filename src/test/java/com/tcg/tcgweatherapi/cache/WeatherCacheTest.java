@@ -0,0 +1,165 @@
+package com.tcg.tcgweatherapi.cache;
+
+import com.tcg.tcgweatherapi.model.WeatherReport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeatherCacheTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final List<Runnable> pendingRefreshes = new ArrayList<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<String, WeatherReport> loader =
+            zipCode -> WeatherReport.parse(zipCode + "-v" + loads.incrementAndGet());
+
+    private WeatherCache weatherCache;
+
+    @BeforeEach
+    void setUp() {
+        weatherCache = new WeatherCache(100, Duration.ofMinutes(10), Duration.ofMinutes(5),
+                pendingRefreshes::add, clock);
+    }
+
+    @Test
+    void testGet_MissLoadsAndCaches() {
+        assertEquals("10001-v1", weatherCache.get("10001", loader).payload());
+        assertEquals("10001-v1", weatherCache.get("10001", loader).payload());
+        assertEquals(1, loads.get());
+        assertTrue(pendingRefreshes.isEmpty());
+    }
+
+    @Test
+    void testGet_StaleEntryServedWhileRefreshing() {
+        weatherCache.get("10001", loader);
+        clock.advance(Duration.ofMinutes(11));
+
+        assertEquals("10001-v1", weatherCache.get("10001", loader).payload());
+        assertEquals("10001-v1", weatherCache.get("10001", loader).payload());
+        assertEquals(1, pendingRefreshes.size(), "only one refresh is scheduled per ZIP code");
+
+        pendingRefreshes.remove(0).run();
+
+        assertEquals("10001-v2", weatherCache.get("10001", loader).payload());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testBindTo_ReportsHitsMissesAndStaleServes() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        weatherCache.bindTo(registry);
+
+        weatherCache.get("10001", loader);
+        weatherCache.get("10001", loader);
+        clock.advance(Duration.ofMinutes(11));
+        weatherCache.get("10001", loader);
+
+        assertEquals(2, registry.get("cache.gets").tags("cache", "weather", "result", "hit").functionCounter()
+                .count());
+        assertEquals(1, registry.get("cache.gets").tags("cache", "weather", "result", "miss").functionCounter()
+                .count());
+        assertEquals(1, registry.get("weather.cache.stale").functionCounter().count());
+        assertEquals(1, registry.get("weather.cache.refreshes").gauge().value());
+    }
+
+    @Test
+    void testGet_StaleEntryRefreshedThroughRefresher() {
+        Function<String, WeatherReport> refresher = zipCode -> WeatherReport.parse(zipCode + "-refreshed");
+        weatherCache.get("10001", loader, refresher);
+        clock.advance(Duration.ofMinutes(11));
+
+        assertEquals("10001-v1", weatherCache.get("10001", loader, refresher).payload());
+        pendingRefreshes.remove(0).run();
+
+        assertEquals("10001-refreshed", weatherCache.get("10001", loader, refresher).payload());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testRestore_KeepsFetchTimeAndNewerEntries() {
+        Instant fetchedAt = clock.instant().minus(Duration.ofMinutes(12));
+        assertTrue(weatherCache.restore("10001", new CachedWeather(WeatherReport.parse("restored"), fetchedAt)));
+
+        assertFalse(weatherCache.isFresh("10001", Duration.ZERO));
+        assertEquals("restored", weatherCache.get("10001", loader).payload());
+        assertEquals(1, pendingRefreshes.size());
+
+        weatherCache.put("94105", WeatherReport.parse("cached"));
+        assertFalse(weatherCache.restore("94105", new CachedWeather(WeatherReport.parse("restored"), fetchedAt)));
+        assertFalse(weatherCache.restore("60601",
+                new CachedWeather(WeatherReport.parse("expired"), fetchedAt.minus(Duration.ofMinutes(5)))));
+        assertEquals(Map.of("10001", new CachedWeather(WeatherReport.parse("restored"), fetchedAt),
+                "94105", new CachedWeather(WeatherReport.parse("cached"), clock.instant())), weatherCache.entries());
+    }
+
+    @Test
+    void testGet_ExpiredEntryLoadsSynchronously() {
+        weatherCache.get("10001", loader);
+        clock.advance(Duration.ofMinutes(16));
+
+        assertEquals("10001-v2", weatherCache.get("10001", loader).payload());
+        assertTrue(pendingRefreshes.isEmpty());
+    }
+
+    @Test
+    void testGet_FailedRefreshKeepsStaleEntry() {
+        weatherCache.get("10001", loader);
+        clock.advance(Duration.ofMinutes(11));
+
+        weatherCache.get("10001", zipCode -> {
+            throw new RuntimeException("upstream down");
+        });
+        pendingRefreshes.remove(0).run();
+
+        assertEquals("10001-v1", weatherCache.get("10001", loader).payload());
+        assertEquals(1, pendingRefreshes.size(), "a new refresh may be scheduled after a failure");
+    }
+
+    @Test
+    void testGet_LoaderFailurePropagatesOnMiss() {
+        Exception exception = assertThrows(RuntimeException.class, () -> weatherCache.get("10001", zipCode -> {
+            throw new RuntimeException("upstream down");
+        }));
+
+        assertEquals("upstream down", exception.getMessage());
+        assertEquals(0, weatherCache.size());
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
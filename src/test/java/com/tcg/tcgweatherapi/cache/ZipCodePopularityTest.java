@@ -0,0 +1,65 @@
+package com.tcg.tcgweatherapi.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZipCodePopularityTest {
+
+    private final ZipCodePopularity popularity = new ZipCodePopularity(1024, 3, 2);
+
+    @Test
+    void testEstimate_NeverUndercounts() {
+        for (int zipCode = 10000; zipCode < 12000; zipCode++) {
+            popularity.record(String.valueOf(zipCode));
+        }
+        record("10001", 5);
+
+        assertTrue(popularity.estimate("10001") >= 6);
+        assertTrue(popularity.estimate("11999") >= 1);
+    }
+
+    @Test
+    void testHotSet_MostRequestedFirst() {
+        record("10001", 2);
+        record("94105", 9);
+        record("60601", 5);
+        record("30301", 1);
+
+        assertEquals(List.of("94105", "60601", "10001"), popularity.hotSet());
+    }
+
+    @Test
+    void testHotSet_BoundedBySize() {
+        for (int zipCode = 10000; zipCode < 10020; zipCode++) {
+            record(String.valueOf(zipCode), 2 + zipCode % 10);
+        }
+
+        List<String> hotSet = popularity.hotSet();
+
+        assertEquals(3, hotSet.size());
+        assertEquals(List.of("10009", "10019"), hotSet.subList(0, 2).stream().sorted().toList());
+    }
+
+    @Test
+    void testDecay_FollowsShiftingTraffic() {
+        record("10001", 8);
+        popularity.decay();
+        record("94105", 12);
+
+        assertEquals(List.of("94105", "10001"), popularity.hotSet());
+
+        popularity.decay();
+        popularity.decay();
+
+        assertEquals(List.of("94105"), popularity.hotSet());
+    }
+
+    private void record(String zipCode, int times) {
+        for (int i = 0; i < times; i++) {
+            popularity.record(zipCode);
+        }
+    }
+}
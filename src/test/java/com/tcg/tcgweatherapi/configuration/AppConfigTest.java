@@ -0,0 +1,103 @@
+package com.tcg.tcgweatherapi.configuration;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.Configurable;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AppConfigTest {
+
+    private final AppConfig appConfig = new AppConfig();
+
+    @Test
+    void testWeatherApiConnectionManager_AppliesPoolLimits() {
+        try (PoolingHttpClientConnectionManager connectionManager = connectionManager(7, 3)) {
+            assertEquals(7, connectionManager.getMaxTotal());
+            assertEquals(3, connectionManager.getDefaultMaxPerRoute());
+        }
+    }
+
+    @Test
+    void testWeatherApiHttpClient_AppliesRequestTimeouts() throws Exception {
+        try (CloseableHttpClient httpClient = appConfig.weatherApiHttpClient(connectionManager(7, 3),
+                Duration.ofSeconds(4), Duration.ofMillis(1500), Duration.ofSeconds(20), Duration.ofSeconds(10))) {
+            RequestConfig requestConfig = ((Configurable) httpClient).getConfig();
+
+            assertEquals(Timeout.ofSeconds(4), requestConfig.getResponseTimeout());
+            assertEquals(Timeout.ofMilliseconds(1500), requestConfig.getConnectionRequestTimeout());
+            assertEquals(TimeValue.ofSeconds(20), requestConfig.getConnectionKeepAlive());
+        }
+    }
+
+    @Test
+    void testRestTemplate_UsesPooledHttpClient() throws Exception {
+        try (CloseableHttpClient httpClient = appConfig.weatherApiHttpClient(connectionManager(7, 3),
+                Duration.ofSeconds(4), Duration.ofSeconds(1), Duration.ofSeconds(30), Duration.ofSeconds(30))) {
+            RestTemplate restTemplate = appConfig.restTemplate(httpClient);
+
+            HttpComponentsClientHttpRequestFactory requestFactory =
+                    assertInstanceOf(HttpComponentsClientHttpRequestFactory.class, restTemplate.getRequestFactory());
+            assertSame(httpClient, requestFactory.getHttpClient());
+        }
+    }
+
+    @Test
+    void testRestTemplate_TimesOutWaitingForResponse() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             CloseableHttpClient httpClient = appConfig.weatherApiHttpClient(connectionManager(7, 3),
+                     Duration.ofMillis(200), Duration.ofSeconds(1), Duration.ofSeconds(30), Duration.ofSeconds(30))) {
+            RestTemplate restTemplate = appConfig.restTemplate(httpClient);
+
+            // The server never accepts or answers, so only the response timeout ends the call
+            Exception exception = assertThrows(ResourceAccessException.class,
+                    () -> restTemplate.getForObject(url(server), String.class));
+            assertInstanceOf(SocketTimeoutException.class, exception.getCause());
+        }
+    }
+
+    @Test
+    void testRestTemplate_TimesOutWaitingForPooledConnection() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             PoolingHttpClientConnectionManager connectionManager = connectionManager(1, 1);
+             CloseableHttpClient httpClient = appConfig.weatherApiHttpClient(connectionManager,
+                     Duration.ofSeconds(5), Duration.ofMillis(200), Duration.ofSeconds(30), Duration.ofSeconds(30))) {
+            RestTemplate restTemplate = appConfig.restTemplate(httpClient);
+            HttpRoute route = new HttpRoute(new HttpHost("http", server.getInetAddress(), server.getLocalPort()));
+            ConnectionEndpoint held = connectionManager.lease("held", route, Timeout.ofSeconds(1), null)
+                    .get(Timeout.ofSeconds(1));
+            try {
+                Exception exception = assertThrows(ResourceAccessException.class,
+                        () -> restTemplate.getForObject(url(server), String.class));
+                assertInstanceOf(ConnectionRequestTimeoutException.class, exception.getCause());
+            } finally {
+                connectionManager.release(held, null, TimeValue.ZERO_MILLISECONDS);
+            }
+        }
+    }
+
+    private PoolingHttpClientConnectionManager connectionManager(int maxTotal, int maxPerRoute) {
+        return appConfig.weatherApiConnectionManager(maxTotal, maxPerRoute, Duration.ofMinutes(5),
+                Duration.ofSeconds(2), Duration.ofSeconds(5));
+    }
+
+    private static String url(ServerSocket server) {
+        return "http://" + server.getInetAddress().getHostAddress() + ":" + server.getLocalPort() + "/weather";
+    }
+}
@@ -0,0 +1,60 @@
+package com.tcg.tcgweatherapi.controller;
+
+import com.tcg.tcgweatherapi.analytics.TemperatureTrendPoint;
+import com.tcg.tcgweatherapi.analytics.WeatherAnalytics;
+import com.tcg.tcgweatherapi.analytics.ZipCodeUsage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AnalyticsControllerTest {
+
+    @Mock
+    private WeatherAnalytics weatherAnalytics;
+
+    @InjectMocks
+    private AnalyticsController analyticsController;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testGetTopZipCodes_ClampsLimit() {
+        when(weatherAnalytics.topZipCodes(24, 100)).thenReturn(List.of(new ZipCodeUsage("10001", 3)));
+
+        ResponseEntity<List<ZipCodeUsage>> response = analyticsController.getTopZipCodes(24, 10_000);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(List.of(new ZipCodeUsage("10001", 3)), response.getBody());
+    }
+
+    @Test
+    void testGetTemperatureTrend_CanonicalizesZipCode() {
+        List<TemperatureTrendPoint> trend =
+                List.of(new TemperatureTrendPoint(LocalDateTime.of(2024, 1, 1, 12, 0), 1, 12.0, 12.0, 12.0));
+        when(weatherAnalytics.temperatureTrend("10001", 24)).thenReturn(trend);
+
+        ResponseEntity<List<TemperatureTrendPoint>> response = analyticsController.getTemperatureTrend("10001-1234", 24);
+
+        assertEquals(trend, response.getBody());
+    }
+
+    @Test
+    void testGetTemperatureTrend_InvalidZipCode() {
+        ResponseEntity<List<TemperatureTrendPoint>> response = analyticsController.getTemperatureTrend("abc", 24);
+
+        assertEquals(400, response.getStatusCode().value());
+        verifyNoInteractions(weatherAnalytics);
+    }
+}
@@ -0,0 +1,55 @@
+package com.tcg.tcgweatherapi.controller;
+
+import com.tcg.tcgweatherapi.service.WeatherExportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"cache.snapshot.enabled=false", "weather.export.max-concurrent=1",
+                "weather.export.queue-capacity=0"})
+class HistoryExportLimitTest {
+
+    private static final String EXPORT_URL = "/api/v1/users/history/export?zipCode=10001";
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private WeatherExportService weatherExportService;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private Executor applicationTaskExecutor;
+
+    @Test
+    void testExportHistory_RejectedWhenExportPoolIsFull() {
+        CountDownLatch release = new CountDownLatch(1);
+        // Occupies the only export thread
+        weatherExportService.getExecutor().execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            assertEquals(503, restTemplate.getForEntity(EXPORT_URL, String.class).getStatusCode().value());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testExportHistory_RunsOffTheApplicationTaskExecutor() {
+        assertNotSame(applicationTaskExecutor, weatherExportService.getExecutor());
+    }
+}
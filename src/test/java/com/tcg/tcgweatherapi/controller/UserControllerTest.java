@@ -1,21 +1,56 @@
 package com.tcg.tcgweatherapi.controller;
 
+import com.tcg.tcgweatherapi.cache.UserStatus;
 import com.tcg.tcgweatherapi.entity.User;
 import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import com.tcg.tcgweatherapi.entity.WeatherSnapshot;
+import com.tcg.tcgweatherapi.exceptions.WeatherUnavailableException;
+import com.tcg.tcgweatherapi.model.WeatherReport;
+import com.tcg.tcgweatherapi.repository.WeatherRequestSummary;
 import com.tcg.tcgweatherapi.request.dto.UserRegistrationRequest;
+import com.tcg.tcgweatherapi.request.dto.WeatherBatchRequestDTO;
+import com.tcg.tcgweatherapi.response.dto.WeatherBatchResponseDTO;
 import com.tcg.tcgweatherapi.response.dto.WeatherResponseDTO;
+import com.tcg.tcgweatherapi.service.HistoryPage;
 import com.tcg.tcgweatherapi.service.UserService;
+import com.tcg.tcgweatherapi.service.WeatherBatchService;
+import com.tcg.tcgweatherapi.service.WeatherExportService;
+import com.tcg.tcgweatherapi.service.WeatherResult;
 import com.tcg.tcgweatherapi.service.WeatherService;
+import com.tcg.tcgweatherapi.service.ZipWeatherResult;
 import com.tcg.tcgweatherapi.validator.ZipCodeValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.MockedStatic;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,6 +63,20 @@ class UserControllerTest {
     @Mock
     private WeatherService weatherService;
 
+    @Mock
+    private WeatherExportService weatherExportService;
+
+    @Mock
+    private WeatherBatchService weatherBatchService;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private RequestStageTimers stageTimers = new RequestStageTimers(meterRegistry);
+
+    @Spy
+    private Executor applicationTaskExecutor = new SyncTaskExecutor();
+
     @InjectMocks
     private UserController userController;
 
@@ -41,7 +90,7 @@ class UserControllerTest {
         UserRegistrationRequest request = new UserRegistrationRequest();
         request.setEmail("test@example.com");
 
-        doNothing().when(userService).registerUser(request.getEmail());
+        when(userService.registerUser(request.getEmail())).thenReturn(new User());
 
         ResponseEntity<String> response = userController.registerUser(request);
 
@@ -65,96 +114,348 @@ class UserControllerTest {
 
     @Test
     void testGetWeather_UserNotFound() {
-        when(userService.getUserByEmail("test@example.com")).thenReturn(null);
+        when(userService.getUserStatus("test@example.com")).thenReturn(null);
 
-        ResponseEntity<WeatherResponseDTO> response = userController.getWeather("test@example.com", "12345");
+        ResponseEntity<WeatherResponseDTO> response = userController.getWeather("test@example.com", "12345").join();
 
         assertEquals(400, response.getStatusCodeValue());
         assertNotNull(response.getBody());
         assertEquals("User not found. Please register and then use the API.", response.getBody().getWeatherDetails());
-        verify(userService, times(1)).getUserByEmail("test@example.com");
+        assertEquals("User not found. Please register and then use the API.", response.getBody().getMessage());
+        verify(userService, times(1)).getUserStatus("test@example.com");
     }
 
     @Test
     void testGetWeather_UserInactive() {
-        User inactiveUser = new User();
-        inactiveUser.setActive(false);
+        UserStatus inactiveUser = new UserStatus(1L, false);
 
-        when(userService.getUserByEmail("test@example.com")).thenReturn(inactiveUser);
+        when(userService.getUserStatus("test@example.com")).thenReturn(inactiveUser);
 
-        ResponseEntity<WeatherResponseDTO> response = userController.getWeather("test@example.com", "12345");
+        ResponseEntity<WeatherResponseDTO> response = userController.getWeather("test@example.com", "12345").join();
 
         assertEquals(403, response.getStatusCodeValue());
         assertNotNull(response.getBody());
         assertEquals("User is inactive. Please activate your account to use the API.", response.getBody().getWeatherDetails());
-        verify(userService, times(1)).getUserByEmail("test@example.com");
+        assertEquals("User is inactive. Please activate your account to use the API.", response.getBody().getMessage());
+        verify(userService, times(1)).getUserStatus("test@example.com");
     }
 
     @Test
     void testGetWeather_InvalidZipCode() {
-        User activeUser = new User();
-        activeUser.setActive(true);
+        UserStatus activeUser = new UserStatus(1L, true);
 
-        when(userService.getUserByEmail("test@example.com")).thenReturn(activeUser);
-        mockStatic(ZipCodeValidator.class);
-        when(ZipCodeValidator.isValidUSZipCode("invalid-zip")).thenReturn(false);
+        when(userService.getUserStatus("test@example.com")).thenReturn(activeUser);
+        try (MockedStatic<ZipCodeValidator> zipCodeValidator = mockStatic(ZipCodeValidator.class)) {
+            zipCodeValidator.when(() -> ZipCodeValidator.isValidUSZipCode("invalid-zip")).thenReturn(false);
 
-        ResponseEntity<WeatherResponseDTO> response = userController.getWeather("test@example.com", "invalid-zip");
+            ResponseEntity<WeatherResponseDTO> response =
+                    userController.getWeather("test@example.com", "invalid-zip").join();
 
-        assertEquals(400, response.getStatusCodeValue());
-        assertNull(response.getBody());
-        verify(userService, times(1)).getUserByEmail("test@example.com");
+            assertEquals(400, response.getStatusCodeValue());
+            assertNull(response.getBody());
+            verify(userService, times(1)).getUserStatus("test@example.com");
+        }
     }
 
     @Test
     void testGetWeather_Success() {
-        User activeUser = new User();
-        activeUser.setActive(true);
+        UserStatus activeUser = new UserStatus(1L, true);
 
         WeatherRequest weatherRequest = new WeatherRequest();
         weatherRequest.setEmail("test@example.com");
         weatherRequest.setZipCode("12345");
-        weatherRequest.setWeatherDetails("Sunny");
+        weatherRequest.setSnapshot(WeatherSnapshot.of("12345", "Sunny"));
         weatherRequest.setTimestamp(LocalDateTime.now());
+        WeatherReport report = WeatherReport.parse("{\"main\":{\"temp\":71.6,\"humidity\":40}}");
+
+        when(userService.getUserStatus("test@example.com")).thenReturn(activeUser);
+        when(weatherService.getWeatherByZipCodeAsync("12345"))
+                .thenReturn(CompletableFuture.completedFuture(new WeatherResult(report, false)));
+        when(weatherService.saveWeatherRequest("test@example.com", "12345", report)).thenReturn(weatherRequest);
+
+        try (MockedStatic<ZipCodeValidator> zipCodeValidator = mockStatic(ZipCodeValidator.class)) {
+            zipCodeValidator.when(() -> ZipCodeValidator.isValidUSZipCode("12345")).thenReturn(true);
+
+            ResponseEntity<WeatherResponseDTO> response = userController.getWeather("test@example.com", "12345").join();
+
+            assertEquals(200, response.getStatusCodeValue());
+            assertNotNull(response.getBody());
+            assertEquals(71.6, response.getBody().getWeather().temperature());
+            assertEquals(40, response.getBody().getWeather().humidity());
+            assertEquals("{\"main\":{\"temp\":71.6,\"humidity\":40}}", response.getBody().getWeatherDetails());
+            assertEquals("test@example.com", response.getBody().getEmail());
+            assertEquals("12345", response.getBody().getZipCode());
+            assertFalse(response.getBody().isStale());
+            verify(userService, times(1)).getUserStatus("test@example.com");
+        }
+    }
 
-        when(userService.getUserByEmail("test@example.com")).thenReturn(activeUser);
-        mockStatic(ZipCodeValidator.class);
-        when(ZipCodeValidator.isValidUSZipCode("12345")).thenReturn(true);
-        when(weatherService.getWeatherByZipCode("12345")).thenReturn("Sunny");
-        when(weatherService.saveWeatherRequest("test@example.com", "12345", "Sunny")).thenReturn(weatherRequest);
+    @Test
+    void testGetWeather_RecordsEveryStage() {
+        WeatherRequest weatherRequest = new WeatherRequest();
+        weatherRequest.setTimestamp(LocalDateTime.now());
+        WeatherReport report = WeatherReport.parse("{\"main\":{\"temp\":71.6,\"humidity\":40}}");
 
-        ResponseEntity<WeatherResponseDTO> response = userController.getWeather("test@example.com", "12345");
+        when(userService.getUserStatus("test@example.com")).thenReturn(new UserStatus(1L, true));
+        when(weatherService.getWeatherByZipCodeAsync("12345"))
+                .thenReturn(CompletableFuture.completedFuture(new WeatherResult(report, false)));
+        when(weatherService.saveWeatherRequest("test@example.com", "12345", report)).thenReturn(weatherRequest);
 
-        assertEquals(200, response.getStatusCodeValue());
+        userController.getWeather("test@example.com", "12345").join();
+
+        for (String stage : List.of("user-lookup", "zip-validation", "weather-fetch", "audit")) {
+            assertEquals(1, meterRegistry.get("weather.request.stage").tag("stage", stage).timer().count(), stage);
+        }
+    }
+
+    @Test
+    void testGetWeather_CompletedFetchRespondsOnRequestThread() {
+        WeatherRequest weatherRequest = new WeatherRequest();
+        weatherRequest.setTimestamp(LocalDateTime.now());
+        WeatherReport report = WeatherReport.parse("{\"main\":{\"temp\":71.6}}");
+
+        when(userService.getUserStatus("test@example.com")).thenReturn(new UserStatus(1L, true));
+        when(weatherService.getWeatherByZipCodeAsync("12345"))
+                .thenReturn(CompletableFuture.completedFuture(new WeatherResult(report, false)));
+        when(weatherService.saveWeatherRequest("test@example.com", "12345", report)).thenReturn(weatherRequest);
+
+        userController.getWeather("test@example.com", "12345").join();
+
+        verify(applicationTaskExecutor, never()).execute(any(Runnable.class));
+    }
+
+    @Test
+    void testGetWeather_PendingFetchSavesOffTheCompletingThread() throws Exception {
+        WeatherRequest weatherRequest = new WeatherRequest();
+        weatherRequest.setTimestamp(LocalDateTime.now());
+        WeatherReport report = WeatherReport.parse("{\"main\":{\"temp\":71.6}}");
+        CompletableFuture<WeatherResult> fetch = new CompletableFuture<>();
+        AtomicReference<String> savingThread = new AtomicReference<>();
+
+        when(userService.getUserStatus("test@example.com")).thenReturn(new UserStatus(1L, true));
+        when(weatherService.getWeatherByZipCodeAsync("12345")).thenReturn(fetch);
+        when(weatherService.saveWeatherRequest("test@example.com", "12345", report)).thenAnswer(invocation -> {
+            savingThread.set(Thread.currentThread().getName());
+            return weatherRequest;
+        });
+
+        ExecutorService taskExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "task-1"));
+        try {
+            UserController controller = new UserController(userService, weatherService, weatherExportService,
+                    weatherBatchService, stageTimers, taskExecutor);
+            CompletableFuture<ResponseEntity<WeatherResponseDTO>> response =
+                    controller.getWeather("test@example.com", "12345");
+
+            Thread eventLoop = new Thread(() -> fetch.complete(new WeatherResult(report, false)), "event-loop-1");
+            eventLoop.start();
+            eventLoop.join();
+
+            assertEquals(200, response.get(5, TimeUnit.SECONDS).getStatusCode().value());
+            assertEquals("task-1", savingThread.get());
+        } finally {
+            taskExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testGetWeather_UnknownUserOnlyRecordsLookup() {
+        when(userService.getUserStatus("test@example.com")).thenReturn(null);
+
+        userController.getWeather("test@example.com", "12345").join();
+
+        assertEquals(1, meterRegistry.get("weather.request.stage").tag("stage", "user-lookup").timer().count());
+        assertEquals(0, meterRegistry.get("weather.request.stage").tag("stage", "weather-fetch").timer().count());
+    }
+
+    @Test
+    void testGetWeather_StaleFallback() {
+        UserStatus activeUser = new UserStatus(1L, true);
+
+        WeatherReport report = WeatherReport.parse("Cloudy");
+
+        when(userService.getUserStatus("test@example.com")).thenReturn(activeUser);
+        when(weatherService.getWeatherByZipCodeAsync("12345"))
+                .thenReturn(CompletableFuture.completedFuture(new WeatherResult(report, true)));
+
+        ResponseEntity<WeatherResponseDTO> response = userController.getWeather("test@example.com", "12345").join();
+
+        assertEquals(200, response.getStatusCode().value());
         assertNotNull(response.getBody());
-        assertEquals("Sunny", response.getBody().getWeatherDetails());
-        assertEquals("test@example.com", response.getBody().getEmail());
-        assertEquals("12345", response.getBody().getZipCode());
-        verify(userService, times(1)).getUserByEmail("test@example.com");
+        assertEquals("Cloudy", response.getBody().getWeatherDetails());
+        assertTrue(response.getBody().isStale());
+        assertNotNull(response.getBody().getTimestamp());
+        // The fallback repeats an earlier request's weather and is not audited again
+        verify(weatherService, never()).saveWeatherRequest(anyString(), anyString(), any());
     }
 
     @Test
-    void testGetHistory_Success() {
-        WeatherRequest request1 = new WeatherRequest();
-        request1.setEmail("test@example.com");
-        request1.setZipCode("12345");
-        request1.setWeatherDetails("Sunny");
-        request1.setTimestamp(LocalDateTime.now());
+    void testGetWeather_UpstreamFailureFailsTheFuture() {
+        when(userService.getUserStatus("test@example.com")).thenReturn(new UserStatus(1L, true));
+        when(weatherService.getWeatherByZipCodeAsync("12345"))
+                .thenReturn(CompletableFuture.failedFuture(new WeatherUnavailableException("Weather API is unavailable")));
 
-        WeatherRequest request2 = new WeatherRequest();
-        request2.setEmail("test@example.com");
-        request2.setZipCode("67890");
-        request2.setWeatherDetails("Rainy");
-        request2.setTimestamp(LocalDateTime.now());
+        CompletableFuture<ResponseEntity<WeatherResponseDTO>> response =
+                userController.getWeather("test@example.com", "12345");
 
-        when(weatherService.getHistory("12345", "test@example.com")).thenReturn(List.of(request1, request2));
+        CompletionException exception = assertThrows(CompletionException.class, response::join);
+        assertInstanceOf(WeatherUnavailableException.class, exception.getCause());
+        verify(weatherService, never()).saveWeatherRequest(anyString(), anyString(), any());
+    }
 
-        ResponseEntity<List<WeatherResponseDTO>> response = userController.getHistory("12345", "test@example.com");
+    @Test
+    void testGetWeatherBatch_Success() {
+        WeatherBatchRequestDTO request = new WeatherBatchRequestDTO();
+        request.setEmail("test@example.com");
+        request.setZipCodes(List.of("12345", "abc"));
+        request.setRaw(true);
+        LocalDateTime timestamp = LocalDateTime.now();
+
+        when(userService.getUserStatus("test@example.com")).thenReturn(new UserStatus(1L, true));
+        when(weatherBatchService.getWeather("test@example.com", List.of("12345", "abc"))).thenReturn(List.of(
+                new ZipWeatherResult("12345", new WeatherResult(WeatherReport.parse("Sunny"), false), timestamp, null),
+                new ZipWeatherResult("abc", null, null, "Invalid zip code")));
+
+        ResponseEntity<WeatherBatchResponseDTO> response = userController.getWeatherBatch(request);
+
+        assertEquals(200, response.getStatusCode().value());
+        List<WeatherBatchResponseDTO.Item> results = response.getBody().getResults();
+        assertEquals(2, results.size());
+        assertEquals("Sunny", results.get(0).getWeatherDetails());
+        assertEquals(timestamp, results.get(0).getTimestamp());
+        assertNull(results.get(0).getError());
+        assertEquals("Invalid zip code", results.get(1).getError());
+        verify(userService, times(1)).getUserStatus("test@example.com");
+    }
+
+    @Test
+    void testGetWeatherBatch_TooManyZipCodes() {
+        WeatherBatchRequestDTO request = new WeatherBatchRequestDTO();
+        request.setEmail("test@example.com");
+        request.setZipCodes(Collections.nCopies(51, "12345"));
+
+        ResponseEntity<WeatherBatchResponseDTO> response = userController.getWeatherBatch(request);
+
+        assertEquals(400, response.getStatusCode().value());
+        verifyNoInteractions(userService, weatherBatchService);
+    }
+
+    @Test
+    void testGetWeatherBatch_UserInactive() {
+        WeatherBatchRequestDTO request = new WeatherBatchRequestDTO();
+        request.setEmail("test@example.com");
+        request.setZipCodes(List.of("12345"));
+
+        when(userService.getUserStatus("test@example.com")).thenReturn(new UserStatus(1L, false));
+
+        ResponseEntity<WeatherBatchResponseDTO> response = userController.getWeatherBatch(request);
+
+        assertEquals(403, response.getStatusCode().value());
+        verifyNoInteractions(weatherBatchService);
+    }
+
+    @Test
+    void testGetHistory_Success() {
+        WeatherRequestSummary request1 = new WeatherRequestSummary(2L, "test@example.com", "12345",
+                LocalDateTime.now(), WeatherReport.parse("Sunny").observation(), null);
+        WeatherRequestSummary request2 = new WeatherRequestSummary(1L, "test@example.com", "67890",
+                LocalDateTime.now(), WeatherReport.parse("Rainy").observation(), null);
+
+        when(weatherService.getHistory("12345", "test@example.com", null, null, null, 2, false))
+                .thenReturn(new HistoryPage(List.of(request1, request2), "next"));
+
+        ResponseEntity<List<WeatherResponseDTO>> response =
+                userController.getHistory("12345", "test@example.com", null, null, null, 2, false);
 
         assertEquals(200, response.getStatusCodeValue());
         assertNotNull(response.getBody());
         assertEquals(2, response.getBody().size());
-        verify(weatherService, times(1)).getHistory("12345", "test@example.com");
+        assertNull(response.getBody().get(0).getWeatherDetails());
+        assertEquals("next", response.getHeaders().getFirst(UserController.NEXT_CURSOR_HEADER));
+        verify(weatherService, times(1)).getHistory("12345", "test@example.com", null, null, null, 2, false);
+    }
+
+    @Test
+    void testGetHistory_RawIncludesPayload() {
+        WeatherRequestSummary request = new WeatherRequestSummary(1L, "test@example.com", "12345",
+                LocalDateTime.now(), null, "{\"main\":{\"temp\":21.5}}");
+        when(weatherService.getHistory(null, "test@example.com", null, null, null, 2, true))
+                .thenReturn(new HistoryPage(List.of(request), null));
+
+        ResponseEntity<List<WeatherResponseDTO>> response =
+                userController.getHistory(null, "test@example.com", null, null, null, 2, true);
+
+        assertEquals("{\"main\":{\"temp\":21.5}}", response.getBody().get(0).getWeatherDetails());
+        assertEquals(21.5, response.getBody().get(0).getWeather().temperature());
+    }
+
+    @Test
+    void testGetHistory_LastPageClampsLimit() {
+        when(weatherService.getHistory(null, "test@example.com", null, null, "cursor", 500, false))
+                .thenReturn(new HistoryPage(List.of(), null));
+
+        ResponseEntity<List<WeatherResponseDTO>> response =
+                userController.getHistory(null, "test@example.com", null, null, "cursor", 10_000, false);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertTrue(response.getBody().isEmpty());
+        assertFalse(response.getHeaders().containsKey(UserController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void testExportHistory_RequiresEmailOrZipCode() throws Exception {
+        WebAsyncTask<ResponseEntity<Void>> task =
+                userController.exportHistory(null, null, null, null, false, null, new MockHttpServletResponse());
+
+        assertEquals(400, ((ResponseEntity<?>) task.getCallable().call()).getStatusCode().value());
+        verifyNoInteractions(weatherExportService);
+    }
+
+    @Test
+    void testExportHistory_Gzip() throws Exception {
+        AsyncTaskExecutor exportExecutor = new SimpleAsyncTaskExecutor();
+        when(weatherExportService.getTimeout()).thenReturn(Duration.ofMinutes(30));
+        when(weatherExportService.getExecutor()).thenReturn(exportExecutor);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(5).write("{\"zipCode\":\"12345\"}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(weatherExportService).exportHistory(eq("12345"), isNull(), isNull(), isNull(), eq(false),
+                any(OutputStream.class));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        WebAsyncTask<ResponseEntity<Void>> task =
+                userController.exportHistory("12345", null, null, null, false, "gzip, deflate", response);
+
+        assertEquals(Duration.ofMinutes(30).toMillis(), task.getTimeout());
+        assertSame(exportExecutor, task.getExecutor());
+        assertNull(task.getCallable().call());
+        assertEquals(200, response.getStatus());
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertEquals("{\"zipCode\":\"12345\"}\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testExportHistory_GzipRefusedByZeroQuality() throws Exception {
+        when(weatherExportService.getTimeout()).thenReturn(Duration.ofMinutes(30));
+        when(weatherExportService.getExecutor()).thenReturn(new SimpleAsyncTaskExecutor());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        WebAsyncTask<ResponseEntity<Void>> task =
+                userController.exportHistory("12345", null, null, null, false, "gzip;q=0, identity", response);
+
+        assertNull(task.getCallable().call());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void testAcceptsGzip() {
+        assertTrue(UserController.acceptsGzip("gzip"));
+        assertTrue(UserController.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertFalse(UserController.acceptsGzip(null));
+        assertFalse(UserController.acceptsGzip("gzip;q=0"));
+        assertFalse(UserController.acceptsGzip("gzip; q=0.000, deflate"));
+        assertFalse(UserController.acceptsGzip("x-gzip-like, br"));
     }
 
     @Test
@@ -0,0 +1,61 @@
+package com.tcg.tcgweatherapi.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeflatedTextConverterTest {
+
+    static final String PAYLOAD = "{\"coord\":{\"lon\":-73.9967,\"lat\":40.7484},"
+            + "\"weather\":[{\"id\":802,\"main\":\"Clouds\",\"description\":\"scattered clouds\",\"icon\":\"03d\"}],"
+            + "\"base\":\"stations\",\"main\":{\"temp\":45.3,\"feels_like\":40.64,\"temp_min\":42.01,"
+            + "\"temp_max\":47.89,\"pressure\":1021,\"humidity\":58,\"sea_level\":1021,\"grnd_level\":1019},"
+            + "\"visibility\":10000,\"wind\":{\"speed\":9.22,\"deg\":300,\"gust\":16.11},\"clouds\":{\"all\":40},"
+            + "\"dt\":1706547600,\"sys\":{\"type\":2,\"id\":2008101,\"country\":\"US\",\"sunrise\":1706530213,"
+            + "\"sunset\":1706566161},\"timezone\":-18000,\"id\":0,\"name\":\"New York\",\"cod\":200}";
+
+    private final DeflatedTextConverter converter = new DeflatedTextConverter();
+
+    @Test
+    void testConvert_RoundTrips() {
+        for (String text : new String[]{PAYLOAD, "", "Sunny ☀", "x".repeat(100_000)}) {
+            assertEquals(text, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(text)));
+        }
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+
+    @Test
+    void testConvert_DictionaryShrinksTypicalPayloads() {
+        int original = PAYLOAD.getBytes(StandardCharsets.UTF_8).length;
+        byte[] withDictionary = converter.convertToDatabaseColumn(PAYLOAD);
+        byte[] withoutDictionary = DeflatedTextConverter.compress(PAYLOAD, DeflatedTextConverter.NO_DICTIONARY);
+
+        assertEquals(DeflatedTextConverter.OPENWEATHERMAP_V1, withDictionary[0]);
+        assertTrue(withDictionary.length * 3 < original,
+                "expected at least 3x compression, got " + original + " -> " + withDictionary.length);
+        assertTrue(withDictionary.length < withoutDictionary.length);
+    }
+
+    @Test
+    void testConvert_ReadsValuesWrittenWithoutDictionary() {
+        byte[] stored = DeflatedTextConverter.compress(PAYLOAD, DeflatedTextConverter.NO_DICTIONARY);
+
+        assertEquals(PAYLOAD, converter.convertToEntityAttribute(stored));
+    }
+
+    @Test
+    void testConvert_RejectsUnknownOrCorruptValues() {
+        byte[] stored = converter.convertToDatabaseColumn(PAYLOAD);
+        byte[] unknownDictionary = stored.clone();
+        unknownDictionary[0] = 99;
+
+        assertThrows(IllegalArgumentException.class, () -> converter.convertToEntityAttribute(unknownDictionary));
+        assertThrows(IllegalArgumentException.class,
+                () -> converter.convertToEntityAttribute(Arrays.copyOf(stored, stored.length / 2)));
+        assertThrows(IllegalArgumentException.class, () -> converter.convertToEntityAttribute(new byte[0]));
+    }
+}
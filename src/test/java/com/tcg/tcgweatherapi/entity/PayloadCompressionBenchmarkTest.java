@@ -0,0 +1,91 @@
+package com.tcg.tcgweatherapi.entity;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures the compression ratio of {@link DeflatedTextConverter} on realistic weather payloads against the CPU
+ * time spent compressing and decompressing them, with and without the preset dictionary. Run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class PayloadCompressionBenchmarkTest {
+
+    private static final int PAYLOADS = 2_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void compareDictionaries() {
+        List<String> payloads = payloads();
+        long original = payloads.stream().mapToLong(payload -> payload.getBytes(StandardCharsets.UTF_8).length).sum();
+
+        System.out.printf("%n%-12s %10s %8s %14s %16s%n",
+                "dictionary", "bytes", "ratio", "compress us", "decompress us");
+        for (byte dictionaryId : new byte[]{DeflatedTextConverter.NO_DICTIONARY,
+                DeflatedTextConverter.OPENWEATHERMAP_V1}) {
+            long compressed = 0;
+            long compressNanos = 0;
+            long decompressNanos = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                compressed = 0;
+                long start = System.nanoTime();
+                List<byte[]> stored = new ArrayList<>(payloads.size());
+                for (String payload : payloads) {
+                    byte[] value = DeflatedTextConverter.compress(payload, dictionaryId);
+                    compressed += value.length;
+                    stored.add(value);
+                }
+                long middle = System.nanoTime();
+                for (int i = 0; i < stored.size(); i++) {
+                    assertEquals(payloads.get(i).length(), DeflatedTextConverter.decompress(stored.get(i)).length());
+                }
+                // The first round warms up the JIT
+                if (round > 0) {
+                    compressNanos += middle - start;
+                    decompressNanos += System.nanoTime() - middle;
+                }
+            }
+            int measured = (ROUNDS - 1) * payloads.size();
+            System.out.printf("%-12s %10d %7.1fx %14.1f %16.1f%n",
+                    dictionaryId == DeflatedTextConverter.NO_DICTIONARY ? "none" : "v1",
+                    compressed, (double) original / compressed,
+                    compressNanos / 1_000.0 / measured, decompressNanos / 1_000.0 / measured);
+        }
+        System.out.printf("%-12s %10d%n", "original", original);
+    }
+
+    private static List<String> payloads() {
+        Random random = new Random(42);
+        String[][] conditions = {{"800", "Clear", "clear sky", "01d"}, {"802", "Clouds", "scattered clouds", "03d"},
+                {"500", "Rain", "light rain", "10d"}, {"701", "Mist", "mist", "50n"}};
+        List<String> payloads = new ArrayList<>(PAYLOADS);
+        for (int i = 0; i < PAYLOADS; i++) {
+            String[] condition = conditions[random.nextInt(conditions.length)];
+            double temp = 20 + random.nextDouble() * 80;
+            payloads.add(String.format(Locale.ROOT, "{\"coord\":{\"lon\":%.4f,\"lat\":%.4f},"
+                            + "\"weather\":[{\"id\":%s,\"main\":\"%s\",\"description\":\"%s\",\"icon\":\"%s\"}],"
+                            + "\"base\":\"stations\",\"main\":{\"temp\":%.2f,\"feels_like\":%.2f,\"temp_min\":%.2f,"
+                            + "\"temp_max\":%.2f,\"pressure\":%d,\"humidity\":%d,\"sea_level\":%d,\"grnd_level\":%d},"
+                            + "\"visibility\":10000,\"wind\":{\"speed\":%.2f,\"deg\":%d,\"gust\":%.2f},"
+                            + "\"clouds\":{\"all\":%d},\"dt\":%d,\"sys\":{\"type\":2,\"id\":%d,\"country\":\"US\","
+                            + "\"sunrise\":%d,\"sunset\":%d},\"timezone\":-18000,\"id\":0,\"name\":\"Town %d\","
+                            + "\"cod\":200}",
+                    -70 - random.nextDouble() * 50, 25 + random.nextDouble() * 20,
+                    condition[0], condition[1], condition[2], condition[3],
+                    temp, temp - 3, temp - 2, temp + 2, 1000 + random.nextInt(30), random.nextInt(100),
+                    1000 + random.nextInt(30), 1000 + random.nextInt(30),
+                    random.nextDouble() * 20, random.nextInt(360), random.nextDouble() * 30, random.nextInt(100),
+                    1_706_500_000 + random.nextInt(100_000), 2_000_000 + random.nextInt(100_000),
+                    1_706_500_000 + random.nextInt(1_000), 1_706_540_000 + random.nextInt(1_000), i));
+        }
+        return payloads;
+    }
+}
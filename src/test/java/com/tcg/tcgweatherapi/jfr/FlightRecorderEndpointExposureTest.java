@@ -0,0 +1,37 @@
+package com.tcg.tcgweatherapi.jfr;
+
+import jdk.jfr.FlightRecorder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.EndpointId;
+import org.springframework.boot.actuate.endpoint.web.PathMappedEndpoints;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest(properties = "cache.snapshot.enabled=false")
+@AutoConfigureMockMvc
+class FlightRecorderEndpointExposureTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PathMappedEndpoints pathMappedEndpoints;
+
+    @Test
+    void testEndpoint_NotExposedByDefault() throws Exception {
+        assertNull(pathMappedEndpoints.getEndpoint(EndpointId.of("flightrecorder")));
+        assertNotNull(pathMappedEndpoints.getEndpoint(EndpointId.of("health")));
+
+        Exception resolved = mockMvc.perform(post("/actuator/flightrecorder")).andReturn().getResolvedException();
+
+        assertInstanceOf(NoResourceFoundException.class, resolved);
+        assertTrue(FlightRecorder.getFlightRecorder().getRecordings().stream()
+                .noneMatch(recording -> FlightRecorderEndpoint.RECORDING_NAME.equals(recording.getName())));
+    }
+}
@@ -0,0 +1,85 @@
+package com.tcg.tcgweatherapi.jfr;
+
+import com.tcg.tcgweatherapi.upstream.UpstreamCallPriority;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderEndpointTest {
+
+    private final FlightRecorderEndpoint endpoint =
+            new FlightRecorderEndpoint("default", Duration.ofMinutes(5), DataSize.ofMegabytes(50));
+
+    @AfterEach
+    void tearDown() {
+        endpoint.stop();
+    }
+
+    @Test
+    void testDump_ContainsWeatherEvents() throws Exception {
+        FlightRecorderEndpoint.RecordingStatus status = endpoint.start(null);
+        assertEquals("RUNNING", status.state());
+
+        UpstreamCallEvent.start("10001", UpstreamCallPriority.LIVE)
+                .complete(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+        UpstreamCallEvent.start("10002", UpstreamCallPriority.REFRESH).completeSuccessfully();
+
+        List<RecordedEvent> events = readDump(endpoint.dump()).stream()
+                .filter(event -> event.getEventType().getName().equals("com.tcg.weather.UpstreamCall"))
+                .toList();
+
+        assertEquals(2, events.size());
+        RecordedEvent failed = events.stream()
+                .filter(event -> "10001".equals(event.getString("zipCode")))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("error", failed.getString("outcome"));
+        assertEquals(404, failed.getInt("status"));
+        assertEquals("LIVE", failed.getString("priority"));
+        assertNotNull(failed.getThread());
+    }
+
+    @Test
+    void testStart_KeepsRunningRecording() {
+        FlightRecorderEndpoint.RecordingStatus first = endpoint.start(null);
+        FlightRecorderEndpoint.RecordingStatus second = endpoint.start(Duration.ofMinutes(1));
+
+        assertEquals(first.startTime(), second.startTime());
+        assertNull(second.duration());
+    }
+
+    @Test
+    void testStop_DiscardsRecording() {
+        endpoint.start(null);
+
+        assertEquals(200, endpoint.stop().getStatus());
+        assertEquals(404, endpoint.dump().getStatus());
+        assertEquals(404, endpoint.stop().getStatus());
+    }
+
+    private static List<RecordedEvent> readDump(WebEndpointResponse<Resource> response) throws Exception {
+        assertEquals(200, response.getStatus());
+        Path copy = Files.createTempFile("weather-api-test-", ".jfr");
+        try (InputStream in = response.getBody().getInputStream()) {
+            Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+            return RecordingFile.readAllEvents(copy);
+        } finally {
+            Files.deleteIfExists(copy);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.tcg.tcgweatherapi.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeatherReportTest {
+
+    private static final String PAYLOAD = """
+            {"coord":{"lon":-73.99,"lat":40.75},
+             "weather":[{"id":800,"main":"Clear","description":"clear sky","icon":"01d"}],
+             "main":{"temp":71.6,"feels_like":70.9,"pressure":1016,"humidity":40},
+             "wind":{"speed":8.05,"deg":250},
+             "dt":1704110400,"name":"New York","cod":200}""";
+
+    @Test
+    void testParse_ExtractsObservation() {
+        WeatherReport report = WeatherReport.parse(PAYLOAD);
+
+        assertEquals(new WeatherObservation(71.6, 70.9, 40, 8.05, 250, "clear sky",
+                Instant.parse("2024-01-01T12:00:00Z")), report.observation());
+        assertSame(PAYLOAD, report.payload());
+    }
+
+    @Test
+    void testParse_MissingFieldsAreNull() {
+        WeatherObservation observation = WeatherReport.parse("{\"main\":{\"temp\":50}}").observation();
+
+        assertEquals(50.0, observation.temperature());
+        assertNull(observation.humidity());
+        assertNull(observation.conditions());
+        assertNull(observation.observedAt());
+    }
+
+    @Test
+    void testParse_AcceptsUnrecognizedPayloads() {
+        assertEquals(WeatherObservation.EMPTY, WeatherReport.parse("Sunny").observation());
+        assertEquals(WeatherObservation.EMPTY, WeatherReport.parse("[1, 2]").observation());
+        assertEquals("Sunny", WeatherReport.parse("Sunny").payload());
+        assertNull(WeatherReport.parse(null));
+    }
+}
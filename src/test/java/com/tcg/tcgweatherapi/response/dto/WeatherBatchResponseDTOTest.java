@@ -0,0 +1,30 @@
+package com.tcg.tcgweatherapi.response.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeatherBatchResponseDTOTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void testSerialize_EmbedsOnlyJsonPayloads() throws Exception {
+        WeatherBatchResponseDTO.Item json = new WeatherBatchResponseDTO.Item();
+        json.setZipCode("10001");
+        json.setWeatherDetails("{\"main\":{\"temp\":20.5}}");
+        WeatherBatchResponseDTO.Item text = new WeatherBatchResponseDTO.Item();
+        text.setZipCode("94105");
+        text.setWeatherDetails("<html><body>502 Bad Gateway</body></html>");
+
+        JsonNode results = objectMapper.readTree(objectMapper.writeValueAsString(
+                new WeatherBatchResponseDTO("test@example.com", List.of(json, text)))).get("results");
+
+        assertEquals(20.5, results.get(0).path("weatherDetails").path("main").path("temp").asDouble());
+        assertEquals("<html><body>502 Bad Gateway</body></html>", results.get(1).get("weatherDetails").asText());
+    }
+}
@@ -0,0 +1,55 @@
+package com.tcg.tcgweatherapi.response.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeatherResponseDTOTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void testSerialize_EmbedsJsonPayload() throws Exception {
+        JsonNode details = serialize("{\"main\":{\"temp\":20.5},\"name\":\"New York\"}").get("weatherDetails");
+
+        assertTrue(details.isObject());
+        assertEquals(20.5, details.path("main").path("temp").asDouble());
+    }
+
+    @Test
+    void testSerialize_WritesNonJsonPayloadAsString() throws Exception {
+        for (String payload : new String[]{"Rainy", "<html><body>502 Bad Gateway</body></html>",
+                "{\"main\":{\"temp\":20.5", "{} {}", ""}) {
+            JsonNode details = serialize(payload).get("weatherDetails");
+
+            assertTrue(details.isTextual(), payload);
+            assertEquals(payload, details.asText());
+        }
+    }
+
+    @Test
+    void testSerialize_OmitsMissingPayload() throws Exception {
+        assertFalse(serialize(null).has("weatherDetails"));
+    }
+
+    @Test
+    void testError_CarriesTextAsMessageAndWeatherDetails() throws Exception {
+        JsonNode response = objectMapper.readTree(objectMapper.writeValueAsString(
+                WeatherResponseDTO.error("User not found. Please register and then use the API.")));
+
+        assertEquals("User not found. Please register and then use the API.", response.get("message").asText());
+        assertEquals("User not found. Please register and then use the API.", response.get("weatherDetails").asText());
+    }
+
+    private JsonNode serialize(String payload) throws Exception {
+        WeatherResponseDTO response = new WeatherResponseDTO("test@example.com", "10001", null,
+                LocalDateTime.of(2024, 1, 29, 12, 0));
+        response.setWeatherDetails(payload);
+        // Parsing the output back fails if the payload was embedded as invalid JSON
+        return objectMapper.readTree(objectMapper.writeValueAsString(response));
+    }
+}
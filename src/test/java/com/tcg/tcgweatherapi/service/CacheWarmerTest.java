@@ -0,0 +1,141 @@
+package com.tcg.tcgweatherapi.service;
+
+import com.tcg.tcgweatherapi.cache.CacheSnapshot;
+import com.tcg.tcgweatherapi.cache.CachedWeather;
+import com.tcg.tcgweatherapi.cache.ExpiringUserStatus;
+import com.tcg.tcgweatherapi.cache.UserStatus;
+import com.tcg.tcgweatherapi.cache.UserStatusCache;
+import com.tcg.tcgweatherapi.cache.WeatherCache;
+import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import com.tcg.tcgweatherapi.entity.WeatherSnapshot;
+import com.tcg.tcgweatherapi.model.WeatherReport;
+import com.tcg.tcgweatherapi.repository.WeatherRequestRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CacheWarmerTest {
+
+    @TempDir
+    private Path directory;
+
+    @Mock
+    private WeatherRequestRepository weatherRequestRepository;
+
+    private final WeatherCache weatherCache =
+            new WeatherCache(100, Duration.ofMinutes(10), Duration.ofMinutes(5), Runnable::run, Clock.systemUTC());
+
+    private final UserStatusCache userStatusCache = new UserStatusCache(100, Duration.ofMinutes(5));
+
+    private Path path;
+    private CacheWarmer cacheWarmer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        path = directory.resolve("cache-snapshot.bin");
+        cacheWarmer = new CacheWarmer(weatherCache, userStatusCache, weatherRequestRepository, true, path, 100);
+    }
+
+    @Test
+    void testSaveThenRun_RestoresCachesFromSnapshot() {
+        weatherCache.put("10001", WeatherReport.parse("Sunny"));
+        userStatusCache.put("test@example.com", new UserStatus(1L, true));
+        cacheWarmer.save();
+
+        WeatherCache restartedWeatherCache =
+                new WeatherCache(100, Duration.ofMinutes(10), Duration.ofMinutes(5), Runnable::run, Clock.systemUTC());
+        UserStatusCache restartedUserStatusCache = new UserStatusCache(100, Duration.ofMinutes(5));
+        new CacheWarmer(restartedWeatherCache, restartedUserStatusCache, weatherRequestRepository, true, path, 100)
+                .run(null);
+
+        assertTrue(restartedWeatherCache.isFresh("10001", Duration.ZERO));
+        assertEquals("Sunny", restartedWeatherCache.get("10001", zipCode -> fail("served from the snapshot")).payload());
+        assertEquals(new UserStatus(1L, true),
+                restartedUserStatusCache.get("test@example.com", email -> fail("served from the snapshot")));
+        verifyNoInteractions(weatherRequestRepository);
+    }
+
+    @Test
+    void testRestore_DiscardsExpiredEntries() throws IOException {
+        Instant now = Instant.ofEpochMilli(System.currentTimeMillis());
+        new CacheSnapshot(now.minus(Duration.ofHours(1)),
+                Map.of("10001", new CachedWeather(WeatherReport.parse("Sunny"), now.minus(Duration.ofMinutes(3))),
+                        "94105", new CachedWeather(WeatherReport.parse("Fog"), now.minus(Duration.ofMinutes(16)))),
+                List.of(new ExpiringUserStatus("test@example.com", new UserStatus(1L, true), now.plusSeconds(60)),
+                        new ExpiringUserStatus("old@example.com", new UserStatus(2L, true), now.minusSeconds(1))))
+                .writeTo(path);
+
+        assertEquals(1, cacheWarmer.restore());
+
+        assertEquals(Map.of("10001", new CachedWeather(WeatherReport.parse("Sunny"), now.minus(Duration.ofMinutes(3)))),
+                weatherCache.entries());
+        assertEquals(List.of("test@example.com"),
+                userStatusCache.entries().stream().map(ExpiringUserStatus::email).toList());
+    }
+
+    @Test
+    void testRun_SeedsFromRecentRequestsWithoutSnapshot() {
+        LocalDateTime now = LocalDateTime.now();
+        when(weatherRequestRepository.findByTimestampAfterOrderByTimestampDesc(any(), eq(Limit.of(100))))
+                .thenReturn(List.of(
+                        newRequest("10001", "Sunny", now.minusMinutes(1)),
+                        newRequest("10001", "Cloudy", now.minusMinutes(4)),
+                        newRequest("94105", "Fog", now.minusMinutes(12))));
+
+        cacheWarmer.run(null);
+
+        assertEquals("Sunny", weatherCache.get("10001", zipCode -> fail("seeded from history")).payload());
+        assertFalse(weatherCache.isFresh("94105", Duration.ZERO), "seeded entries keep their age");
+        assertEquals("Fog", weatherCache.get("94105", zipCode -> WeatherReport.parse("Clear")).payload());
+        assertEquals("Clear", weatherCache.get("94105", zipCode -> fail("refreshed in the background")).payload());
+    }
+
+    @Test
+    void testRun_SeedsWhenSnapshotIsUnreadable() throws IOException {
+        Files.writeString(path, "not a snapshot");
+        when(weatherRequestRepository.findByTimestampAfterOrderByTimestampDesc(any(), any())).thenReturn(List.of());
+
+        cacheWarmer.run(null);
+
+        verify(weatherRequestRepository).findByTimestampAfterOrderByTimestampDesc(any(), eq(Limit.of(100)));
+    }
+
+    @Test
+    void testRunAndSave_DisabledDoNothing() {
+        cacheWarmer = new CacheWarmer(weatherCache, userStatusCache, weatherRequestRepository, false, path, 100);
+        weatherCache.put("10001", WeatherReport.parse("Sunny"));
+
+        cacheWarmer.run(null);
+        cacheWarmer.save();
+
+        assertFalse(Files.exists(path));
+        verifyNoInteractions(weatherRequestRepository);
+    }
+
+    private static WeatherRequest newRequest(String zipCode, String payload, LocalDateTime createdAt) {
+        WeatherSnapshot snapshot = WeatherSnapshot.of(zipCode, payload);
+        snapshot.setCreatedAt(createdAt);
+        WeatherRequest weatherRequest = new WeatherRequest();
+        weatherRequest.setZipCode(zipCode);
+        weatherRequest.setSnapshot(snapshot);
+        weatherRequest.setTimestamp(createdAt);
+        return weatherRequest;
+    }
+}
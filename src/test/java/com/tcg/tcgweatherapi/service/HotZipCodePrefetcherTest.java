@@ -0,0 +1,102 @@
+package com.tcg.tcgweatherapi.service;
+
+import com.tcg.tcgweatherapi.cache.WeatherCache;
+import com.tcg.tcgweatherapi.cache.ZipCodePopularity;
+import com.tcg.tcgweatherapi.exceptions.WeatherUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class HotZipCodePrefetcherTest {
+
+    private static final Duration REFRESH_AHEAD = Duration.ofMinutes(2);
+
+    @Mock
+    private WeatherService weatherService;
+
+    @Mock
+    private WeatherCache weatherCache;
+
+    private final ZipCodePopularity zipCodePopularity = new ZipCodePopularity(256, 10, 2);
+
+    private HotZipCodePrefetcher prefetcher;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        prefetcher = new HotZipCodePrefetcher(weatherService, weatherCache, zipCodePopularity, true, REFRESH_AHEAD, 2);
+    }
+
+    @Test
+    void testPrefetch_RefreshesHotEntriesAboutToTurnStale() {
+        record("10001", 5);
+        record("94105", 3);
+        record("60601", 1);
+        when(weatherCache.isFresh("10001", REFRESH_AHEAD)).thenReturn(true);
+
+        assertEquals(1, prefetcher.prefetchHotZipCodes());
+
+        verify(weatherService).prefetchWeather("94105");
+        verify(weatherService, never()).prefetchWeather("10001");
+        verify(weatherService, never()).prefetchWeather("60601");
+    }
+
+    @Test
+    void testPrefetch_LimitedToMaxCallsPerRunHottestFirst() {
+        record("10001", 5);
+        record("94105", 4);
+        record("60601", 3);
+
+        assertEquals(2, prefetcher.prefetchHotZipCodes());
+
+        verify(weatherService).prefetchWeather("10001");
+        verify(weatherService).prefetchWeather("94105");
+        verify(weatherService, never()).prefetchWeather("60601");
+    }
+
+    @Test
+    void testPrefetch_StopsWhenUpstreamUnavailable() {
+        record("10001", 5);
+        record("94105", 4);
+        when(weatherService.prefetchWeather("10001"))
+                .thenThrow(new WeatherUnavailableException("Weather API call quota exhausted"));
+
+        assertEquals(0, prefetcher.prefetchHotZipCodes());
+
+        verify(weatherService, never()).prefetchWeather("94105");
+    }
+
+    @Test
+    void testPrefetch_ContinuesAfterFailedZipCode() {
+        record("10001", 5);
+        record("94105", 4);
+        when(weatherService.prefetchWeather("10001")).thenThrow(new RuntimeException("Error fetching weather data"));
+
+        assertEquals(1, prefetcher.prefetchHotZipCodes());
+
+        verify(weatherService).prefetchWeather("94105");
+    }
+
+    @Test
+    void testScheduledPrefetch_DisabledDoesNothing() {
+        record("10001", 5);
+        prefetcher = new HotZipCodePrefetcher(weatherService, weatherCache, zipCodePopularity, false, REFRESH_AHEAD, 2);
+
+        prefetcher.scheduledPrefetch();
+
+        verify(weatherService, never()).prefetchWeather(any());
+    }
+
+    private void record(String zipCode, int times) {
+        for (int i = 0; i < times; i++) {
+            zipCodePopularity.record(zipCode);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.tcg.tcgweatherapi.service;
+
+import com.tcg.tcgweatherapi.entity.WeatherSnapshot;
+import com.tcg.tcgweatherapi.repository.WeatherSnapshotRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class PayloadCompressionMigratorTest {
+
+    @Autowired
+    private WeatherSnapshotRepository weatherSnapshotRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private PayloadCompressionMigrator migrator;
+
+    @BeforeEach
+    void setUp() {
+        migrator = new PayloadCompressionMigrator(weatherSnapshotRepository, transactionTemplate, true, 2);
+        for (String zipCode : new String[]{"10001", "94105", "60601"}) {
+            // Rows as written before payloads were compressed
+            entityManager.createNativeQuery("insert into weather_snapshot (id, zip_code, payload, created_at) "
+                            + "values (?1, ?2, ?3, ?4)")
+                    .setParameter(1, WeatherSnapshot.contentHash(zipCode, "Sunny in " + zipCode))
+                    .setParameter(2, zipCode)
+                    .setParameter(3, "Sunny in " + zipCode)
+                    .setParameter(4, LocalDateTime.now())
+                    .executeUpdate();
+        }
+        weatherSnapshotRepository.save(WeatherSnapshot.of("02101", "Rainy"));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testLegacyPayloadsAreReadable() {
+        WeatherSnapshot snapshot =
+                weatherSnapshotRepository.findById(WeatherSnapshot.contentHash("10001", "Sunny in 10001")).orElseThrow();
+
+        assertEquals("Sunny in 10001", snapshot.getPayload());
+    }
+
+    @Test
+    void testMigrateBatch_CompressesLegacyPayloadsInBatches() {
+        assertEquals(2, migrator.migrateBatch());
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals(1, migrator.migrateBatch());
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals(0, migrator.migrateBatch());
+
+        assertEquals(0L, entityManager.createNativeQuery(
+                "select count(*) from weather_snapshot where payload is not null or payload_deflated is null")
+                .getSingleResult());
+        for (String zipCode : new String[]{"10001", "94105", "60601"}) {
+            assertEquals("Sunny in " + zipCode, weatherSnapshotRepository
+                    .findById(WeatherSnapshot.contentHash(zipCode, "Sunny in " + zipCode)).orElseThrow().getPayload());
+        }
+        assertEquals("Rainy", weatherSnapshotRepository
+                .findById(WeatherSnapshot.contentHash("02101", "Rainy")).orElseThrow().getPayload());
+    }
+}
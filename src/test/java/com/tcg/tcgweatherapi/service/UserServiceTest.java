@@ -1,5 +1,7 @@
 package com.tcg.tcgweatherapi.service;
 
+import com.tcg.tcgweatherapi.cache.UserStatus;
+import com.tcg.tcgweatherapi.cache.UserStatusCache;
 import com.tcg.tcgweatherapi.entity.User;
 import com.tcg.tcgweatherapi.exceptions.UserAlreadyRegisteredException;
 import com.tcg.tcgweatherapi.repository.UserRepository;
@@ -8,6 +10,10 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -17,6 +23,9 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Spy
+    private UserStatusCache userStatusCache = new UserStatusCache(100, Duration.ofMinutes(5));
+
     @InjectMocks
     private UserService userService;
 
@@ -151,4 +160,94 @@ class UserServiceTest {
         verify(userRepository, times(1)).findByEmail(email);
         verify(userRepository, never()).save(any(User.class));
     }
+
+    @Test
+    void testGetUserStatus_CachesAfterFirstRead() {
+        String email = "test@example.com";
+        User user = new User();
+        user.setId(7L);
+        user.setEmail(email);
+        user.setActive(true);
+
+        when(userRepository.findByEmail(email)).thenReturn(user);
+
+        UserStatus first = userService.getUserStatus(email);
+        UserStatus second = userService.getUserStatus(email);
+
+        assertEquals(new UserStatus(7L, true), first);
+        assertEquals(first, second);
+        verify(userRepository, times(1)).findByEmail(email);
+        assertEquals(1, userStatusCache.stats().hitCount());
+        assertEquals(1, userStatusCache.stats().missCount());
+    }
+
+    @Test
+    void testGetUserStatus_UnknownUserIsNotCached() {
+        String email = "test@example.com";
+
+        when(userRepository.findByEmail(email)).thenReturn(null);
+
+        assertNull(userService.getUserStatus(email));
+        assertNull(userService.getUserStatus(email));
+        verify(userRepository, times(2)).findByEmail(email);
+    }
+
+    @Test
+    void testRegisterUser_WritesStatusThrough() {
+        String email = "test@example.com";
+        when(userRepository.findByEmail(email)).thenReturn(null);
+        User savedUser = new User();
+        savedUser.setId(3L);
+        savedUser.setEmail(email);
+        savedUser.setActive(true);
+        when(userRepository.save(any(User.class))).thenReturn(savedUser);
+
+        userService.registerUser(email);
+
+        assertEquals(new UserStatus(3L, true), userService.getUserStatus(email));
+        verify(userRepository, times(1)).findByEmail(email);
+    }
+
+    @Test
+    void testDeactivateUser_WritesStatusThrough() {
+        String email = "test@example.com";
+        User user = new User();
+        user.setId(5L);
+        user.setEmail(email);
+        user.setActive(true);
+        when(userRepository.findByEmail(email)).thenReturn(user);
+
+        assertTrue(userService.getUserStatus(email).active());
+        userService.deactivateUser(email);
+
+        assertFalse(userService.getUserStatus(email).active());
+        verify(userStatusCache, times(1)).put(email, new UserStatus(5L, false));
+    }
+
+    @Test
+    void testGetUserStatus_LoadRacingWithWriteThroughDoesNotFillCache() {
+        String email = "test@example.com";
+        User user = new User();
+        user.setId(5L);
+        user.setEmail(email);
+        user.setActive(true);
+        AtomicBoolean raced = new AtomicBoolean();
+        when(userRepository.findByEmail(email)).thenAnswer(invocation -> {
+            if (raced.compareAndSet(false, true)) {
+                // The reader holds the row from before the deactivation when that commits and writes through
+                User before = new User();
+                before.setId(5L);
+                before.setEmail(email);
+                before.setActive(true);
+                userService.deactivateUser(email);
+                return before;
+            }
+            return user;
+        });
+
+        assertTrue(userService.getUserStatus(email).active(), "the racing reader still sees the row it read");
+
+        assertFalse(userService.getUserStatus(email).active());
+        verify(userRepository, times(2)).findByEmail(email);
+    }
 }
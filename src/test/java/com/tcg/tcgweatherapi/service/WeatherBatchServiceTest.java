@@ -0,0 +1,154 @@
+package com.tcg.tcgweatherapi.service;
+
+import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import com.tcg.tcgweatherapi.exceptions.WeatherUnavailableException;
+import com.tcg.tcgweatherapi.model.WeatherReport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WeatherBatchServiceTest {
+
+    @Mock
+    private WeatherService weatherService;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        executor = Executors.newFixedThreadPool(8);
+        when(weatherService.saveWeatherRequests(anyString(), anyMap())).thenAnswer(invocation -> {
+            List<WeatherRequest> saved = new ArrayList<>();
+            invocation.<Map<String, WeatherReport>>getArgument(1).forEach((zipCode, report) -> {
+                WeatherRequest weatherRequest = new WeatherRequest();
+                weatherRequest.setZipCode(zipCode);
+                weatherRequest.setTimestamp(LocalDateTime.now());
+                saved.add(weatherRequest);
+            });
+            return saved;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testGetWeather_ReportsEachZipCodeInRequestOrder() {
+        WeatherReport sunny = WeatherReport.parse("Sunny");
+        WeatherReport windy = WeatherReport.parse("Windy");
+        when(weatherService.getWeatherByZipCode("10001")).thenReturn(new WeatherResult(sunny, false));
+        when(weatherService.getWeatherByZipCode("94105"))
+                .thenThrow(new WeatherUnavailableException("Weather API is unavailable"));
+        when(weatherService.getWeatherByZipCode("60601")).thenReturn(new WeatherResult(windy, true));
+        WeatherBatchService batchService = new WeatherBatchService(weatherService, executor, 4, Duration.ofSeconds(5));
+
+        List<ZipWeatherResult> results =
+                batchService.getWeather("test@example.com", List.of("10001", "abc", "94105", "60601", "10001"));
+
+        assertEquals(List.of("10001", "abc", "94105", "60601"),
+                results.stream().map(ZipWeatherResult::zipCode).toList());
+        assertEquals("Sunny", results.get(0).weather().report().payload());
+        assertNotNull(results.get(0).timestamp());
+        assertEquals("Invalid zip code", results.get(1).error());
+        assertEquals("Weather API is unavailable", results.get(2).error());
+        assertTrue(results.get(3).weather().stale());
+        assertNotNull(results.get(3).timestamp());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, WeatherReport>> saved = ArgumentCaptor.forClass(Map.class);
+        verify(weatherService, times(1)).saveWeatherRequests(eq("test@example.com"), saved.capture());
+        // The stale fallback for 60601 is not recorded again
+        assertEquals(Map.of("10001", sunny), saved.getValue());
+        verify(weatherService, times(1)).getWeatherByZipCode("10001");
+        verify(weatherService, never()).getWeatherByZipCode("abc");
+    }
+
+    @Test
+    void testGetWeather_BoundsParallelism() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(weatherService.getWeatherByZipCode(anyString())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return new WeatherResult(WeatherReport.parse("Sunny"), false);
+        });
+        WeatherBatchService batchService = new WeatherBatchService(weatherService, executor, 2, Duration.ofSeconds(5));
+
+        List<ZipWeatherResult> results = batchService.getWeather("test@example.com",
+                List.of("10001", "10002", "10003", "10004", "10005", "10006"));
+
+        assertTrue(results.stream().allMatch(ZipWeatherResult::isSuccess));
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    void testGetWeather_TimesOutSlowZipCodes() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(weatherService.getWeatherByZipCode("10001")).thenReturn(new WeatherResult(WeatherReport.parse("Sunny"), false));
+        when(weatherService.getWeatherByZipCode("94105")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new WeatherResult(WeatherReport.parse("Late"), false);
+        });
+        WeatherBatchService batchService =
+                new WeatherBatchService(weatherService, executor, 2, Duration.ofMillis(100));
+
+        List<ZipWeatherResult> results = batchService.getWeather("test@example.com", List.of("10001", "94105"));
+        release.countDown();
+
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("Timed out fetching weather data", results.get(1).error());
+    }
+
+    @Test
+    void testGetWeather_SaturatedPoolReportsZipCodesUnavailable() {
+        WeatherBatchService batchService = new WeatherBatchService(weatherService, runnable -> {
+            throw new RejectedExecutionException("Saturated");
+        }, 2, Duration.ofSeconds(5));
+
+        List<ZipWeatherResult> results = batchService.getWeather("test@example.com", List.of("10001", "94105"));
+
+        assertEquals(List.of("Too many weather batches in progress", "Too many weather batches in progress"),
+                results.stream().map(ZipWeatherResult::error).toList());
+        verify(weatherService, never()).getWeatherByZipCode(anyString());
+    }
+
+    @Test
+    void testGetWeather_PartlySaturatedPoolFetchesEveryZipCode() {
+        when(weatherService.getWeatherByZipCode(anyString()))
+                .thenReturn(new WeatherResult(WeatherReport.parse("Sunny"), false));
+        AtomicInteger accepted = new AtomicInteger();
+        WeatherBatchService batchService = new WeatherBatchService(weatherService, runnable -> {
+            if (accepted.getAndIncrement() > 0) {
+                throw new RejectedExecutionException("Saturated");
+            }
+            executor.execute(runnable);
+        }, 4, Duration.ofSeconds(5));
+
+        List<ZipWeatherResult> results =
+                batchService.getWeather("test@example.com", List.of("10001", "94105", "60601"));
+
+        assertTrue(results.stream().allMatch(ZipWeatherResult::isSuccess));
+    }
+}
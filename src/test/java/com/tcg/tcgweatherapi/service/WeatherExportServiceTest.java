@@ -0,0 +1,140 @@
+package com.tcg.tcgweatherapi.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import com.tcg.tcgweatherapi.entity.WeatherSnapshot;
+import com.tcg.tcgweatherapi.repository.WeatherRequestRepository;
+import com.tcg.tcgweatherapi.repository.WeatherSnapshotRepository;
+import com.tcg.tcgweatherapi.response.dto.WeatherResponseDTO;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class WeatherExportServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private static final String SUNNY =
+            "{\"weather\":[{\"main\":\"Clear\",\"description\":\"clear sky\"}],\"main\":{\"temp\":68.5}}";
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Autowired
+    private WeatherRequestRepository weatherRequestRepository;
+
+    @Autowired
+    private WeatherSnapshotRepository weatherSnapshotRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private WeatherExportService weatherExportService;
+
+    @BeforeEach
+    void setUp() {
+        // A fetch size smaller than the result exercises clearing the persistence context mid-stream.
+        weatherExportService = new WeatherExportService(entityManager, transactionManager, objectMapper, 3,
+                Duration.ofMinutes(30), new SimpleAsyncTaskExecutor());
+
+        WeatherSnapshot sunny = weatherSnapshotRepository.save(WeatherSnapshot.of("10001", SUNNY));
+        WeatherSnapshot rainy = weatherSnapshotRepository.save(WeatherSnapshot.of("94105", "Rainy"));
+        for (int i = 9; i >= 0; i--) {
+            weatherRequestRepository.save(newRequest("a@example.com", sunny, START.plusMinutes(i)));
+        }
+        weatherRequestRepository.save(newRequest("b@example.com", rainy, START));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testExportHistory_WritesOneJsonObjectPerLineOldestFirst() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = weatherExportService.exportHistory(null, "a@example.com", null, null, false, out);
+
+        List<WeatherResponseDTO> rows = readRows(out);
+        assertEquals(10, exported);
+        assertEquals(10, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(START.plusMinutes(i), rows.get(i).getTimestamp());
+            assertEquals("clear sky", rows.get(i).getWeather().conditions());
+            assertEquals(68.5, rows.get(i).getWeather().temperature());
+            assertNull(rows.get(i).getWeatherDetails());
+            assertEquals("10001", rows.get(i).getZipCode());
+        }
+    }
+
+    @Test
+    void testExportHistory_AppliesFilters() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = weatherExportService.exportHistory("10001-1234", "a@example.com",
+                START.plusMinutes(2), START.plusMinutes(5), false, out);
+
+        assertEquals(3, exported);
+        assertEquals(3, readRows(out).size());
+    }
+
+    @Test
+    void testExportHistory_EmbedsRawPayloadAsJson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        weatherExportService.exportHistory("10001", null, null, null, true, out);
+
+        String firstLine = out.toString(StandardCharsets.UTF_8).split("\n")[0];
+        JsonNode row = objectMapper.readTree(firstLine);
+        assertEquals(objectMapper.readTree(SUNNY), row.get("weatherDetails"));
+        assertEquals("clear sky", row.path("weather").path("conditions").asText());
+    }
+
+    @Test
+    void testExportHistory_NoMatches() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = weatherExportService.exportHistory(null, "nobody@example.com", null, null, false, out);
+
+        assertEquals(0, exported);
+        assertEquals(0, out.size());
+    }
+
+    private List<WeatherResponseDTO> readRows(ByteArrayOutputStream out) throws Exception {
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertTrue(body.endsWith("\n"));
+        List<WeatherResponseDTO> rows = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            rows.add(objectMapper.readValue(line, WeatherResponseDTO.class));
+        }
+        return rows;
+    }
+
+    private static WeatherRequest newRequest(String email, WeatherSnapshot snapshot, LocalDateTime timestamp) {
+        WeatherRequest weatherRequest = new WeatherRequest();
+        weatherRequest.setEmail(email);
+        weatherRequest.setZipCode(snapshot.getZipCode());
+        weatherRequest.setSnapshot(snapshot);
+        weatherRequest.setTimestamp(timestamp);
+        return weatherRequest;
+    }
+}
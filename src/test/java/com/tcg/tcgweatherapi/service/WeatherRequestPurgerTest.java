@@ -0,0 +1,140 @@
+package com.tcg.tcgweatherapi.service;
+
+import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import com.tcg.tcgweatherapi.entity.WeatherRequestRollup;
+import com.tcg.tcgweatherapi.entity.WeatherSnapshot;
+import com.tcg.tcgweatherapi.repository.WeatherRequestRepository;
+import com.tcg.tcgweatherapi.repository.WeatherRequestRollupRepository;
+import com.tcg.tcgweatherapi.repository.WeatherSnapshotRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class WeatherRequestPurgerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Autowired
+    private WeatherRequestRepository weatherRequestRepository;
+
+    @Autowired
+    private WeatherSnapshotRepository weatherSnapshotRepository;
+
+    @Autowired
+    private WeatherRequestRollupRepository weatherRequestRollupRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private WeatherSnapshot warm;
+    private WeatherSnapshot cold;
+
+    @BeforeEach
+    void setUp() {
+        warm = weatherSnapshotRepository.save(snapshot("10001", 20.0, START));
+        cold = weatherSnapshotRepository.save(snapshot("10001", 10.0, START));
+        WeatherSnapshot unknown = weatherSnapshotRepository.save(WeatherSnapshot.of("94105", "Fog"));
+        unknown.setCreatedAt(START);
+
+        weatherRequestRepository.save(newRequest("a@example.com", warm, START.plusMinutes(5)));
+        weatherRequestRepository.save(newRequest("a@example.com", cold, START.plusMinutes(10)));
+        weatherRequestRepository.save(newRequest("a@example.com", warm, START.plusMinutes(59)));
+        weatherRequestRepository.save(newRequest("b@example.com", unknown, START.plusMinutes(30)));
+        weatherRequestRepository.save(newRequest("a@example.com", cold, START.plusHours(1)));
+        weatherRequestRepository.save(newRequest("a@example.com", warm, START.plusHours(3)));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testPurge_RollsUpExpiredRequestsInChunks() {
+        WeatherRequestPurger purger = newPurger(2, 10);
+
+        assertEquals(5, purger.purge(START.plusHours(2)));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(List.of(START.plusHours(3)),
+                weatherRequestRepository.findAll().stream().map(WeatherRequest::getTimestamp).toList());
+
+        List<WeatherRequestRollup> rollups = weatherRequestRollupRepository.findAll().stream()
+                .sorted(Comparator.comparing(WeatherRequestRollup::getBucketStart)
+                        .thenComparing(WeatherRequestRollup::getEmail))
+                .toList();
+        assertEquals(3, rollups.size());
+
+        WeatherRequestRollup first = rollups.get(0);
+        assertEquals(START, first.getBucketStart());
+        assertEquals("10001", first.getZipCode());
+        assertEquals("a@example.com", first.getEmail());
+        assertEquals(3, first.getStatistics().getRequestCount(), "rows of one hour split across chunks are merged");
+        assertEquals(10.0, first.getStatistics().getMinTemperature());
+        assertEquals(20.0, first.getStatistics().getMaxTemperature());
+        assertEquals(50.0 / 3, first.getStatistics().getAverageTemperature(), 1e-9);
+
+        WeatherRequestRollup unknown = rollups.get(1);
+        assertEquals("94105", unknown.getZipCode());
+        assertEquals(1, unknown.getStatistics().getRequestCount());
+        assertNull(unknown.getStatistics().getAverageTemperature());
+        assertNull(unknown.getStatistics().getMinTemperature());
+
+        assertEquals(START.plusHours(1), rollups.get(2).getBucketStart());
+        assertEquals(1, rollups.get(2).getStatistics().getRequestCount());
+    }
+
+    @Test
+    void testPurge_RemovesOnlyUnreferencedSnapshots() {
+        newPurger(2, 10).purge(START.plusHours(2));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(List.of(warm.getId()),
+                weatherSnapshotRepository.findAll().stream().map(WeatherSnapshot::getId).toList());
+    }
+
+    @Test
+    void testPurge_StopsAfterMaxChunksPerRun() {
+        WeatherRequestPurger purger = newPurger(2, 1);
+
+        assertEquals(2, purger.purge(START.plusHours(2)));
+        assertEquals(2, purger.purge(START.plusHours(2)));
+        assertEquals(1, purger.purge(START.plusHours(2)));
+        assertEquals(0, purger.purge(START.plusHours(2)));
+        assertEquals(1, weatherRequestRepository.count());
+    }
+
+    private WeatherRequestPurger newPurger(int batchSize, int maxChunksPerRun) {
+        return new WeatherRequestPurger(weatherRequestRepository, weatherSnapshotRepository,
+                weatherRequestRollupRepository, transactionTemplate, true, Duration.ofDays(30), batchSize,
+                maxChunksPerRun);
+    }
+
+    private static WeatherSnapshot snapshot(String zipCode, double temperature, LocalDateTime createdAt) {
+        WeatherSnapshot snapshot = WeatherSnapshot.of(zipCode, "{\"main\":{\"temp\":" + temperature + "}}");
+        snapshot.setCreatedAt(createdAt);
+        return snapshot;
+    }
+
+    private static WeatherRequest newRequest(String email, WeatherSnapshot snapshot, LocalDateTime timestamp) {
+        WeatherRequest weatherRequest = new WeatherRequest();
+        weatherRequest.setEmail(email);
+        weatherRequest.setZipCode(snapshot.getZipCode());
+        weatherRequest.setSnapshot(snapshot);
+        weatherRequest.setTimestamp(timestamp);
+        return weatherRequest;
+    }
+}
@@ -0,0 +1,119 @@
+package com.tcg.tcgweatherapi.service;
+
+import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import com.tcg.tcgweatherapi.entity.WeatherSnapshot;
+import com.tcg.tcgweatherapi.exceptions.InvalidCursorException;
+import com.tcg.tcgweatherapi.repository.WeatherRequestRepository;
+import com.tcg.tcgweatherapi.repository.WeatherRequestSummary;
+import com.tcg.tcgweatherapi.repository.WeatherSnapshotRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class WeatherServiceHistoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private static final String SUNNY = "{\"main\":{\"temp\":21.5},\"weather\":[{\"description\":\"clear sky\"}]}";
+
+    @Autowired
+    private WeatherRequestRepository weatherRequestRepository;
+
+    @Autowired
+    private WeatherSnapshotRepository weatherSnapshotRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private WeatherService weatherService;
+
+    @BeforeEach
+    void setUp() {
+        weatherService = new WeatherService(null, null, weatherRequestRepository, null, null, null, null, null);
+
+        WeatherSnapshot sunny = weatherSnapshotRepository.save(WeatherSnapshot.of("10001", SUNNY));
+        WeatherSnapshot rainy = weatherSnapshotRepository.save(WeatherSnapshot.of("94105", "Rainy"));
+        for (int i = 0; i < 5; i++) {
+            // Two rows share each timestamp, so paging must break ties on the id.
+            LocalDateTime timestamp = START.plusMinutes(i / 2);
+            weatherRequestRepository.save(newRequest("a@example.com", sunny, timestamp));
+            weatherRequestRepository.save(newRequest("b@example.com", rainy, timestamp));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testGetHistory_PagesThroughAllMatchesNewestFirst() {
+        List<WeatherRequestSummary> all = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            HistoryPage page = weatherService.getHistory("10001", null, null, null, cursor, 2, false);
+            all.addAll(page.items());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(5, all.size());
+        assertEquals(5, all.stream().map(WeatherRequestSummary::id).distinct().count());
+        for (int i = 1; i < all.size(); i++) {
+            assertFalse(all.get(i).timestamp().isAfter(all.get(i - 1).timestamp()));
+        }
+        assertTrue(all.stream().allMatch(summary -> summary.observation().temperature() == 21.5
+                && "clear sky".equals(summary.observation().conditions())));
+        assertTrue(all.stream().allMatch(summary -> summary.payload() == null));
+    }
+
+    @Test
+    void testGetHistory_IncludesPayloadOnRequest() {
+        HistoryPage page = weatherService.getHistory("10001", "a@example.com", null, null, null, 2, true);
+
+        assertEquals(2, page.items().size());
+        assertTrue(page.items().stream().allMatch(summary -> SUNNY.equals(summary.payload())));
+        assertEquals(21.5, page.items().get(0).observation().temperature());
+        assertNotNull(page.nextCursor());
+    }
+
+    @Test
+    void testGetHistory_FiltersAreCombined() {
+        HistoryPage page = weatherService.getHistory("10001-1234", "b@example.com", null, null, null, 50, false);
+
+        assertTrue(page.items().isEmpty());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void testGetHistory_TimeRange() {
+        HistoryPage page = weatherService.getHistory(null, "b@example.com",
+                START.plusMinutes(1), START.plusMinutes(2), null, 50, false);
+
+        assertEquals(2, page.items().size());
+        assertTrue(page.items().stream().allMatch(summary -> summary.timestamp().equals(START.plusMinutes(1))));
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void testGetHistory_InvalidCursor() {
+        assertThrows(InvalidCursorException.class,
+                () -> weatherService.getHistory(null, null, null, null, "not-a-cursor", 50, false));
+    }
+
+    private static WeatherRequest newRequest(String email, WeatherSnapshot snapshot, LocalDateTime timestamp) {
+        WeatherRequest weatherRequest = new WeatherRequest();
+        weatherRequest.setEmail(email);
+        weatherRequest.setZipCode(snapshot.getZipCode());
+        weatherRequest.setSnapshot(snapshot);
+        weatherRequest.setTimestamp(timestamp);
+        return weatherRequest;
+    }
+}
@@ -1,18 +1,48 @@
 package com.tcg.tcgweatherapi.service;
 
+import com.tcg.tcgweatherapi.analytics.WeatherAnalytics;
+import com.tcg.tcgweatherapi.audit.WeatherRequestWriter;
+import com.tcg.tcgweatherapi.cache.WeatherCache;
+import com.tcg.tcgweatherapi.cache.ZipCodePopularity;
 import com.tcg.tcgweatherapi.entity.WeatherRequest;
+import com.tcg.tcgweatherapi.entity.WeatherSnapshot;
+import com.tcg.tcgweatherapi.exceptions.WeatherUnavailableException;
+import com.tcg.tcgweatherapi.model.WeatherReport;
 import com.tcg.tcgweatherapi.repository.WeatherRequestRepository;
+import com.tcg.tcgweatherapi.upstream.UpstreamGuard;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,6 +55,24 @@ class WeatherServiceTest {
     @Mock
     private WeatherRequestRepository weatherRequestRepository;
 
+    @Mock
+    private WeatherRequestWriter weatherRequestWriter;
+
+    @Spy
+    private WeatherCache weatherCache =
+            new WeatherCache(100, Duration.ofMinutes(10), Duration.ofMinutes(5), Runnable::run, Clock.systemUTC());
+
+    private final CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("weather-api");
+
+    @Spy
+    private UpstreamGuard upstreamGuard = new UpstreamGuard(circuitBreaker, Bulkhead.ofDefaults("weather-api"));
+
+    @Spy
+    private ZipCodePopularity zipCodePopularity = new ZipCodePopularity(64, 10, 1);
+
+    @Mock
+    private WeatherAnalytics weatherAnalytics;
+
     @InjectMocks
     private WeatherService weatherService;
 
@@ -40,10 +88,77 @@ class WeatherServiceTest {
 
         when(restTemplate.getForObject(anyString(), eq(String.class))).thenReturn(weatherApiResponse);
 
-        String result = weatherService.getWeatherByZipCode(zipCode);
+        WeatherResult result = weatherService.getWeatherByZipCode(zipCode);
 
         assertNotNull(result);
-        assertEquals(weatherApiResponse, result);
+        assertEquals(weatherApiResponse, result.report().payload());
+        assertFalse(result.stale());
+        verify(restTemplate, times(1)).getForObject(anyString(), eq(String.class));
+    }
+
+    @Test
+    void testGetWeatherByZipCode_ServedFromCache() {
+        String weatherApiResponse = "{ \"weather\": \"Sunny\" }";
+
+        when(restTemplate.getForObject(anyString(), eq(String.class))).thenReturn(weatherApiResponse);
+
+        assertEquals(weatherApiResponse, weatherService.getWeatherByZipCode("10001").report().payload());
+        assertEquals(weatherApiResponse, weatherService.getWeatherByZipCode("10001-1234").report().payload());
+
+        verify(restTemplate, times(1)).getForObject(contains("zip=10001&"), eq(String.class));
+    }
+
+    @Test
+    void testGetWeatherByZipCode_RecordsPopularity() {
+        when(restTemplate.getForObject(anyString(), eq(String.class))).thenReturn("{ \"weather\": \"Sunny\" }");
+
+        weatherService.getWeatherByZipCode("10001");
+        weatherService.getWeatherByZipCode("10001-1234");
+
+        assertEquals(2, zipCodePopularity.estimate("10001"));
+        assertEquals(List.of("10001"), zipCodePopularity.hotSet());
+    }
+
+    @Test
+    void testPrefetchWeather_CachesForLaterRequests() {
+        String weatherApiResponse = "{ \"weather\": \"Sunny\" }";
+        when(restTemplate.getForObject(anyString(), eq(String.class))).thenReturn(weatherApiResponse);
+
+        assertEquals(weatherApiResponse, weatherService.prefetchWeather("10001-1234").payload());
+        assertEquals(weatherApiResponse, weatherService.getWeatherByZipCode("10001").report().payload());
+
+        verify(restTemplate, times(1)).getForObject(contains("zip=10001&"), eq(String.class));
+    }
+
+    @Test
+    void testGetWeatherByZipCode_ConcurrentMissesShareOneUpstreamCall() throws Exception {
+        String weatherApiResponse = "{ \"weather\": \"Sunny\" }";
+        int callers = 32;
+        CountDownLatch start = new CountDownLatch(1);
+
+        when(restTemplate.getForObject(anyString(), eq(String.class))).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return weatherApiResponse;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<WeatherResult>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return weatherService.getWeatherByZipCode("10001");
+                }));
+            }
+            start.countDown();
+
+            for (Future<WeatherResult> result : results) {
+                assertEquals(weatherApiResponse, result.get(10, TimeUnit.SECONDS).report().payload());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
         verify(restTemplate, times(1)).getForObject(anyString(), eq(String.class));
     }
 
@@ -75,70 +190,156 @@ class WeatherServiceTest {
         verify(restTemplate, times(1)).getForObject(anyString(), eq(String.class));
     }
 
+    @Test
+    void testGetWeatherByZipCode_CircuitOpenServesLastKnownWeather() {
+        WeatherRequest lastKnown = new WeatherRequest();
+        lastKnown.setZipCode("10001");
+        lastKnown.setSnapshot(WeatherSnapshot.of("10001", "Cloudy"));
+        lastKnown.setTimestamp(LocalDateTime.now().minusHours(1));
+
+        circuitBreaker.transitionToOpenState();
+        when(weatherRequestRepository.findFirstByZipCodeOrderByTimestampDesc("10001")).thenReturn(lastKnown);
+
+        WeatherResult result = weatherService.getWeatherByZipCode("10001");
+
+        assertEquals("Cloudy", result.report().payload());
+        assertTrue(result.stale());
+        verify(restTemplate, never()).getForObject(anyString(), eq(String.class));
+    }
+
+    @Test
+    void testGetWeatherByZipCode_CircuitOpenWithoutHistory() {
+        circuitBreaker.transitionToOpenState();
+        when(weatherRequestRepository.findFirstByZipCodeOrderByTimestampDesc("10001")).thenReturn(null);
+
+        assertThrows(WeatherUnavailableException.class, () -> weatherService.getWeatherByZipCode("10001"));
+        verify(restTemplate, never()).getForObject(anyString(), eq(String.class));
+    }
+
     @Test
     void testSaveWeatherRequest_Success() {
         String email = "test@example.com";
         String zipCode = "10001";
-        String weatherDetails = "Sunny";
+        WeatherReport report = WeatherReport.parse("Sunny");
 
-        WeatherRequest weatherRequest = new WeatherRequest();
-        weatherRequest.setEmail(email);
-        weatherRequest.setZipCode(zipCode);
-        weatherRequest.setWeatherDetails(weatherDetails);
-        weatherRequest.setTimestamp(LocalDateTime.now());
-
-        when(weatherRequestRepository.save(any(WeatherRequest.class))).thenReturn(weatherRequest);
-
-        WeatherRequest result = weatherService.saveWeatherRequest(email, zipCode, weatherDetails);
+        WeatherRequest result = weatherService.saveWeatherRequest(email, zipCode, report);
 
         assertNotNull(result);
         assertEquals(email, result.getEmail());
         assertEquals(zipCode, result.getZipCode());
-        assertEquals(weatherDetails, result.getWeatherDetails());
-        verify(weatherRequestRepository, times(1)).save(any(WeatherRequest.class));
+        assertEquals("Sunny", result.getWeatherDetails());
+        assertEquals(report, result.getWeatherReport());
+        assertNotNull(result.getTimestamp());
+
+        ArgumentCaptor<WeatherRequest> submitted = ArgumentCaptor.forClass(WeatherRequest.class);
+        verify(weatherRequestWriter, times(1)).submit(submitted.capture());
+        assertSame(result, submitted.getValue());
+        verify(weatherAnalytics, times(1)).record(result, report.observation());
+        verify(weatherRequestRepository, never()).save(any(WeatherRequest.class));
     }
 
     @Test
-    void testGetHistory_Success() {
-        String email = "test@example.com";
-        String zipCode = "10001";
+    void testSaveWeatherRequests_RecordsObservationOfEachReport() {
+        WeatherReport sunny = WeatherReport.parse("{\"main\":{\"temp\":20.0}}");
+        WeatherReport rainy = WeatherReport.parse("{\"main\":{\"temp\":10.0}}");
+        Map<String, WeatherReport> reports = new LinkedHashMap<>();
+        reports.put("10001", sunny);
+        reports.put("94105-1234", rainy);
+
+        List<WeatherRequest> result = weatherService.saveWeatherRequests("test@example.com", reports);
+
+        assertEquals(List.of("10001", "94105"), result.stream().map(WeatherRequest::getZipCode).toList());
+        verify(weatherRequestWriter, times(1)).submitAll(result);
+        verify(weatherAnalytics, times(1)).record(result.get(0), sunny.observation());
+        verify(weatherAnalytics, times(1)).record(result.get(1), rainy.observation());
+    }
 
-        WeatherRequest request1 = new WeatherRequest();
-        request1.setEmail(email);
-        request1.setZipCode(zipCode);
-        request1.setWeatherDetails("Sunny");
-        request1.setTimestamp(LocalDateTime.now());
+    @Test
+    void testGetWeatherByZipCodeAsync_BlockingModeUsesRestTemplate() {
+        when(restTemplate.getForObject(anyString(), eq(String.class))).thenReturn("Sunny");
 
-        WeatherRequest request2 = new WeatherRequest();
-        request2.setEmail(email);
-        request2.setZipCode("10001");
-        request2.setWeatherDetails("Rainy");
-        request2.setTimestamp(LocalDateTime.now());
+        CompletableFuture<WeatherResult> result = weatherService.getWeatherByZipCodeAsync("10001");
 
-        List<WeatherRequest> history = Arrays.asList(request1, request2);
+        assertTrue(result.isDone());
+        assertEquals("Sunny", result.join().report().payload());
+    }
 
-        when(weatherRequestRepository.findByZipCodeOrEmail(zipCode, email)).thenReturn(history);
+    @Test
+    void testGetWeatherByZipCodeAsync_NonBlockingFetchIsCached() {
+        AtomicInteger exchanges = new AtomicInteger();
+        WeatherService nonBlockingService = newNonBlockingService(request -> {
+            exchanges.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.OK).body("Sunny").build());
+        });
 
-        List<WeatherRequest> result = weatherService.getHistory(zipCode, email);
+        assertEquals("Sunny", nonBlockingService.getWeatherByZipCodeAsync("10001").join().report().payload());
+        assertEquals("Sunny", nonBlockingService.getWeatherByZipCodeAsync("10001-1234").join().report().payload());
 
-        assertNotNull(result);
-        assertEquals(2, result.size());
-        assertEquals("Sunny", result.get(0).getWeatherDetails());
-        assertEquals("Rainy", result.get(1).getWeatherDetails());
-        verify(weatherRequestRepository, times(1)).findByZipCodeOrEmail(zipCode, email);
+        assertEquals(1, exchanges.get());
+        verify(restTemplate, never()).getForObject(anyString(), eq(String.class));
     }
 
     @Test
-    void testGetHistory_NoResults() {
-        String email = "test@example.com";
-        String zipCode = "10001";
+    void testGetWeatherByZipCodeAsync_ConcurrentMissesShareOneCallWithoutBlocking() {
+        AtomicInteger exchanges = new AtomicInteger();
+        WeatherService nonBlockingService = newNonBlockingService(request -> {
+            exchanges.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.OK).body("Sunny").build())
+                    .delayElement(Duration.ofMillis(200));
+        });
 
-        when(weatherRequestRepository.findByZipCodeOrEmail(zipCode, email)).thenReturn(List.of());
+        // All calls are started from this one thread; none of them waits for the upstream response.
+        List<CompletableFuture<WeatherResult>> results = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            results.add(nonBlockingService.getWeatherByZipCodeAsync("10001"));
+        }
+        assertTrue(results.stream().noneMatch(CompletableFuture::isDone));
 
-        List<WeatherRequest> result = weatherService.getHistory(zipCode, email);
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).join();
+        assertEquals(1, exchanges.get());
+        assertTrue(results.stream().allMatch(result -> "Sunny".equals(result.join().report().payload())));
+    }
 
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(weatherRequestRepository, times(1)).findByZipCodeOrEmail(zipCode, email);
+    @Test
+    void testGetWeatherByZipCodeAsync_ClientError() {
+        WeatherService nonBlockingService = newNonBlockingService(request ->
+                Mono.just(ClientResponse.create(HttpStatus.NOT_FOUND).build()));
+
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> nonBlockingService.getWeatherByZipCodeAsync("10001").join());
+
+        assertTrue(exception.getCause().getMessage().contains("Error fetching weather data"));
+    }
+
+    @Test
+    void testGetWeatherByZipCodeAsync_CircuitOpenServesLastKnownWeather() {
+        WeatherRequest lastKnown = new WeatherRequest();
+        lastKnown.setZipCode("10001");
+        lastKnown.setSnapshot(WeatherSnapshot.of("10001", "Cloudy"));
+        lastKnown.setTimestamp(LocalDateTime.now().minusHours(1));
+        AtomicInteger exchanges = new AtomicInteger();
+        WeatherService nonBlockingService = newNonBlockingService(request -> {
+            exchanges.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.OK).body("Sunny").build());
+        });
+
+        circuitBreaker.transitionToOpenState();
+        when(weatherRequestRepository.findFirstByZipCodeOrderByTimestampDesc("10001")).thenReturn(lastKnown);
+
+        WeatherResult result = nonBlockingService.getWeatherByZipCodeAsync("10001").join();
+
+        assertEquals("Cloudy", result.report().payload());
+        assertTrue(result.stale());
+        assertEquals(0, exchanges.get());
+    }
+
+    private WeatherService newNonBlockingService(ExchangeFunction exchangeFunction) {
+        WeatherService nonBlockingService = new WeatherService(restTemplate,
+                WebClient.builder().exchangeFunction(exchangeFunction).build(),
+                weatherRequestRepository, weatherCache, upstreamGuard, weatherRequestWriter, zipCodePopularity,
+                weatherAnalytics);
+        ReflectionTestUtils.setField(nonBlockingService, "weatherApiUrl", "http://weather.test/data");
+        ReflectionTestUtils.setField(nonBlockingService, "nonBlocking", true);
+        return nonBlockingService;
     }
 }
@@ -0,0 +1,207 @@
+package com.tcg.tcgweatherapi.upstream;
+
+import com.tcg.tcgweatherapi.exceptions.WeatherUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamGuardTest {
+
+    private final UpstreamGuard upstreamGuard = new UpstreamGuard(50, 100, Duration.ofSeconds(2), 4, 4,
+            Duration.ofMinutes(1), 1, 1, Duration.ZERO, UpstreamQuota.unlimited());
+
+    @Test
+    void testCall_Success() {
+        assertEquals("Sunny", upstreamGuard.call(() -> "Sunny"));
+        assertEquals(CircuitBreaker.State.CLOSED, upstreamGuard.state());
+    }
+
+    @Test
+    void testCall_ServerErrorsOpenCircuit() {
+        for (int i = 0; i < 4; i++) {
+            assertThrows(HttpServerErrorException.class, () -> upstreamGuard.call(() -> {
+                throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+            }));
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, upstreamGuard.state());
+        Exception exception = assertThrows(WeatherUnavailableException.class, () -> upstreamGuard.call(() -> "Sunny"));
+        assertEquals("Weather API is currently unavailable", exception.getMessage());
+    }
+
+    @Test
+    void testCall_RecordsOutcomeByStatus() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        upstreamGuard.bindTo(registry);
+
+        upstreamGuard.call(() -> "Sunny");
+        assertThrows(HttpClientErrorException.class, () -> upstreamGuard.call(() -> {
+            throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+        }));
+        upstreamGuard.callAsync(() -> CompletableFuture.failedFuture(
+                WebClientResponseException.create(502, "Bad Gateway", null, null, null)));
+
+        assertEquals(1, registry.get("weather.api.calls").tags("outcome", "SUCCESS", "status", "2xx").timer().count());
+        assertEquals(1, registry.get("weather.api.calls").tags("outcome", "CLIENT_ERROR", "status", "404").timer()
+                .count());
+        assertEquals(1, registry.get("weather.api.calls").tags("outcome", "SERVER_ERROR", "status", "502").timer()
+                .count());
+    }
+
+    @Test
+    void testCall_CountsRejectionsByReason() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        upstreamGuard.bindTo(registry);
+        for (int i = 0; i < 4; i++) {
+            assertThrows(HttpServerErrorException.class, () -> upstreamGuard.call(() -> {
+                throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+            }));
+        }
+
+        assertThrows(WeatherUnavailableException.class, () -> upstreamGuard.call(() -> "Sunny"));
+
+        assertEquals(1, registry.get("weather.api.rejected").tag("reason", "circuit-open").functionCounter().count());
+        assertEquals(1, registry.get("weather.api.circuit.state").tag("state", "open").gauge().value());
+        assertEquals(0, registry.get("weather.api.circuit.state").tag("state", "closed").gauge().value());
+    }
+
+    @Test
+    void testCall_ClientErrorsDoNotOpenCircuit() {
+        for (int i = 0; i < 4; i++) {
+            assertThrows(HttpClientErrorException.class, () -> upstreamGuard.call(() -> {
+                throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+            }));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, upstreamGuard.state());
+    }
+
+    @Test
+    void testCallAsync_ClientErrorsDoNotOpenCircuit() {
+        for (int i = 0; i < 4; i++) {
+            CompletableFuture<String> result = upstreamGuard.callAsync(() -> CompletableFuture.failedFuture(
+                    WebClientResponseException.create(404, "Not Found", null, null, null)));
+            assertInstanceOf(WebClientResponseException.class,
+                    assertThrows(CompletionException.class, result::join).getCause());
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, upstreamGuard.state());
+    }
+
+    @Test
+    void testCallAsync_OpenCircuitFailsWithWeatherUnavailable() {
+        for (int i = 0; i < 4; i++) {
+            upstreamGuard.callAsync(() -> CompletableFuture.failedFuture(
+                    WebClientResponseException.create(502, "Bad Gateway", null, null, null)));
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, upstreamGuard.state());
+        CompletableFuture<String> result = upstreamGuard.callAsync(() -> CompletableFuture.completedFuture("Sunny"));
+        assertInstanceOf(WeatherUnavailableException.class,
+                assertThrows(CompletionException.class, result::join).getCause());
+    }
+
+    @Test
+    void testCall_TooManyRequestsOpensCircuit() {
+        for (int i = 0; i < 4; i++) {
+            Exception exception = assertThrows(WeatherUnavailableException.class, () -> upstreamGuard.call(() -> {
+                throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", null, null, null);
+            }));
+            assertEquals("Weather API call quota exceeded upstream", exception.getMessage());
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, upstreamGuard.state());
+    }
+
+    @Test
+    void testCall_TooManyRequestsPausesQuota() {
+        UpstreamQuota quota = new UpstreamQuota(60, 10, 0, Duration.ZERO, Duration.ofMinutes(1), System::nanoTime);
+        UpstreamGuard guard = new UpstreamGuard(CircuitBreaker.ofDefaults("weather-api"),
+                Bulkhead.ofDefaults("weather-api"), quota);
+
+        assertThrows(WeatherUnavailableException.class, () -> guard.call(() -> {
+            throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", null, null, null);
+        }));
+
+        assertEquals(0, quota.available());
+        Exception exception = assertThrows(WeatherUnavailableException.class, () -> guard.call(() -> "Sunny"));
+        assertEquals("Weather API call quota exhausted", exception.getMessage());
+    }
+
+    @Test
+    void testCall_QuotaExhaustedDoesNotOpenCircuit() {
+        UpstreamQuota quota = new UpstreamQuota(1, 1, 0, Duration.ZERO, Duration.ZERO, System::nanoTime);
+        UpstreamGuard guard = new UpstreamGuard(50, 100, Duration.ofSeconds(2), 4, 4,
+                Duration.ofMinutes(1), 1, 1, Duration.ZERO, quota);
+
+        assertEquals("Sunny", guard.call(() -> "Sunny"));
+        for (int i = 0; i < 4; i++) {
+            Exception exception = assertThrows(WeatherUnavailableException.class, () -> guard.call(() -> "Sunny"));
+            assertEquals("Weather API call quota exhausted", exception.getMessage());
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, guard.state());
+        CompletableFuture<String> result = guard.callAsync(() -> CompletableFuture.completedFuture("Sunny"));
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(WeatherUnavailableException.class, exception.getCause());
+    }
+
+    @Test
+    void testCall_WaitForQuotaIsNotASlowCall() {
+        // One token every 100ms, while calls slower than 50ms count as slow
+        UpstreamQuota quota = new UpstreamQuota(600, 1, 0, Duration.ofSeconds(1), Duration.ZERO, System::nanoTime);
+        UpstreamGuard guard = new UpstreamGuard(50, 50, Duration.ofMillis(50), 4, 4,
+                Duration.ofMinutes(1), 1, 1, Duration.ZERO, quota);
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals("Sunny", guard.call(() -> "Sunny"));
+        }
+        for (int i = 0; i < 4; i++) {
+            assertEquals("Sunny", guard.callAsync(() -> CompletableFuture.completedFuture("Sunny")).join());
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, guard.state());
+    }
+
+    @Test
+    void testCall_BulkheadFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> upstreamGuard.call(() -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "Sunny";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            Exception exception = assertThrows(WeatherUnavailableException.class, () -> upstreamGuard.call(() -> "Rainy"));
+            assertEquals("Too many concurrent weather API calls", exception.getMessage());
+            assertEquals(CircuitBreaker.State.CLOSED, upstreamGuard.state());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.tcg.tcgweatherapi.upstream;
+
+import com.tcg.tcgweatherapi.exceptions.WeatherUnavailableException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamQuotaTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(1_000 * SECOND);
+
+    @Test
+    void testReserve_AllowsBurstThenRejects() {
+        UpstreamQuota quota = newQuota(0, Duration.ZERO);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, quota.reserve(UpstreamCallPriority.LIVE));
+        }
+
+        assertEquals(-1, quota.reserve(UpstreamCallPriority.LIVE));
+        assertEquals(0, quota.available());
+        assertEquals(1, quota.rejectedCount(UpstreamCallPriority.LIVE));
+    }
+
+    @Test
+    void testReserve_RefillsAtRate() {
+        UpstreamQuota quota = newQuota(0, Duration.ZERO);
+        drain(quota);
+
+        now.addAndGet(3 * SECOND);
+
+        assertEquals(3, quota.available());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, quota.reserve(UpstreamCallPriority.LIVE));
+        }
+        assertEquals(-1, quota.reserve(UpstreamCallPriority.LIVE));
+    }
+
+    @Test
+    void testReserve_LiveWaitsWithinMaxWait() {
+        UpstreamQuota quota = newQuota(0, Duration.ofMillis(2_500));
+        drain(quota);
+
+        assertEquals(SECOND, quota.reserve(UpstreamCallPriority.LIVE));
+        assertEquals(2 * SECOND, quota.reserve(UpstreamCallPriority.LIVE));
+        assertEquals(-1, quota.reserve(UpstreamCallPriority.LIVE));
+    }
+
+    @Test
+    void testReserve_RefreshLeavesReserveToLiveCalls() {
+        UpstreamQuota quota = newQuota(4, Duration.ofSeconds(5));
+
+        for (int i = 0; i < 6; i++) {
+            assertEquals(0, quota.reserve(UpstreamCallPriority.REFRESH));
+        }
+        assertEquals(-1, quota.reserve(UpstreamCallPriority.REFRESH));
+        assertEquals(1, quota.rejectedCount(UpstreamCallPriority.REFRESH));
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, quota.reserve(UpstreamCallPriority.LIVE));
+        }
+    }
+
+    @Test
+    void testThrottled_PausesAllCalls() {
+        UpstreamQuota quota = newQuota(0, Duration.ZERO);
+
+        quota.throttled();
+
+        assertEquals(0, quota.available());
+        assertEquals(-1, quota.reserve(UpstreamCallPriority.LIVE));
+        now.addAndGet(Duration.ofMinutes(1).toNanos());
+        assertEquals(0, quota.reserve(UpstreamCallPriority.LIVE));
+    }
+
+    @Test
+    void testAcquire_ThrowsWhenExhausted() {
+        UpstreamQuota quota = newQuota(0, Duration.ZERO);
+        drain(quota);
+
+        Exception exception = assertThrows(WeatherUnavailableException.class,
+                () -> quota.acquire(UpstreamCallPriority.LIVE));
+        assertEquals("Weather API call quota exhausted", exception.getMessage());
+
+        CompletableFuture<Void> acquired = quota.acquireAsync(UpstreamCallPriority.LIVE);
+        CompletionException failure = assertThrows(CompletionException.class, acquired::join);
+        assertInstanceOf(WeatherUnavailableException.class, failure.getCause());
+    }
+
+    @Test
+    void testAcquire_WaitsForNextToken() {
+        UpstreamQuota quota = new UpstreamQuota(600_000, 1, 0, Duration.ofSeconds(1), Duration.ZERO, System::nanoTime);
+        quota.acquire(UpstreamCallPriority.LIVE);
+
+        long start = System.nanoTime();
+        quota.acquire(UpstreamCallPriority.LIVE);
+        quota.acquireAsync(UpstreamCallPriority.LIVE).join();
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MICROSECONDS.toNanos(150));
+    }
+
+    @Test
+    void testReserve_ConcurrentCallersNeverExceedBurst() throws Exception {
+        UpstreamQuota quota = newQuota(0, Duration.ZERO);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> callers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                callers.add(executor.submit(() -> {
+                    for (int j = 0; j < 100; j++) {
+                        if (quota.reserve(UpstreamCallPriority.LIVE) == 0) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> caller : callers) {
+                caller.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(10, granted.get());
+        assertEquals(790, quota.rejectedCount(UpstreamCallPriority.LIVE));
+    }
+
+    @Test
+    void testUnlimited_NeverRejects() {
+        UpstreamQuota quota = UpstreamQuota.unlimited();
+
+        for (int i = 0; i < 1_000; i++) {
+            quota.acquire(UpstreamCallPriority.REFRESH);
+        }
+        quota.throttled();
+
+        assertEquals(0, quota.reserve(UpstreamCallPriority.LIVE));
+    }
+
+    /**
+     * One call per second, a burst of ten.
+     */
+    private UpstreamQuota newQuota(int refreshReserve, Duration maxWait) {
+        return new UpstreamQuota(60, 10, refreshReserve, maxWait, Duration.ofMinutes(1), now::get);
+    }
+
+    private static void drain(UpstreamQuota quota) {
+        while (quota.available() > 0) {
+            quota.reserve(UpstreamCallPriority.LIVE);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.tcg.tcgweatherapi.validator;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailValidatorTest {
+
+    @Test
+    void testIsValid_AcceptsPlainAddresses() {
+        for (String email : new String[]{"test@example.com", "jane.doe@mail.example.org",
+                "first.last+tag@sub.example.co", "o'brien@example.ie", "a@b-c.io", "x".repeat(64) + "@example.com"}) {
+            assertTrue(EmailValidator.isValid(email), email);
+        }
+    }
+
+    @Test
+    void testIsValid_RejectsMalformedAddresses() {
+        for (String email : new String[]{null, "", "invalid-email", "@", "@example.com", "user@", "user@localhost",
+                "user@@example.com", "a@b@example.com", ".user@example.com", "user.@example.com",
+                "us..er@example.com", "user@.example.com", "user@example..com", "user@example.com.",
+                "user@-example.com", "user@example-.com", "us er@example.com", "user@exa_mple.com",
+                "jöhn@example.com", "x".repeat(65) + "@example.com", "user@" + "x".repeat(64) + ".com",
+                "user@" + "x".repeat(250) + ".com"}) {
+            assertFalse(EmailValidator.isValid(email), String.valueOf(email));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.tcg.tcgweatherapi.validator;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ZipCodeValidatorTest {
+
+    @Test
+    void testIsValidUSZipCode_AcceptsFiveDigitAndZipPlusFourCodes() {
+        for (String zipCode : new String[]{"10001", "94105", "60601-2345", "60601 2345", "60601\t2345", "99950"}) {
+            assertTrue(ZipCodeValidator.isValidUSZipCode(zipCode), zipCode);
+        }
+    }
+
+    @Test
+    void testIsValidUSZipCode_RejectsMalformedCodes() {
+        for (String zipCode : new String[]{null, "", "1000", "100010", "abcde", "1000a", " 10001", "10001 ",
+                "10001-", "10001-234", "10001_2345", "10001-23456", "10001-234a", "１０００１"}) {
+            assertFalse(ZipCodeValidator.isValidUSZipCode(zipCode), String.valueOf(zipCode));
+        }
+    }
+
+    @Test
+    void testIsValidUSZipCode_RejectsUnknownCodes() {
+        for (String zipCode : new String[]{"00000", "00499", "21300", "69999", "00000-1234"}) {
+            assertFalse(ZipCodeValidator.isValidUSZipCode(zipCode), zipCode);
+        }
+    }
+
+    @Test
+    void testCanonicalize_DropsZipPlusFourSuffix() {
+        assertEquals("60601", ZipCodeValidator.canonicalize("60601-2345"));
+        assertEquals("60601", ZipCodeValidator.canonicalize("60601 2345"));
+        assertEquals("10001", ZipCodeValidator.canonicalize("10001"));
+    }
+
+    @Test
+    void testZipCodeAllowlist_RejectsUnassignedPrefixes() {
+        assertTrue(ZipCodeAllowlist.contains(10001));
+        assertTrue(ZipCodeAllowlist.contains(90001));
+        assertFalse(ZipCodeAllowlist.contains(0));
+        assertFalse(ZipCodeAllowlist.contains(21399));
+        assertFalse(ZipCodeAllowlist.contains(-1));
+        assertFalse(ZipCodeAllowlist.contains(ZipCodeAllowlist.SIZE));
+    }
+
+    @Test
+    void testZipCodeAllowlist_RejectsNonexistentCodesUnderAssignedPrefixes() {
+        int allowed = 0;
+        for (int zipCode = 0; zipCode < ZipCodeAllowlist.SIZE; zipCode++) {
+            allowed += ZipCodeAllowlist.contains(zipCode) ? 1 : 0;
+        }
+        // The prefix-level bitset allows 96,200 codes; one built from the ZCTA gazetteer about 42,000
+        assumeTrue(allowed < 50_000, "us-zip-codes.bits has not been regenerated from the ZCTA gazetteer yet");
+
+        // Prefixes 100, 900 and 999 are assigned, but 10000, 90000 and 99999 are not in use
+        for (int zipCode : new int[]{10000, 90000, 99999}) {
+            assertFalse(ZipCodeAllowlist.contains(zipCode), String.valueOf(zipCode));
+            assertFalse(ZipCodeValidator.isValidUSZipCode(String.format("%05d", zipCode)), String.valueOf(zipCode));
+        }
+    }
+
+    @Test
+    void testZipCodeAllowlist_EncodeDecodeRoundTrips() {
+        long[] words = ZipCodeAllowlist.decode(ZipCodeAllowlist.encode(0, 63, 64, 10001, 99999));
+
+        assertEquals(1L | 1L << 63, words[0]);
+        assertEquals(1L, words[1]);
+        assertEquals(1L << (10001 % 64), words[10001 / 64]);
+        assertEquals(1L << (99999 % 64), words[99999 / 64]);
+        assertThrows(IllegalArgumentException.class, () -> ZipCodeAllowlist.encode(ZipCodeAllowlist.SIZE));
+        assertThrows(IllegalArgumentException.class, () -> ZipCodeAllowlist.decode(new byte[ZipCodeAllowlist.BYTES - 1]));
+    }
+}
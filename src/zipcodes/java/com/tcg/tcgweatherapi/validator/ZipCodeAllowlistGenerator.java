@@ -0,0 +1,56 @@
+package com.tcg.tcgweatherapi.validator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Regenerates the bundled {@link ZipCodeAllowlist} bitset from a list of ZIP codes.
+ *
+ * <p>The input is either the Census Bureau's ZCTA gazetteer file, e.g. {@code 2023_Gaz_zcta_national.txt}, whose
+ * tab-separated rows start with the 5-digit ZCTA code, or a text file with one 5-digit ZIP code per line. Header,
+ * blank and {@code #} comment lines are skipped.</p>
+ *
+ * <p>Run with {@code mvn process-test-classes -Pzipcodes -Dzipcodes.input=<file>}; the bitset is written to
+ * {@code src/main/resources/zipcodes/us-zip-codes.bits} unless {@code zipcodes.output} names another file.</p>
+ */
+public final class ZipCodeAllowlistGenerator {
+
+    private ZipCodeAllowlistGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Expected the ZIP code list and the bitset file to write");
+        }
+        int[] zipCodes = parse(Files.readAllLines(Path.of(args[0])));
+        Path output = Path.of(args[1]);
+        Files.write(output, ZipCodeAllowlist.encode(zipCodes));
+        System.out.println("Wrote " + zipCodes.length + " ZIP codes to " + output);
+    }
+
+    /**
+     * Extracts the distinct ZIP codes from the lines of a gazetteer or plain list.
+     *
+     * @param lines the lines of the input file.
+     * @return the ZIP codes, in ascending order.
+     * @throws IllegalArgumentException if a data line does not start with a 5-digit ZIP code.
+     */
+    static int[] parse(List<String> lines) {
+        return lines.stream()
+                .map(String::strip)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#") && !line.startsWith("GEOID"))
+                .mapToInt(line -> {
+                    String zipCode = line.split("\t", 2)[0].strip();
+                    if (zipCode.length() != 5 || !zipCode.chars().allMatch(c -> c >= '0' && c <= '9')) {
+                        throw new IllegalArgumentException("Not a 5-digit ZIP code: " + line);
+                    }
+                    return Integer.parseInt(zipCode);
+                })
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+}